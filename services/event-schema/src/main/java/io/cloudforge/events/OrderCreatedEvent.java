@@ -1,4 +1,4 @@
-package io.cloudforge.orderservice.event;
+package io.cloudforge.events;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -18,6 +18,7 @@ public class OrderCreatedEvent {
     private UUID orderId;
     private UUID userId;
     private String userEmail;
+    private String customerName;
     private BigDecimal totalAmount;
     private String shippingAddress;
     private List<OrderItemEvent> items;
@@ -1,4 +1,4 @@
-package io.cloudforge.orderservice.event;
+package io.cloudforge.events;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -1,5 +1,6 @@
-package io.cloudforge.notificationservice.event;
+package io.cloudforge.events;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -14,7 +15,6 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 public class PaymentCompletedEvent {
-
     private UUID paymentId;
     private UUID orderId;
     private UUID userId;
@@ -24,5 +24,8 @@ public class PaymentCompletedEvent {
     private String currency;
     private String status;
     private String paymentMethod;
+    // The gateway's payment id; older JSON events call it stripePaymentIntentId
+    @JsonAlias("stripePaymentIntentId")
+    private String providerPaymentId;
     private Instant completedAt;
 }
@@ -1,4 +1,4 @@
-package io.cloudforge.notificationservice.event;
+package io.cloudforge.events;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -14,7 +14,6 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 public class PaymentFailedEvent {
-
     private UUID paymentId;
     private UUID orderId;
     private UUID userId;
@@ -0,0 +1,59 @@
+package io.cloudforge.events.codec;
+
+/**
+ * Binary encoding of the shared events: a magic byte, the schema id, then the
+ * record as laid out by its {@link EventSchema}.
+ *
+ * The magic byte can never start a JSON document, so a consumer can tell binary and
+ * JSON payloads apart and read both while producers are being switched over.
+ */
+public final class EventCodec {
+
+    public static final int MAGIC = 0xCE;
+
+    private EventCodec() {
+    }
+
+    public static boolean canEncode(Class<?> type) {
+        return EventSchemas.byType(type) != null;
+    }
+
+    public static boolean isEncoded(byte[] data) {
+        return data != null && data.length > 0 && (data[0] & 0xFF) == MAGIC;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> byte[] encode(T event) {
+        EventSchema<T> schema = (EventSchema<T>) EventSchemas.byType(event.getClass());
+        if (schema == null) {
+            throw new IllegalArgumentException("No event schema for " + event.getClass().getName());
+        }
+        EventWriter out = new EventWriter();
+        out.writeByte(MAGIC);
+        out.writeVarInt(schema.id());
+        schema.writeFields(out, event);
+        return out.toByteArray();
+    }
+
+    public static Object decode(byte[] data) {
+        if (!isEncoded(data)) {
+            throw new EventFormatException("Not a binary event");
+        }
+        EventReader in = new EventReader(data, 1, data.length - 1);
+        int id = in.readVarInt();
+        EventSchema<?> schema = EventSchemas.byId(id);
+        if (schema == null) {
+            throw new EventFormatException("Unknown event schema " + id);
+        }
+        return schema.readFields(in);
+    }
+
+    public static <T> T decode(byte[] data, Class<T> type) {
+        Object event = decode(data);
+        if (!type.isInstance(event)) {
+            throw new EventFormatException("Expected " + type.getSimpleName()
+                    + " but the payload is " + event.getClass().getSimpleName());
+        }
+        return type.cast(event);
+    }
+}
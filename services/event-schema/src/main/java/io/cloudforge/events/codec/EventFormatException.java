@@ -0,0 +1,11 @@
+package io.cloudforge.events.codec;
+
+/**
+ * Thrown when bytes cannot be decoded as an event.
+ */
+public class EventFormatException extends RuntimeException {
+
+    public EventFormatException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,145 @@
+package io.cloudforge.events.codec;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Reads what {@link EventWriter} wrote. Malformed input fails with
+ * {@link EventFormatException} rather than an index or arithmetic error.
+ */
+public final class EventReader {
+
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+
+    public EventReader(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    public EventReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    public int readByte() {
+        require(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    public long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new EventFormatException("Varint longer than 10 bytes");
+    }
+
+    public int readVarInt() {
+        long value = readVarLong();
+        if (value > 0xFFFFFFFFL) {
+            throw new EventFormatException("Varint out of int range");
+        }
+        return (int) value;
+    }
+
+    public long readSignedVarLong() {
+        long raw = readVarLong();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public UUID readUuid() {
+        return new UUID(readLong(), readLong());
+    }
+
+    public String readString() {
+        int length = readLength();
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public BigDecimal readDecimal() {
+        long header = readSignedVarLong();
+        long scale = header >> 1;
+        if (scale != (int) scale) {
+            throw new EventFormatException("Decimal scale out of range");
+        }
+        if ((header & 1) == 0) {
+            return BigDecimal.valueOf(readSignedVarLong(), (int) scale);
+        }
+        int length = readLength();
+        BigInteger unscaled = new BigInteger(buffer, position, length);
+        position += length;
+        return new BigDecimal(unscaled, (int) scale);
+    }
+
+    public Instant readInstant() {
+        long seconds = readSignedVarLong();
+        int nanos = readVarInt();
+        if (nanos < 0 || nanos > 999_999_999 || seconds < Instant.MIN.getEpochSecond()
+                || seconds > Instant.MAX.getEpochSecond()) {
+            throw new EventFormatException("Instant out of range");
+        }
+        return Instant.ofEpochSecond(seconds, nanos);
+    }
+
+    /**
+     * Reads a length written by {@link EventWriter#beginLength} and returns the position
+     * just past the value it covers.
+     */
+    public int readEnd() {
+        int length = readLength();
+        return position + length;
+    }
+
+    public int position() {
+        return position;
+    }
+
+    public void skipTo(int end) {
+        if (end < position || end > limit) {
+            throw new EventFormatException("Cannot skip to " + end);
+        }
+        position = end;
+    }
+
+    public boolean hasRemaining() {
+        return position < limit;
+    }
+
+    public int remaining() {
+        return limit - position;
+    }
+
+    private int readLength() {
+        int length = readVarInt();
+        if (length < 0 || length > limit - position) {
+            throw new EventFormatException("Length " + length + " runs past the end of the event");
+        }
+        return length;
+    }
+
+    private long readLong() {
+        require(8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (buffer[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    private void require(int bytes) {
+        if (limit - position < bytes) {
+            throw new EventFormatException("Event ends unexpectedly");
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package io.cloudforge.events.codec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The binary layout of one event type: an ordered list of fields, each read and
+ * written through the event's getters and setters, with no reflection.
+ *
+ * A record is the number of fields written, a bitmap of which of them are present,
+ * and the present values in field order. Schemas evolve by appending fields only,
+ * so the field count is the version. A reader with fewer fields stops after the ones
+ * it knows; a reader with more leaves the missing ones null. Fields are never
+ * removed or reordered; one that is no longer needed is simply written as null.
+ */
+public final class EventSchema<T> {
+
+    private final int id;
+    private final Class<T> type;
+    private final Supplier<T> factory;
+    private final List<Field<T, ?>> fields;
+
+    private EventSchema(int id, Class<T> type, Supplier<T> factory, List<Field<T, ?>> fields) {
+        this.id = id;
+        this.type = type;
+        this.factory = factory;
+        this.fields = List.copyOf(fields);
+    }
+
+    public static <T> Builder<T> builder(int id, Class<T> type, Supplier<T> factory) {
+        return new Builder<>(id, type, factory);
+    }
+
+    public int id() {
+        return id;
+    }
+
+    public Class<T> type() {
+        return type;
+    }
+
+    public int version() {
+        return fields.size();
+    }
+
+    void writeFields(EventWriter out, T value) {
+        int count = fields.size();
+        out.writeVarInt(count);
+        for (int from = 0; from < count; from += 8) {
+            int bits = 0;
+            for (int i = from; i < Math.min(from + 8, count); i++) {
+                if (fields.get(i).getter.apply(value) != null) {
+                    bits |= 1 << (i - from);
+                }
+            }
+            out.writeByte(bits);
+        }
+        for (Field<T, ?> field : fields) {
+            field.write(out, value);
+        }
+    }
+
+    T readFields(EventReader in) {
+        int count = in.readVarInt();
+        if (count < 0 || (count + 7L) / 8 > in.remaining()) {
+            throw new EventFormatException("Field count " + count + " runs past the end of the event");
+        }
+        byte[] present = new byte[(count + 7) / 8];
+        for (int i = 0; i < present.length; i++) {
+            present[i] = (byte) in.readByte();
+        }
+        T value = factory.get();
+        int known = Math.min(count, fields.size());
+        for (int i = 0; i < known; i++) {
+            if ((present[i / 8] & (1 << (i % 8))) != 0) {
+                fields.get(i).read(in, value);
+            }
+        }
+        // Fields added by a newer writer follow; the caller skips or ignores them
+        return value;
+    }
+
+    public static final class Builder<T> {
+
+        private final int id;
+        private final Class<T> type;
+        private final Supplier<T> factory;
+        private final List<Field<T, ?>> fields = new ArrayList<>();
+
+        private Builder(int id, Class<T> type, Supplier<T> factory) {
+            this.id = id;
+            this.type = type;
+            this.factory = factory;
+        }
+
+        public <V> Builder<T> field(FieldType<V> fieldType, Function<T, V> getter, BiConsumer<T, V> setter) {
+            fields.add(new Field<>(fieldType, getter, setter));
+            return this;
+        }
+
+        public EventSchema<T> build() {
+            return new EventSchema<>(id, type, factory, fields);
+        }
+    }
+
+    private record Field<T, V>(FieldType<V> fieldType, Function<T, V> getter, BiConsumer<T, V> setter) {
+
+        void write(EventWriter out, T event) {
+            V value = getter.apply(event);
+            if (value != null) {
+                fieldType.write(out, value);
+            }
+        }
+
+        void read(EventReader in, T event) {
+            setter.accept(event, fieldType.read(in));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package io.cloudforge.events.codec;
+
+import io.cloudforge.events.OrderCreatedEvent;
+import io.cloudforge.events.OrderItemEvent;
+import io.cloudforge.events.PaymentCompletedEvent;
+import io.cloudforge.events.PaymentFailedEvent;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The schemas of every event with a binary form. Ids are permanent: a schema's id
+ * is never reused, and its fields are only ever appended to.
+ */
+public final class EventSchemas {
+
+    public static final EventSchema<OrderItemEvent> ORDER_ITEM = EventSchema
+            .builder(0, OrderItemEvent.class, OrderItemEvent::new)
+            .field(FieldType.STRING, OrderItemEvent::getProductId, OrderItemEvent::setProductId)
+            .field(FieldType.STRING, OrderItemEvent::getProductName, OrderItemEvent::setProductName)
+            .field(FieldType.INT, OrderItemEvent::getQuantity, OrderItemEvent::setQuantity)
+            .field(FieldType.DECIMAL, OrderItemEvent::getUnitPrice, OrderItemEvent::setUnitPrice)
+            .field(FieldType.DECIMAL, OrderItemEvent::getTotalPrice, OrderItemEvent::setTotalPrice)
+            .build();
+
+    public static final EventSchema<OrderCreatedEvent> ORDER_CREATED = EventSchema
+            .builder(1, OrderCreatedEvent.class, OrderCreatedEvent::new)
+            .field(FieldType.UUID, OrderCreatedEvent::getOrderId, OrderCreatedEvent::setOrderId)
+            .field(FieldType.UUID, OrderCreatedEvent::getUserId, OrderCreatedEvent::setUserId)
+            .field(FieldType.STRING, OrderCreatedEvent::getUserEmail, OrderCreatedEvent::setUserEmail)
+            .field(FieldType.STRING, OrderCreatedEvent::getCustomerName, OrderCreatedEvent::setCustomerName)
+            .field(FieldType.DECIMAL, OrderCreatedEvent::getTotalAmount, OrderCreatedEvent::setTotalAmount)
+            .field(FieldType.STRING, OrderCreatedEvent::getShippingAddress, OrderCreatedEvent::setShippingAddress)
+            .field(FieldType.list(FieldType.record(ORDER_ITEM)), OrderCreatedEvent::getItems, OrderCreatedEvent::setItems)
+            .field(FieldType.INSTANT, OrderCreatedEvent::getCreatedAt, OrderCreatedEvent::setCreatedAt)
+            .build();
+
+    public static final EventSchema<PaymentCompletedEvent> PAYMENT_COMPLETED = EventSchema
+            .builder(2, PaymentCompletedEvent.class, PaymentCompletedEvent::new)
+            .field(FieldType.UUID, PaymentCompletedEvent::getPaymentId, PaymentCompletedEvent::setPaymentId)
+            .field(FieldType.UUID, PaymentCompletedEvent::getOrderId, PaymentCompletedEvent::setOrderId)
+            .field(FieldType.UUID, PaymentCompletedEvent::getUserId, PaymentCompletedEvent::setUserId)
+            .field(FieldType.STRING, PaymentCompletedEvent::getUserEmail, PaymentCompletedEvent::setUserEmail)
+            .field(FieldType.STRING, PaymentCompletedEvent::getCustomerName, PaymentCompletedEvent::setCustomerName)
+            .field(FieldType.DECIMAL, PaymentCompletedEvent::getAmount, PaymentCompletedEvent::setAmount)
+            .field(FieldType.STRING, PaymentCompletedEvent::getCurrency, PaymentCompletedEvent::setCurrency)
+            .field(FieldType.STRING, PaymentCompletedEvent::getStatus, PaymentCompletedEvent::setStatus)
+            .field(FieldType.STRING, PaymentCompletedEvent::getPaymentMethod, PaymentCompletedEvent::setPaymentMethod)
+            .field(FieldType.STRING, PaymentCompletedEvent::getProviderPaymentId, PaymentCompletedEvent::setProviderPaymentId)
+            .field(FieldType.INSTANT, PaymentCompletedEvent::getCompletedAt, PaymentCompletedEvent::setCompletedAt)
+            .build();
+
+    public static final EventSchema<PaymentFailedEvent> PAYMENT_FAILED = EventSchema
+            .builder(3, PaymentFailedEvent.class, PaymentFailedEvent::new)
+            .field(FieldType.UUID, PaymentFailedEvent::getPaymentId, PaymentFailedEvent::setPaymentId)
+            .field(FieldType.UUID, PaymentFailedEvent::getOrderId, PaymentFailedEvent::setOrderId)
+            .field(FieldType.UUID, PaymentFailedEvent::getUserId, PaymentFailedEvent::setUserId)
+            .field(FieldType.STRING, PaymentFailedEvent::getUserEmail, PaymentFailedEvent::setUserEmail)
+            .field(FieldType.STRING, PaymentFailedEvent::getCustomerName, PaymentFailedEvent::setCustomerName)
+            .field(FieldType.DECIMAL, PaymentFailedEvent::getAmount, PaymentFailedEvent::setAmount)
+            .field(FieldType.STRING, PaymentFailedEvent::getFailureReason, PaymentFailedEvent::setFailureReason)
+            .field(FieldType.INSTANT, PaymentFailedEvent::getFailedAt, PaymentFailedEvent::setFailedAt)
+            .build();
+
+    // Only top-level events; items travel inside their order
+    private static final List<EventSchema<?>> EVENTS = List.of(ORDER_CREATED, PAYMENT_COMPLETED, PAYMENT_FAILED);
+
+    private static final Map<Integer, EventSchema<?>> BY_ID = new HashMap<>();
+    private static final Map<Class<?>, EventSchema<?>> BY_TYPE = new HashMap<>();
+
+    static {
+        for (EventSchema<?> schema : EVENTS) {
+            if (BY_ID.put(schema.id(), schema) != null) {
+                throw new IllegalStateException("Duplicate event schema id " + schema.id());
+            }
+            BY_TYPE.put(schema.type(), schema);
+        }
+    }
+
+    private EventSchemas() {
+    }
+
+    public static EventSchema<?> byId(int id) {
+        return BY_ID.get(id);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> EventSchema<T> byType(Class<T> type) {
+        return (EventSchema<T>) BY_TYPE.get(type);
+    }
+
+    public static List<EventSchema<?>> all() {
+        return EVENTS;
+    }
+}
@@ -0,0 +1,139 @@
+package io.cloudforge.events.codec;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Growable buffer with the primitive encodings of the event format: unsigned and
+ * zig-zag variable-length integers, raw UUIDs, length-prefixed UTF-8 and decimals
+ * as scale plus unscaled value.
+ */
+public final class EventWriter {
+
+    private byte[] buffer;
+    private int size;
+
+    public EventWriter() {
+        this(128);
+    }
+
+    public EventWriter(int initialCapacity) {
+        buffer = new byte[initialCapacity];
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    public void writeByte(int value) {
+        ensure(1);
+        buffer[size++] = (byte) value;
+    }
+
+    public void writeVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    public void writeVarInt(int value) {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    public void writeSignedVarLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeUuid(UUID value) {
+        writeLong(value.getMostSignificantBits());
+        writeLong(value.getLeastSignificantBits());
+    }
+
+    public void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        writeBytes(bytes);
+    }
+
+    /**
+     * Scale and a flag in one varint, then the unscaled value as a varint when it fits
+     * in a long (any price) or as two's-complement bytes otherwise.
+     */
+    public void writeDecimal(BigDecimal value) {
+        BigInteger unscaled = value.unscaledValue();
+        boolean big = unscaled.bitLength() > 63;
+        writeSignedVarLong(((long) value.scale() << 1) | (big ? 1 : 0));
+        if (big) {
+            byte[] bytes = unscaled.toByteArray();
+            writeVarInt(bytes.length);
+            writeBytes(bytes);
+        } else {
+            writeSignedVarLong(unscaled.longValue());
+        }
+    }
+
+    public void writeInstant(Instant value) {
+        writeSignedVarLong(value.getEpochSecond());
+        writeVarInt(value.getNano());
+    }
+
+    /**
+     * Reserves room for the length of what is written next, to be filled in by
+     * {@link #endLength}. Lets readers skip nested values they do not know.
+     */
+    public int beginLength() {
+        writeByte(0);
+        return size;
+    }
+
+    public void endLength(int start) {
+        int length = size - start;
+        if (length < 0x80) {
+            buffer[start - 1] = (byte) length;
+            return;
+        }
+        // Rare: the length needs more than the one byte reserved, so move the value up
+        int extra = varIntSize(length) - 1;
+        ensure(extra);
+        System.arraycopy(buffer, start, buffer, start + extra, length);
+        int end = size + extra;
+        size = start - 1;
+        writeVarInt(length);
+        size = end;
+    }
+
+    private void writeLong(long value) {
+        ensure(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[size++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+
+    private static int varIntSize(int value) {
+        int bytes = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            bytes++;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,82 @@
+package io.cloudforge.events.codec;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * How one field's value is written. Nulls never reach a field type; the schema
+ * records which fields are present.
+ */
+public interface FieldType<V> {
+
+    FieldType<UUID> UUID = of(EventWriter::writeUuid, EventReader::readUuid);
+    FieldType<String> STRING = of(EventWriter::writeString, EventReader::readString);
+    FieldType<BigDecimal> DECIMAL = of(EventWriter::writeDecimal, EventReader::readDecimal);
+    FieldType<Instant> INSTANT = of(EventWriter::writeInstant, EventReader::readInstant);
+    FieldType<Integer> INT = of((out, value) -> out.writeSignedVarLong(value),
+            in -> Math.toIntExact(in.readSignedVarLong()));
+
+    void write(EventWriter out, V value);
+
+    V read(EventReader in);
+
+    /**
+     * A nested record, length-prefixed so a reader with an older schema can skip the
+     * fields it does not know.
+     */
+    static <V> FieldType<V> record(EventSchema<V> schema) {
+        return of((out, value) -> {
+            int start = out.beginLength();
+            schema.writeFields(out, value);
+            out.endLength(start);
+        }, in -> {
+            int end = in.readEnd();
+            V value = schema.readFields(in);
+            in.skipTo(end);
+            return value;
+        });
+    }
+
+    static <E> FieldType<List<E>> list(FieldType<E> element) {
+        return of((out, values) -> {
+            out.writeVarInt(values.size());
+            for (E value : values) {
+                element.write(out, value);
+            }
+        }, in -> {
+            int count = in.readVarInt();
+            List<E> values = new ArrayList<>(Math.min(count, 256));
+            for (int i = 0; i < count; i++) {
+                values.add(element.read(in));
+            }
+            return values;
+        });
+    }
+
+    static <V> FieldType<V> of(Writer<V> writer, Reader<V> reader) {
+        return new FieldType<>() {
+            @Override
+            public void write(EventWriter out, V value) {
+                writer.write(out, value);
+            }
+
+            @Override
+            public V read(EventReader in) {
+                return reader.read(in);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    interface Writer<V> {
+        void write(EventWriter out, V value);
+    }
+
+    @FunctionalInterface
+    interface Reader<V> {
+        V read(EventReader in);
+    }
+}
@@ -0,0 +1,126 @@
+package io.cloudforge.events.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends events through a {@link KafkaTemplate}, with a bound on how many may be
+ * waiting for the broker and metrics on every result.
+ *
+ * At most {@code capacity} events are sent but not yet acknowledged. When the broker
+ * falls behind and that many are outstanding, {@link #send} blocks the caller until
+ * one completes, for up to {@code blockTimeoutMs}; after that the send fails at once
+ * instead of queueing more. The records themselves wait in the producer's own
+ * accumulator, so nothing is copied or reordered here.
+ *
+ * Meters, tagged by topic:
+ * <ul>
+ * <li>{@code kafka.producer.send}: time from send to acknowledgement, by outcome</li>
+ * <li>{@code kafka.producer.send.errors}: failed sends, by exception</li>
+ * <li>{@code kafka.producer.buffer.wait}: time callers spent blocked on a full buffer</li>
+ * <li>{@code kafka.producer.buffer.rejected}: sends failed because the buffer stayed full</li>
+ * <li>{@code kafka.producer.buffer.pending} (untagged): events awaiting acknowledgement</li>
+ * </ul>
+ */
+@Slf4j
+public class EventSender {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore permits;
+    private final long blockTimeoutMs;
+    private final Map<String, TopicMeters> meters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> errors = new ConcurrentHashMap<>();
+
+    public EventSender(KafkaTemplate<String, Object> kafkaTemplate, MeterRegistry meterRegistry,
+            int capacity, long blockTimeoutMs) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+        this.permits = new Semaphore(capacity);
+        this.blockTimeoutMs = blockTimeoutMs;
+        Gauge.builder("kafka.producer.buffer.pending", permits, p -> capacity - p.availablePermits())
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<SendResult<String, Object>> send(String topic, String key, Object event) {
+        TopicMeters topicMeters = meters.computeIfAbsent(topic, this::topicMeters);
+        if (!acquire(topic, topicMeters)) {
+            topicMeters.rejected.increment();
+            return CompletableFuture.failedFuture(new KafkaException("Producer buffer full for " + topic
+                    + ": " + permits.availablePermits() + " free after waiting " + blockTimeoutMs + " ms"));
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<SendResult<String, Object>> result;
+        try {
+            result = kafkaTemplate.send(topic, key, event);
+        } catch (RuntimeException | Error e) {
+            // Serialization errors and timeouts waiting for metadata surface here; the
+            // permit must come back whatever is thrown or the buffer shrinks for good
+            permits.release();
+            recordFailure(topic, topicMeters, key, System.nanoTime() - start, e);
+            throw e;
+        }
+        return result.whenComplete((sent, failure) -> {
+            permits.release();
+            long elapsed = System.nanoTime() - start;
+            if (failure == null) {
+                topicMeters.succeeded.record(elapsed, TimeUnit.NANOSECONDS);
+            } else {
+                recordFailure(topic, topicMeters, key, elapsed, failure);
+            }
+        });
+    }
+
+    private boolean acquire(String topic, TopicMeters topicMeters) {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        long start = System.nanoTime();
+        try {
+            return permits.tryAcquire(blockTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            topicMeters.waited.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.debug("Producer buffer full, waited to send to {}", topic);
+        }
+    }
+
+    private void recordFailure(String topic, TopicMeters topicMeters, String key, long elapsed, Throwable failure) {
+        Throwable cause = failure instanceof KafkaException && failure.getCause() != null ? failure.getCause() : failure;
+        topicMeters.failed.record(elapsed, TimeUnit.NANOSECONDS);
+        errors.computeIfAbsent(topic + '|' + cause.getClass().getSimpleName(), ignored -> Counter
+                .builder("kafka.producer.send.errors")
+                .tag("topic", topic)
+                .tag("exception", cause.getClass().getSimpleName())
+                .register(meterRegistry)).increment();
+        log.error("Failed to send event with key {} to {}: {}", key, topic, cause.getMessage());
+    }
+
+    private TopicMeters topicMeters(String topic) {
+        return new TopicMeters(
+                Timer.builder("kafka.producer.send").tag("topic", topic).tag("outcome", "success")
+                        .publishPercentiles(0.5, 0.99).register(meterRegistry),
+                Timer.builder("kafka.producer.send").tag("topic", topic).tag("outcome", "failure")
+                        .publishPercentiles(0.5, 0.99).register(meterRegistry),
+                Timer.builder("kafka.producer.buffer.wait").tag("topic", topic).register(meterRegistry),
+                Counter.builder("kafka.producer.buffer.rejected").tag("topic", topic).register(meterRegistry));
+    }
+
+    private record TopicMeters(Timer succeeded, Timer failed, Timer waited, Counter rejected) {
+    }
+}
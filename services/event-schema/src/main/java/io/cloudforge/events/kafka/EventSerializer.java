@@ -0,0 +1,51 @@
+package io.cloudforge.events.kafka;
+
+import io.cloudforge.events.codec.EventCodec;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+
+/**
+ * Kafka value serializer writing the shared events in their binary form and anything
+ * else as JSON, configured like Spring's {@link JsonSerializer}.
+ *
+ * Setting the producer property {@value #FORMAT_CONFIG} to {@code json} writes every
+ * value as JSON, for as long as some consumer cannot yet read the binary form.
+ */
+public class EventSerializer implements Serializer<Object> {
+
+    public static final String FORMAT_CONFIG = "cloudforge.events.format";
+
+    private final JsonSerializer<Object> json = new JsonSerializer<>();
+    private boolean binary = true;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object format = configs.get(FORMAT_CONFIG);
+        binary = format == null || !"json".equalsIgnoreCase(format.toString().trim());
+        json.configure(configs, isKey);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return serialize(topic, null, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (binary && EventCodec.canEncode(data.getClass())) {
+            return EventCodec.encode(data);
+        }
+        return headers != null ? json.serialize(topic, headers, data) : json.serialize(topic, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
@@ -0,0 +1,233 @@
+package io.cloudforge.events.kafka;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Processes consumed records on a pool of worker lanes instead of the listener
+ * thread, keeping records with the same key in order.
+ *
+ * Each key always maps to the same lane, and each lane is a single thread working
+ * through a bounded queue, so events for one order are handled one after another in
+ * the order they were consumed while different orders run in parallel. Parallelism
+ * is the number of lanes, independent of how many partitions a topic has. When a
+ * lane's queue is full the listener thread waits, which stops the consumer from
+ * polling further ahead.
+ *
+ * Listeners hand over the record's {@link Acknowledgment}, which is acknowledged once
+ * the handler finishes. Containers from {@link #configure} commit with asynchronous
+ * acks, so an offset is committed only once every record before it in the partition
+ * has completed. A handler that throws is retried on its lane, keeping later records
+ * of the key behind it; after the last attempt the record is logged and skipped.
+ *
+ * One dispatcher serves every container of a factory, so in-flight records are
+ * counted per partition: a consumer giving up its partitions waits only for their
+ * records, not for those of partitions another consumer still owns.
+ */
+@Slf4j
+public class KeyOrderedDispatcher implements AutoCloseable {
+
+    private final List<ThreadPoolExecutor> lanes = new ArrayList<>();
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final Map<TopicPartition, AtomicInteger> pending = new ConcurrentHashMap<>();
+    private final Timer succeeded;
+    private final Timer failed;
+
+    /**
+     * @param lanes worker threads; 0 runs every handler on the listener thread
+     * @param laneCapacity records queued per lane before the listener waits
+     */
+    public KeyOrderedDispatcher(String name, int lanes, int laneCapacity, int maxAttempts, long retryBackoffMs,
+            MeterRegistry meterRegistry) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMs = retryBackoffMs;
+        for (int i = 0; i < lanes; i++) {
+            ThreadPoolExecutor lane = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(laneCapacity),
+                    new CustomizableThreadFactory(name + "-lane-" + i + "-"),
+                    KeyOrderedDispatcher::waitForRoom);
+            lane.prestartCoreThread();
+            this.lanes.add(lane);
+        }
+
+        this.succeeded = Timer.builder("kafka.consumer.ordered.handle")
+                .tag("dispatcher", name).tag("outcome", "success")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.failed = Timer.builder("kafka.consumer.ordered.handle")
+                .tag("dispatcher", name).tag("outcome", "failure")
+                .register(meterRegistry);
+        Gauge.builder("kafka.consumer.ordered.pending", pending,
+                        p -> p.values().stream().mapToInt(AtomicInteger::get).sum())
+                .tag("dispatcher", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sets up a listener container factory for listeners using a dispatcher: manual,
+     * out-of-order acknowledgements committed without gaps, and in-flight records
+     * finished (for up to {@code revokeTimeoutMs}) before partitions are given up, so
+     * the next owner does not handle them again.
+     */
+    public void configure(ConcurrentKafkaListenerContainerFactory<?, ?> factory, long revokeTimeoutMs) {
+        ContainerProperties properties = factory.getContainerProperties();
+        properties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        properties.setAsyncAcks(true);
+        properties.setConsumerRebalanceListener(new ConsumerAwareRebalanceListener() {
+            @Override
+            public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                if (!awaitIdle(partitions, revokeTimeoutMs)) {
+                    log.warn("{} records still in flight after {} ms while giving up {}; they may be redelivered",
+                            pending(partitions), revokeTimeoutMs, partitions);
+                }
+                // Drop idle counters; a partition assigned here again starts a new one
+                partitions.forEach(partition -> pending.computeIfPresent(partition,
+                        (ignored, count) -> count.get() == 0 ? null : count));
+            }
+        });
+    }
+
+    /**
+     * Runs the handler on the key's lane and acknowledges the record when it is done.
+     * Blocks while that lane is full.
+     *
+     * @param partition the partition the record was consumed from
+     */
+    public void dispatch(TopicPartition partition, Object key, Acknowledgment acknowledgment, Runnable handler) {
+        AtomicInteger inFlight = pending.compute(partition, (ignored, count) -> {
+            AtomicInteger counter = count != null ? count : new AtomicInteger();
+            counter.incrementAndGet();
+            return counter;
+        });
+        Runnable task = () -> {
+            try {
+                if (handle(key, handler)) {
+                    acknowledgment.acknowledge();
+                }
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        };
+        if (lanes.isEmpty()) {
+            task.run();
+            return;
+        }
+        try {
+            lanes.get(Math.floorMod(key != null ? key.hashCode() : 0, lanes.size())).execute(task);
+        } catch (RejectedExecutionException e) {
+            // Shutting down; left unacknowledged, the record is consumed again after restart
+            inFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits until every record dispatched from the given partitions has been handled.
+     *
+     * @return false if some were still in flight after the timeout
+     */
+    public boolean awaitIdle(Collection<TopicPartition> partitions, long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (pending(partitions) > 0) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int pending(Collection<TopicPartition> partitions) {
+        int count = 0;
+        for (TopicPartition partition : partitions) {
+            AtomicInteger inFlight = pending.get(partition);
+            count += inFlight != null ? inFlight.get() : 0;
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        lanes.forEach(ThreadPoolExecutor::shutdown);
+        for (ThreadPoolExecutor lane : lanes) {
+            if (!lane.awaitTermination(30, TimeUnit.SECONDS)) {
+                lane.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * @return true once the record is finished with, handled or given up on; false if
+     * interrupted by shutdown, leaving it to be consumed again
+     */
+    private boolean handle(Object key, Runnable handler) {
+        for (int attempt = 1; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                handler.run();
+                succeeded.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return true;
+            } catch (RuntimeException e) {
+                failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (attempt >= maxAttempts) {
+                    log.error("Giving up on record for key {} after {} attempts", key, attempt, e);
+                    return true;
+                }
+                log.warn("Handling record for key {} failed (attempt {} of {}): {}",
+                        key, attempt, maxAttempts, e.getMessage());
+                if (!sleep(retryBackoffMs)) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // The listener thread waits for room in the lane instead of the record being dropped
+    private static void waitForRoom(Runnable task, ThreadPoolExecutor lane) {
+        if (lane.isShutdown()) {
+            throw new RejectedExecutionException("Dispatcher is shut down");
+        }
+        try {
+            lane.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a free lane", e);
+        }
+    }
+}
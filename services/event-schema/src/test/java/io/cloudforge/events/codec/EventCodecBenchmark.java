@@ -0,0 +1,96 @@
+package io.cloudforge.events.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.cloudforge.events.OrderCreatedEvent;
+import io.cloudforge.events.PaymentCompletedEvent;
+import org.springframework.kafka.support.JacksonUtils;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Compares the binary codec with the JSON path it replaces (the object mapper Spring
+ * Kafka's JsonSerializer and JsonDeserializer use): payload size, and serialize and
+ * deserialize throughput on one thread. Not a unit test; run it with
+ *
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=io.cloudforge.events.codec.EventCodecBenchmark
+ * </pre>
+ */
+public final class EventCodecBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+    private static final int OPERATIONS_PER_ROUND = 200_000;
+
+    private static final ObjectMapper JSON = JacksonUtils.enhancedObjectMapper();
+
+    private static long sink;
+
+    private EventCodecBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        OrderCreatedEvent orderCreated = EventCodecTest.orderCreated();
+        PaymentCompletedEvent paymentCompleted = PaymentCompletedEvent.builder()
+                .paymentId(UUID.randomUUID())
+                .orderId(orderCreated.getOrderId())
+                .userId(orderCreated.getUserId())
+                .userEmail(orderCreated.getUserEmail())
+                .customerName(orderCreated.getCustomerName())
+                .amount(orderCreated.getTotalAmount())
+                .currency("INR")
+                .status("COMPLETED")
+                .paymentMethod("CARD")
+                .providerPaymentId("pay_29QQoUBi66xm2f")
+                .completedAt(Instant.now())
+                .build();
+
+        System.out.printf("%-30s %6s %14s %16s%n", "", "bytes", "serialize/s", "deserialize/s");
+        run("OrderCreatedEvent", orderCreated, OrderCreatedEvent.class);
+        run("PaymentCompletedEvent", paymentCompleted, PaymentCompletedEvent.class);
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static <T> void run(String name, T event, Class<T> type) throws Exception {
+        byte[] json = JSON.writeValueAsBytes(event);
+        byte[] binary = EventCodec.encode(event);
+
+        report(name + " json", json.length,
+                measure(() -> sink += JSON.writeValueAsBytes(event).length),
+                measure(() -> sink += JSON.readValue(json, type).hashCode()));
+        report(name + " binary", binary.length,
+                measure(() -> sink += EventCodec.encode(event).length),
+                measure(() -> sink += EventCodec.decode(binary, type).hashCode()));
+    }
+
+    // Operations per second: the median of the measured rounds
+    private static double measure(Operation operation) throws Exception {
+        double[] rates = new double[ROUNDS];
+        for (int round = -WARMUP_ROUNDS; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < OPERATIONS_PER_ROUND; i++) {
+                operation.run();
+            }
+            long elapsed = System.nanoTime() - start;
+            if (round >= 0) {
+                rates[round] = OPERATIONS_PER_ROUND * 1e9 / elapsed;
+            }
+        }
+        Arrays.sort(rates);
+        return rates[ROUNDS / 2];
+    }
+
+    private static void report(String name, int bytes, double serialize, double deserialize) {
+        System.out.printf("%-30s %6d %14.0f %16.0f%n", name, bytes, serialize, deserialize);
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void run() throws Exception;
+    }
+}
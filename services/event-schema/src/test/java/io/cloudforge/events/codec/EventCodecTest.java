@@ -0,0 +1,177 @@
+package io.cloudforge.events.codec;
+
+import io.cloudforge.events.OrderCreatedEvent;
+import io.cloudforge.events.OrderItemEvent;
+import io.cloudforge.events.PaymentCompletedEvent;
+import io.cloudforge.events.PaymentFailedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventCodecTest {
+
+    @Test
+    void orderCreatedRoundTrips() {
+        OrderCreatedEvent event = orderCreated();
+
+        byte[] encoded = EventCodec.encode(event);
+
+        assertTrue(EventCodec.isEncoded(encoded));
+        assertEquals(event, EventCodec.decode(encoded, OrderCreatedEvent.class));
+    }
+
+    @Test
+    void paymentEventsRoundTrip() {
+        PaymentCompletedEvent completed = PaymentCompletedEvent.builder()
+                .paymentId(UUID.randomUUID())
+                .orderId(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .userEmail("jane@example.com")
+                .amount(new BigDecimal("1499.00"))
+                .currency("INR")
+                .status("COMPLETED")
+                .providerPaymentId("pay_29QQoUBi66xm2f")
+                .completedAt(Instant.parse("2024-03-01T10:15:30.123456789Z"))
+                .build();
+        PaymentFailedEvent failed = PaymentFailedEvent.builder()
+                .paymentId(UUID.randomUUID())
+                .orderId(UUID.randomUUID())
+                .amount(new BigDecimal("-0.5"))
+                .failureReason("Card declined: ₹ limit")
+                .failedAt(Instant.EPOCH.minusSeconds(1))
+                .build();
+
+        assertEquals(completed, EventCodec.decode(EventCodec.encode(completed)));
+        assertEquals(failed, EventCodec.decode(EventCodec.encode(failed)));
+    }
+
+    @Test
+    void nullsAndEdgeValuesRoundTrip() {
+        OrderCreatedEvent event = OrderCreatedEvent.builder()
+                .orderId(UUID.randomUUID())
+                .totalAmount(new BigDecimal("123456789012345678901234567890.0001"))
+                .shippingAddress("x".repeat(300))
+                .items(List.of(OrderItemEvent.builder().quantity(Integer.MIN_VALUE).build(),
+                        OrderItemEvent.builder().productName("").unitPrice(new BigDecimal("1E+3")).build()))
+                .build();
+
+        OrderCreatedEvent decoded = EventCodec.decode(EventCodec.encode(event), OrderCreatedEvent.class);
+
+        assertEquals(event, decoded);
+        assertNull(decoded.getUserId());
+        assertEquals(-3, decoded.getItems().get(1).getUnitPrice().scale());
+    }
+
+    @Test
+    void readerIgnoresFieldsAppendedByNewerWriter() {
+        EventSchema<OrderItemEvent> older = EventSchema
+                .builder(0, OrderItemEvent.class, OrderItemEvent::new)
+                .field(FieldType.STRING, OrderItemEvent::getProductId, OrderItemEvent::setProductId)
+                .field(FieldType.STRING, OrderItemEvent::getProductName, OrderItemEvent::setProductName)
+                .build();
+        OrderItemEvent item = OrderItemEvent.builder()
+                .productId("p-1")
+                .productName("Keyboard")
+                .quantity(2)
+                .unitPrice(new BigDecimal("49.99"))
+                .totalPrice(new BigDecimal("99.98"))
+                .build();
+
+        EventWriter out = new EventWriter();
+        FieldType.list(FieldType.record(EventSchemas.ORDER_ITEM)).write(out, List.of(item, item));
+        out.writeString("after");
+        EventReader in = new EventReader(out.toByteArray());
+        List<OrderItemEvent> read = FieldType.list(FieldType.record(older)).read(in);
+
+        assertEquals(2, read.size());
+        assertEquals("Keyboard", read.get(1).getProductName());
+        assertNull(read.get(1).getQuantity());
+        assertEquals("after", in.readString());
+        assertFalse(in.hasRemaining());
+    }
+
+    @Test
+    void readerLeavesFieldsUnknownToOlderWriterNull() {
+        EventSchema<OrderItemEvent> older = EventSchema
+                .builder(0, OrderItemEvent.class, OrderItemEvent::new)
+                .field(FieldType.STRING, OrderItemEvent::getProductId, OrderItemEvent::setProductId)
+                .build();
+        EventWriter out = new EventWriter();
+        FieldType.record(older).write(out, OrderItemEvent.builder().productId("p-1").quantity(5).build());
+
+        OrderItemEvent read = FieldType.record(EventSchemas.ORDER_ITEM).read(new EventReader(out.toByteArray()));
+
+        assertEquals("p-1", read.getProductId());
+        assertNull(read.getQuantity());
+    }
+
+    @Test
+    void binaryIsSmallerThanJsonAndNeverLooksLikeIt() {
+        byte[] encoded = EventCodec.encode(orderCreated());
+
+        assertTrue(encoded.length < 300, "encoded size " + encoded.length);
+        assertFalse(EventCodec.isEncoded("{\"orderId\":1}".getBytes()));
+        assertFalse(EventCodec.isEncoded(new byte[0]));
+    }
+
+    @Test
+    void malformedInputFailsWithFormatException() {
+        byte[] encoded = EventCodec.encode(orderCreated());
+
+        for (int length = 1; length < encoded.length; length++) {
+            byte[] truncated = Arrays.copyOf(encoded, length);
+            assertThrows(EventFormatException.class, () -> EventCodec.decode(truncated));
+        }
+        assertThrows(EventFormatException.class, () -> EventCodec.decode(new byte[]{(byte) EventCodec.MAGIC, 99}));
+        assertThrows(EventFormatException.class,
+                () -> EventCodec.decode(EventCodec.encode(orderCreated()), PaymentFailedEvent.class));
+    }
+
+    @Test
+    void encodingIsStable() {
+        OrderItemEvent item = OrderItemEvent.builder().productId("a").quantity(-1).build();
+        EventWriter out = new EventWriter();
+        FieldType.record(EventSchemas.ORDER_ITEM).write(out, item);
+
+        // length, field count, presence bits (fields 0 and 2), "a", zig-zag -1
+        assertArrayEquals(new byte[]{5, 5, 0b101, 1, 'a', 1}, out.toByteArray());
+    }
+
+    static OrderCreatedEvent orderCreated() {
+        return OrderCreatedEvent.builder()
+                .orderId(UUID.fromString("5c7e3f8a-1d2b-4c6e-9f0a-3b4c5d6e7f80"))
+                .userId(UUID.fromString("0f1e2d3c-4b5a-6978-8796-a5b4c3d2e1f0"))
+                .userEmail("jane.doe@example.com")
+                .customerName("Jane Doe")
+                .totalAmount(new BigDecimal("2598.00"))
+                .shippingAddress("221B Baker Street, London NW1 6XE")
+                .items(List.of(
+                        OrderItemEvent.builder()
+                                .productId("65f1c2a9e4b0a1b2c3d4e5f6")
+                                .productName("Mechanical Keyboard")
+                                .quantity(1)
+                                .unitPrice(new BigDecimal("1999.00"))
+                                .totalPrice(new BigDecimal("1999.00"))
+                                .build(),
+                        OrderItemEvent.builder()
+                                .productId("65f1c2a9e4b0a1b2c3d4e5f7")
+                                .productName("USB-C Cable")
+                                .quantity(3)
+                                .unitPrice(new BigDecimal("199.67"))
+                                .totalPrice(new BigDecimal("599.00"))
+                                .build()))
+                .createdAt(Instant.parse("2024-03-01T10:15:30.123Z"))
+                .build();
+    }
+}
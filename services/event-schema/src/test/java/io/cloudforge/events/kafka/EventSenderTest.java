@@ -0,0 +1,125 @@
+package io.cloudforge.events.kafka;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventSenderTest {
+
+    private static final String TOPIC = "cloudforge.test";
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void acknowledgementFreesThePermit() {
+        CompletableFuture<SendResult<String, Object>> ack = new CompletableFuture<>();
+        when(kafkaTemplate.send(TOPIC, "k1", "e1")).thenReturn(ack);
+        EventSender sender = new EventSender(kafkaTemplate, meterRegistry, 1, 50);
+
+        sender.send(TOPIC, "k1", "e1");
+        assertEquals(1, pending());
+
+        ack.complete(null);
+        assertEquals(0, pending());
+        assertEquals(1, meterRegistry.get("kafka.producer.send").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void failedSendFreesThePermitAndCountsTheError() {
+        CompletableFuture<SendResult<String, Object>> ack = new CompletableFuture<>();
+        when(kafkaTemplate.send(TOPIC, "k1", "e1")).thenReturn(ack);
+        EventSender sender = new EventSender(kafkaTemplate, meterRegistry, 1, 50);
+
+        CompletableFuture<SendResult<String, Object>> result = sender.send(TOPIC, "k1", "e1");
+        ack.completeExceptionally(new KafkaException("Send failed", new IllegalStateException("broker down")));
+
+        assertTrue(result.isCompletedExceptionally());
+        assertEquals(0, pending());
+        assertEquals(1, meterRegistry.get("kafka.producer.send.errors")
+                .tag("exception", "IllegalStateException").counter().count());
+    }
+
+    @Test
+    void synchronousFailureFreesThePermitAndIsRethrown() {
+        IllegalArgumentException serialization = new IllegalArgumentException("cannot serialize");
+        when(kafkaTemplate.send(TOPIC, "k1", "e1")).thenThrow(serialization);
+        EventSender sender = new EventSender(kafkaTemplate, meterRegistry, 1, 50);
+
+        assertSame(serialization, assertThrows(IllegalArgumentException.class,
+                () -> sender.send(TOPIC, "k1", "e1")));
+        assertEquals(0, pending());
+    }
+
+    @Test
+    void errorThrownBySendFreesThePermit() {
+        when(kafkaTemplate.send(TOPIC, "k1", "e1")).thenThrow(new StackOverflowError());
+        EventSender sender = new EventSender(kafkaTemplate, meterRegistry, 1, 50);
+
+        assertThrows(StackOverflowError.class, () -> sender.send(TOPIC, "k1", "e1"));
+        assertEquals(0, pending());
+    }
+
+    @Test
+    void fullBufferRejectsAfterTheBlockTimeout() {
+        when(kafkaTemplate.send(TOPIC, "k1", "e1")).thenReturn(new CompletableFuture<>());
+        EventSender sender = new EventSender(kafkaTemplate, meterRegistry, 1, 50);
+        sender.send(TOPIC, "k1", "e1");
+
+        CompletableFuture<SendResult<String, Object>> rejected = sender.send(TOPIC, "k2", "e2");
+
+        ExecutionException failure = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(KafkaException.class, failure.getCause());
+        assertEquals(1, meterRegistry.get("kafka.producer.buffer.rejected").counter().count());
+        assertEquals(1, meterRegistry.get("kafka.producer.buffer.wait").timer().count());
+        assertTrue(meterRegistry.get("kafka.producer.buffer.wait").timer().totalTime(TimeUnit.MILLISECONDS) >= 40);
+        verify(kafkaTemplate, times(0)).send(TOPIC, "k2", "e2");
+        assertEquals(1, pending());
+    }
+
+    @Test
+    void blockedSendProceedsOnceAPermitFrees() throws Exception {
+        CompletableFuture<SendResult<String, Object>> first = new CompletableFuture<>();
+        CompletableFuture<SendResult<String, Object>> second = new CompletableFuture<>();
+        when(kafkaTemplate.send(TOPIC, "k1", "e1")).thenReturn(first);
+        when(kafkaTemplate.send(TOPIC, "k2", "e2")).thenReturn(second);
+        EventSender sender = new EventSender(kafkaTemplate, meterRegistry, 1, 5_000);
+        sender.send(TOPIC, "k1", "e1");
+
+        CompletableFuture<CompletableFuture<SendResult<String, Object>>> blocked =
+                CompletableFuture.supplyAsync(() -> sender.send(TOPIC, "k2", "e2"));
+        Thread.sleep(100);
+        assertFalse(blocked.isDone());
+
+        first.complete(null);
+
+        CompletableFuture<SendResult<String, Object>> sent = blocked.get(5, TimeUnit.SECONDS);
+        verify(kafkaTemplate).send(TOPIC, "k2", "e2");
+        assertFalse(sent.isDone());
+        assertEquals(1, pending());
+        second.complete(null);
+        assertEquals(0, pending());
+    }
+
+    private double pending() {
+        return meterRegistry.get("kafka.producer.buffer.pending").gauge().value();
+    }
+}
@@ -0,0 +1,160 @@
+package io.cloudforge.events.kafka;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class KeyOrderedDispatcherTest {
+
+    private static final TopicPartition PARTITION_0 = new TopicPartition("orders", 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition("orders", 1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private KeyOrderedDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.close();
+    }
+
+    @Test
+    void recordsWithTheSameKeyRunInOrder() {
+        dispatcher = new KeyOrderedDispatcher("test", 4, 100, 1, 0, meterRegistry);
+        List<Integer> handled = Collections.synchronizedList(new ArrayList<>());
+
+        for (int i = 0; i < 50; i++) {
+            int sequence = i;
+            dispatcher.dispatch(PARTITION_0, "order-1", mock(Acknowledgment.class), () -> {
+                // Uneven handling times would reorder records if they left the key's lane
+                sleepQuietly(sequence % 3);
+                handled.add(sequence);
+            });
+        }
+
+        assertTrue(dispatcher.awaitIdle(Set.of(PARTITION_0), 5_000));
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, handled);
+    }
+
+    @Test
+    void acknowledgesOnlyOnceTheHandlerCompletes() {
+        dispatcher = new KeyOrderedDispatcher("test", 2, 10, 1, 0, meterRegistry);
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        CountDownLatch release = new CountDownLatch(1);
+
+        dispatcher.dispatch(PARTITION_0, "order-1", acknowledgment, () -> awaitQuietly(release));
+
+        verify(acknowledgment, after(100).never()).acknowledge();
+        release.countDown();
+        verify(acknowledgment, timeout(5_000)).acknowledge();
+    }
+
+    @Test
+    void retriesThenGivesUpAfterMaxAttempts() {
+        dispatcher = new KeyOrderedDispatcher("test", 1, 10, 3, 1, meterRegistry);
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        AtomicInteger attempts = new AtomicInteger();
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+
+        dispatcher.dispatch(PARTITION_0, "order-1", acknowledgment, () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("mail server down");
+        });
+        dispatcher.dispatch(PARTITION_0, "order-1", mock(Acknowledgment.class), () -> handled.add("next"));
+
+        assertTrue(dispatcher.awaitIdle(Set.of(PARTITION_0), 5_000));
+        assertEquals(3, attempts.get());
+        // Skipped records are acknowledged so the partition can move past them
+        verify(acknowledgment).acknowledge();
+        assertEquals(List.of("next"), handled);
+        assertEquals(3, meterRegistry.get("kafka.consumer.ordered.handle").tag("outcome", "failure").timer().count());
+    }
+
+    @Test
+    void retrySucceedingBeforeMaxAttemptsIsAcknowledged() {
+        dispatcher = new KeyOrderedDispatcher("test", 1, 10, 3, 1, meterRegistry);
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        AtomicInteger attempts = new AtomicInteger();
+
+        dispatcher.dispatch(PARTITION_0, "order-1", acknowledgment, () -> {
+            if (attempts.incrementAndGet() < 2) {
+                throw new IllegalStateException("transient");
+            }
+        });
+
+        assertTrue(dispatcher.awaitIdle(Set.of(PARTITION_0), 5_000));
+        assertEquals(2, attempts.get());
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void pendingIsTrackedPerPartition() {
+        dispatcher = new KeyOrderedDispatcher("test", 2, 10, 1, 0, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        Acknowledgment blocked = mock(Acknowledgment.class);
+
+        dispatcher.dispatch(PARTITION_1, "order-1", blocked, () -> awaitQuietly(release));
+        dispatcher.dispatch(PARTITION_0, "order-2", mock(Acknowledgment.class), () -> {
+        });
+
+        // Giving up partition 0 does not wait for a record of partition 1
+        assertTrue(dispatcher.awaitIdle(Set.of(PARTITION_0), 5_000));
+        assertFalse(dispatcher.awaitIdle(Set.of(PARTITION_1), 50));
+        assertEquals(1, meterRegistry.get("kafka.consumer.ordered.pending").gauge().value());
+
+        release.countDown();
+        assertTrue(dispatcher.awaitIdle(Set.of(PARTITION_0, PARTITION_1), 5_000));
+        verify(blocked).acknowledge();
+        assertEquals(0, meterRegistry.get("kafka.consumer.ordered.pending").gauge().value());
+    }
+
+    @Test
+    void withoutLanesHandlesOnTheCallingThread() {
+        dispatcher = new KeyOrderedDispatcher("test", 0, 10, 1, 0, meterRegistry);
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        Thread caller = Thread.currentThread();
+        List<Thread> threads = new ArrayList<>();
+
+        dispatcher.dispatch(PARTITION_0, "order-1", acknowledgment, () -> threads.add(Thread.currentThread()));
+
+        assertEquals(List.of(caller), threads);
+        verify(acknowledgment).acknowledge();
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package io.cloudforge.events.kafka;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProducerProfileTest {
+
+    @Test
+    void parsesProfileNames() {
+        assertEquals(ProducerProfile.LOW_LATENCY, ProducerProfile.of("low-latency"));
+        assertEquals(ProducerProfile.HIGH_THROUGHPUT, ProducerProfile.of(" High-Throughput "));
+        assertThrows(IllegalArgumentException.class, () -> ProducerProfile.of("fastest"));
+    }
+
+    @Test
+    void everyProfileIsIdempotentWithAllAcks() {
+        for (ProducerProfile profile : ProducerProfile.values()) {
+            assertEquals("all", profile.configs().get(ProducerConfig.ACKS_CONFIG));
+            assertEquals(true, profile.configs().get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG));
+        }
+    }
+
+    @Test
+    void fillsInSettingsTheFactoryLacks() {
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(
+                Map.of(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092"));
+
+        ProducerProfile.HIGH_THROUGHPUT.applyTo(factory);
+
+        Map<String, Object> configs = factory.getConfigurationProperties();
+        assertEquals(20, configs.get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals("lz4", configs.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        assertEquals("all", configs.get(ProducerConfig.ACKS_CONFIG));
+        assertEquals("localhost:9092", configs.get(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG));
+    }
+
+    @Test
+    void explicitSpringKafkaProducerSettingsWin() {
+        KafkaProperties properties = new KafkaProperties();
+        properties.getProducer().setCompressionType("zstd");
+        properties.getProducer().setAcks("1");
+        DefaultKafkaProducerFactory<String, Object> factory =
+                new DefaultKafkaProducerFactory<>(properties.buildProducerProperties(null));
+
+        ProducerProfile.HIGH_THROUGHPUT.applyTo(factory);
+
+        Map<String, Object> configs = factory.getConfigurationProperties();
+        assertEquals("zstd", configs.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        assertEquals("1", configs.get(ProducerConfig.ACKS_CONFIG));
+        // Settings left unset still come from the profile
+        assertEquals(20, configs.get(ProducerConfig.LINGER_MS_CONFIG));
+    }
+}
@@ -0,0 +1,40 @@
+package io.cloudforge.notificationservice.config;
+
+import io.cloudforge.events.kafka.KeyOrderedDispatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+
+@Configuration
+public class KafkaConfig {
+
+    @Bean
+    public KeyOrderedDispatcher keyOrderedDispatcher(MeterRegistry meterRegistry,
+            @Value("${kafka.consumer.ordered-parallel.lanes:16}") int lanes,
+            @Value("${kafka.consumer.ordered-parallel.lane-capacity:50}") int laneCapacity,
+            @Value("${kafka.consumer.ordered-parallel.max-attempts:3}") int maxAttempts,
+            @Value("${kafka.consumer.ordered-parallel.retry-backoff-ms:1000}") long retryBackoffMs) {
+        return new KeyOrderedDispatcher("notification-events", lanes, laneCapacity, maxAttempts, retryBackoffMs,
+                meterRegistry);
+    }
+
+    /**
+     * Listener factory for key-ordered parallel consumption: listeners hand records to
+     * the {@link KeyOrderedDispatcher} and offsets are committed as they complete.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> keyOrderedListenerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            KeyOrderedDispatcher keyOrderedDispatcher,
+            @Value("${kafka.consumer.ordered-parallel.revoke-timeout-ms:30000}") long revokeTimeoutMs) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        keyOrderedDispatcher.configure(factory, revokeTimeoutMs);
+        return factory;
+    }
+}
@@ -3,7 +3,9 @@ package io.cloudforge.notificationservice.controller;
 import io.cloudforge.notificationservice.dto.NotificationRequest;
 import io.cloudforge.notificationservice.dto.NotificationResponse;
 import io.cloudforge.notificationservice.model.NotificationType;
+import io.cloudforge.notificationservice.security.AccessTokenVerifier;
 import io.cloudforge.notificationservice.service.NotificationService;
+import io.cloudforge.notificationservice.service.NotificationStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -11,9 +13,13 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Instant;
 import java.util.UUID;
 
 @RestController
@@ -24,6 +30,8 @@ import java.util.UUID;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationStreamService notificationStreamService;
+    private final AccessTokenVerifier accessTokenVerifier;
 
     @Operation(summary = "Send a notification")
     @PostMapping
@@ -51,6 +59,16 @@ public class NotificationController {
         return ResponseEntity.ok(notifications);
     }
 
+    @Operation(summary = "Stream in-app notifications for a user (Server-Sent Events)")
+    @GetMapping(value = "/user/{userId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamUserNotifications(
+            @PathVariable UUID userId,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        Instant tokenExpiry = accessTokenVerifier.requireUser(authorization, userId);
+        log.info("Opening notification stream for user: {}", userId);
+        return notificationStreamService.subscribe(userId, tokenExpiry);
+    }
+
     @Operation(summary = "Get notifications by type for a user")
     @GetMapping("/user/{userId}/type/{type}")
     public ResponseEntity<Page<NotificationResponse>> getNotificationsByType(
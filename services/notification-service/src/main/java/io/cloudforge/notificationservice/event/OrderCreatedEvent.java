@@ -1,38 +0,0 @@
-package io.cloudforge.notificationservice.event;
-
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-import java.math.BigDecimal;
-import java.time.Instant;
-import java.util.List;
-import java.util.UUID;
-
-@Data
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
-public class OrderCreatedEvent {
-
-    private UUID orderId;
-    private UUID userId;
-    private String userEmail;
-    private String customerName;
-    private BigDecimal totalAmount;
-    private String shippingAddress;
-    private List<OrderItemEvent> items;
-    private Instant createdAt;
-
-    @Data
-    @Builder
-    @NoArgsConstructor
-    @AllArgsConstructor
-    public static class OrderItemEvent {
-        private String productId;
-        private String productName;
-        private int quantity;
-        private BigDecimal unitPrice;
-    }
-}
@@ -0,0 +1,8 @@
+package io.cloudforge.notificationservice.exception;
+
+public class NotificationAccessDeniedException extends RuntimeException {
+
+    public NotificationAccessDeniedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,22 @@
+package io.cloudforge.notificationservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "notification_dedup_keys")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationDedupKey {
+
+    @Id
+    @Column(name = "dedup_key", nullable = false)
+    private String dedupKey;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -5,5 +5,6 @@ public enum NotificationStatus {
     SENDING,
     SENT,
     FAILED,
-    RETRYING
+    RETRYING,
+    THROTTLED
 }
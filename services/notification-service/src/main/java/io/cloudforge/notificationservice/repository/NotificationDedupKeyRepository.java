@@ -0,0 +1,26 @@
+package io.cloudforge.notificationservice.repository;
+
+import io.cloudforge.notificationservice.model.NotificationDedupKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface NotificationDedupKeyRepository extends JpaRepository<NotificationDedupKey, String> {
+
+    /**
+     * Atomically records a key. Returns 1 if the key was new, 0 if it was already claimed.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO notification_dedup_keys (dedup_key, created_at) VALUES (:dedupKey, CURRENT_TIMESTAMP) "
+            + "ON CONFLICT (dedup_key) DO NOTHING", nativeQuery = true)
+    int claim(@Param("dedupKey") String dedupKey);
+
+    @Modifying
+    @Query("DELETE FROM NotificationDedupKey k WHERE k.createdAt < :cutoff")
+    int deleteByCreatedAtBefore(@Param("cutoff") Instant cutoff);
+}
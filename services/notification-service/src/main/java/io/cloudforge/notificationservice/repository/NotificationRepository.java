@@ -1,6 +1,7 @@
 package io.cloudforge.notificationservice.repository;
 
 import io.cloudforge.notificationservice.model.Notification;
+import io.cloudforge.notificationservice.model.NotificationChannel;
 import io.cloudforge.notificationservice.model.NotificationStatus;
 import io.cloudforge.notificationservice.model.NotificationType;
 import org.springframework.data.domain.Page;
@@ -10,22 +11,32 @@ import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * The notifications table is partitioned by month on {@code created_at}. Queries over
+ * many rows take a lower bound on {@code created_at} so Postgres only reads the
+ * partitions from that month on, not every retained month.
+ */
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, UUID> {
 
-    Page<Notification> findByUserId(UUID userId, Pageable pageable);
+    Page<Notification> findByUserIdAndCreatedAtGreaterThanEqual(UUID userId, Instant since, Pageable pageable);
 
-    Page<Notification> findByUserIdAndType(UUID userId, NotificationType type, Pageable pageable);
+    Page<Notification> findByUserIdAndTypeAndCreatedAtGreaterThanEqual(UUID userId, NotificationType type,
+            Instant since, Pageable pageable);
 
-    List<Notification> findByStatus(NotificationStatus status);
-
-    List<Notification> findByStatusAndRetryCountLessThan(NotificationStatus status, int maxRetries);
+    List<Notification> findByStatusAndRetryCountLessThanAndCreatedAtGreaterThanEqual(NotificationStatus status,
+            int maxRetries, Instant since);
 
     List<Notification> findByReferenceIdAndReferenceType(String referenceId, String referenceType);
 
-    long countByUserIdAndCreatedAtAfter(UUID userId, Instant since);
+    Optional<Notification> findFirstByReferenceIdAndReferenceTypeAndTypeAndChannelOrderByCreatedAtDesc(
+            String referenceId, String referenceType, NotificationType type, NotificationChannel channel);
 
-    long countByStatus(NotificationStatus status);
+    List<Notification> findByStatusAndChannelAndCreatedAtGreaterThanEqualOrderByCreatedAtAsc(
+            NotificationStatus status, NotificationChannel channel, Instant since);
+
+    long countByUserIdAndCreatedAtAfter(UUID userId, Instant since);
 }
@@ -0,0 +1,107 @@
+package io.cloudforge.notificationservice.security;
+
+import io.cloudforge.notificationservice.exception.NotificationAccessDeniedException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Verifies access tokens issued by user-service and resolves the user they belong to.
+ * Used to make sure callers can only reach their own per-user resources.
+ *
+ * Tokens are also checked against the revocation list user-service keeps in Redis:
+ * the key written for a single token on logout, and the cutoff written when every
+ * session of a user is ended. That is up to two lookups per call, which is fine for
+ * the few calls that need a token here.
+ */
+@Component
+@Slf4j
+public class AccessTokenVerifier {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String TOKEN_TYPE_CLAIM = "token_type";
+    private static final String ACCESS_TOKEN = "access";
+    private static final String USER_ID_CLAIM = "uid";
+
+    // Written by user-service's TokenRevocationService
+    private static final String REVOKED_TOKEN_KEY = "auth:revoked:jti:";
+    private static final String REVOKED_USER_KEY = "auth:revoked:user:";
+
+    private final SecretKey signingKey;
+    private final StringRedisTemplate redisTemplate;
+
+    public AccessTokenVerifier(@Value("${jwt.secret}") String jwtSecret, StringRedisTemplate redisTemplate) {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Checks that the Authorization header carries a valid, unrevoked access token for
+     * the given user.
+     *
+     * @return when the token expires
+     */
+    public Instant requireUser(String authorizationHeader, UUID userId) {
+        Claims claims = parseAccessToken(authorizationHeader);
+        if (!userId.equals(UUID.fromString(claims.get(USER_ID_CLAIM, String.class)))) {
+            throw new NotificationAccessDeniedException("Not allowed to access notifications of user: " + userId);
+        }
+        if (isRevoked(claims)) {
+            throw new NotificationAccessDeniedException("Access token has been revoked");
+        }
+        return claims.getExpiration().toInstant();
+    }
+
+    private Claims parseAccessToken(String authorizationHeader) {
+        if (authorizationHeader == null || !authorizationHeader.startsWith(BEARER_PREFIX)) {
+            throw new NotificationAccessDeniedException("A bearer access token is required");
+        }
+        try {
+            Claims claims = Jwts.parser()
+                    .verifyWith(signingKey)
+                    .build()
+                    .parseSignedClaims(authorizationHeader.substring(BEARER_PREFIX.length()))
+                    .getPayload();
+            String type = claims.get(TOKEN_TYPE_CLAIM, String.class);
+            String userId = claims.get(USER_ID_CLAIM, String.class);
+            if (!ACCESS_TOKEN.equals(type) || userId == null || claims.getExpiration() == null) {
+                throw new NotificationAccessDeniedException("Token is not a user access token");
+            }
+            UUID.fromString(userId);
+            return claims;
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new NotificationAccessDeniedException("Invalid or expired access token");
+        }
+    }
+
+    /**
+     * Fails closed: a token whose revocation cannot be checked is rejected.
+     */
+    private boolean isRevoked(Claims claims) {
+        try {
+            if (claims.getId() != null
+                    && Boolean.TRUE.equals(redisTemplate.hasKey(REVOKED_TOKEN_KEY + claims.getId()))) {
+                return true;
+            }
+            String cutoff = redisTemplate.opsForValue().get(REVOKED_USER_KEY + claims.getSubject());
+            // iat has second precision, so a token from the cutoff second is treated as revoked
+            return cutoff != null && claims.getIssuedAt() != null
+                    && claims.getIssuedAt().toInstant().getEpochSecond() <= Long.parseLong(cutoff);
+        } catch (DataAccessException e) {
+            log.warn("Could not check revocation of token for {}, rejecting it: {}",
+                    claims.getSubject(), e.getMessage());
+            return true;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package io.cloudforge.notificationservice.service;
+
+import io.cloudforge.notificationservice.dto.NotificationRequest;
+import io.cloudforge.notificationservice.repository.NotificationDedupKeyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Suppresses duplicate notifications for the same business event.
+ *
+ * Kafka redeliveries and API retries can ask for the same ORDER_CONFIRMATION or
+ * PAYMENT_SUCCESS more than once. Every notification with a reference is keyed on
+ * (referenceId, referenceType, type, channel) and the unique key in
+ * notification_dedup_keys decides with a single insert.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationDeduplicationService {
+
+    private final NotificationDedupKeyRepository dedupKeyRepository;
+
+    @Value("${notification.dedup.retention-days:14}")
+    private int retentionDays;
+
+    /**
+     * Builds the dedup key for a request, or null when the request has no reference to dedup on.
+     */
+    public String keyFor(NotificationRequest request) {
+        if (request.getReferenceId() == null || request.getReferenceId().isBlank()) {
+            return null;
+        }
+        return request.getReferenceType() + ":" + request.getReferenceId() + ":"
+                + request.getType() + ":" + request.getChannel();
+    }
+
+    /**
+     * Claims a key inside the caller's transaction.
+     *
+     * @return true if this is the first notification for the key, false for a duplicate
+     */
+    @Transactional
+    public boolean claim(String dedupKey) {
+        return dedupKeyRepository.claim(dedupKey) == 1;
+    }
+
+    /**
+     * Drops keys older than the retention window. Redeliveries never arrive that late.
+     */
+    @Scheduled(cron = "${notification.dedup.cleanup-cron:0 30 3 * * *}")
+    @Transactional
+    public void purgeExpiredKeys() {
+        int deleted = dedupKeyRepository.deleteByCreatedAtBefore(
+                Instant.now().minus(Duration.ofDays(retentionDays)));
+        if (deleted > 0) {
+            log.info("Purged {} notification dedup keys older than {} days", deleted, retentionDays);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package io.cloudforge.notificationservice.service;
+
+import io.cloudforge.notificationservice.exception.NotificationException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Maintains the monthly partitions of the notifications table.
+ *
+ * Creates partitions ahead of time, detaches months that fall out of the retention
+ * window and streams each detached month to a gzipped CSV file with COPY before
+ * dropping it. All steps are idempotent and run independently of each other, so a
+ * step that fails is simply retried by the next run without holding up the others.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationPartitionService {
+
+    private static final String PARENT_TABLE = "notifications";
+    private static final String DEFAULT_PARTITION = "notifications_default";
+    private static final Pattern PARTITION_NAME = Pattern.compile("^notifications_p(\\d{4})_(\\d{2})$");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    // Arbitrary constant shared by every instance so only one of them does maintenance at a time
+    private static final long MAINTENANCE_LOCK_KEY = 0x6e6f7469667061L;
+
+    private final DataSource dataSource;
+
+    @Value("${notification.partitioning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notification.partitioning.months-ahead:2}")
+    private int monthsAhead;
+
+    @Value("${notification.partitioning.retention-months:6}")
+    private int retentionMonths;
+
+    @Value("${notification.archive.directory:./notification-archive}")
+    private String archiveDirectory;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        runMaintenance();
+    }
+
+    /**
+     * Daily partition maintenance.
+     */
+    @Scheduled(cron = "${notification.partitioning.maintenance-cron:0 15 2 * * *}")
+    public void runMaintenance() {
+        if (!enabled) {
+            return;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            if (!tryLock(connection)) {
+                log.debug("Notification partition maintenance already running on another instance");
+                return;
+            }
+            try {
+                runStep("create upcoming partitions", connection, this::createUpcomingPartitions);
+                runStep("detach expired partitions", connection, this::detachExpiredPartitions);
+                runStep("archive detached partitions", connection, this::archiveDetachedPartitions);
+            } finally {
+                unlock(connection);
+            }
+        } catch (SQLException e) {
+            log.error("Notification partition maintenance failed", e);
+        }
+    }
+
+    private void runStep(String name, Connection connection, MaintenanceStep step) {
+        try {
+            step.run(connection);
+        } catch (SQLException | IOException | RuntimeException e) {
+            log.error("Notification partition maintenance step '{}' failed", name, e);
+        }
+    }
+
+    private void createUpcomingPartitions(Connection connection) {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            try {
+                createPartition(connection, month);
+            } catch (SQLException e) {
+                log.error("Could not create notification partition {}", partitionName(month), e);
+            }
+        }
+    }
+
+    /**
+     * Creates the partition for a month. Postgres refuses to add a partition while the
+     * DEFAULT partition holds rows in its range, so those rows are moved over in the same
+     * transaction: the DEFAULT partition is detached, the new partition created, the rows
+     * re-inserted through the parent and the DEFAULT partition attached again.
+     */
+    private void createPartition(Connection connection, YearMonth month) throws SQLException {
+        String partition = partitionName(month);
+        if (tableExists(connection, partition)) {
+            return;
+        }
+
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        String create = String.format("CREATE TABLE %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+                partition, PARENT_TABLE, from, to);
+        String range = String.format("created_at >= '%s' AND created_at < '%s'", from, to);
+
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            boolean defaultHasRows;
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE " + range + ")")) {
+                defaultHasRows = rs.next() && rs.getBoolean(1);
+            }
+
+            if (defaultHasRows) {
+                statement.execute("ALTER TABLE " + PARENT_TABLE + " DETACH PARTITION " + DEFAULT_PARTITION);
+                statement.execute(create);
+                int moved = statement.executeUpdate("INSERT INTO " + PARENT_TABLE
+                        + " SELECT * FROM " + DEFAULT_PARTITION + " WHERE " + range);
+                statement.execute("DELETE FROM " + DEFAULT_PARTITION + " WHERE " + range);
+                statement.execute("ALTER TABLE " + PARENT_TABLE + " ATTACH PARTITION " + DEFAULT_PARTITION
+                        + " DEFAULT");
+                log.info("Created notification partition {} and moved {} rows out of {}",
+                        partition, moved, DEFAULT_PARTITION);
+            } else {
+                statement.execute(create);
+                log.info("Created notification partition {}", partition);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private void detachExpiredPartitions(Connection connection) throws SQLException {
+        YearMonth oldestRetained = YearMonth.now().minusMonths(retentionMonths);
+        List<String> attached = queryNames(connection,
+                "SELECT c.relname FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "JOIN pg_class p ON p.oid = i.inhparent "
+                        + "WHERE p.relname = ?", PARENT_TABLE);
+
+        try (Statement statement = connection.createStatement()) {
+            for (String partition : attached) {
+                YearMonth month = monthOf(partition);
+                if (month != null && month.isBefore(oldestRetained)) {
+                    log.info("Detaching notification partition {}", partition);
+                    statement.execute("ALTER TABLE " + PARENT_TABLE + " DETACH PARTITION " + partition);
+                }
+            }
+        }
+    }
+
+    private void archiveDetachedPartitions(Connection connection) throws SQLException, IOException {
+        List<String> detached = queryNames(connection,
+                "SELECT relname FROM pg_class WHERE relkind = 'r' AND NOT relispartition AND relname LIKE ?",
+                PARENT_TABLE + "_p%");
+
+        for (String table : detached) {
+            if (monthOf(table) == null) {
+                continue;
+            }
+            try {
+                Path archive = archive(connection, table);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("DROP TABLE " + table);
+                }
+                log.info("Archived notification partition {} to {}", table, archive);
+            } catch (SQLException | IOException e) {
+                log.error("Could not archive notification partition {}", table, e);
+            }
+        }
+    }
+
+    /**
+     * Streams a table to disk with COPY. Rows never materialize on the heap; the file
+     * only gets its final name once the copy has completed.
+     */
+    private Path archive(Connection connection, String table) throws SQLException, IOException {
+        Path directory = Paths.get(archiveDirectory);
+        Files.createDirectories(directory);
+
+        Path target = directory.resolve(table + ".csv.gz");
+        Path partial = directory.resolve(table + ".csv.gz.partial");
+
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(partial), 64 * 1024)) {
+            long rows = connection.unwrap(PGConnection.class).getCopyAPI()
+                    .copyOut("COPY " + table + " TO STDOUT WITH (FORMAT csv, HEADER)", out);
+            log.debug("Copied {} rows from {}", rows, table);
+        }
+
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return target;
+    }
+
+    private boolean tableExists(Connection connection, String table) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT to_regclass(?) IS NOT NULL")) {
+            statement.setString(1, table);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, MAINTENANCE_LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            statement.setLong(1, MAINTENANCE_LOCK_KEY);
+            statement.execute();
+        }
+    }
+
+    private List<String> queryNames(Connection connection, String sql, String parameter) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, parameter);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    names.add(rs.getString(1));
+                }
+            }
+        }
+        return names;
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARENT_TABLE + "_p" + month.format(SUFFIX);
+    }
+
+    private static YearMonth monthOf(String partition) {
+        Matcher matcher = PARTITION_NAME.matcher(partition);
+        if (!matcher.matches()) {
+            return null;
+        }
+        try {
+            return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+        } catch (RuntimeException e) {
+            throw new NotificationException("Unexpected partition name: " + partition, e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface MaintenanceStep {
+        void run(Connection connection) throws SQLException, IOException;
+    }
+}
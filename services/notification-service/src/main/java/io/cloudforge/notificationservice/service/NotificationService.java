@@ -2,6 +2,7 @@ package io.cloudforge.notificationservice.service;
 
 import io.cloudforge.notificationservice.dto.NotificationRequest;
 import io.cloudforge.notificationservice.dto.NotificationResponse;
+import io.cloudforge.notificationservice.exception.NotificationException;
 import io.cloudforge.notificationservice.model.Notification;
 import io.cloudforge.notificationservice.model.NotificationChannel;
 import io.cloudforge.notificationservice.model.NotificationStatus;
@@ -17,11 +18,14 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -32,10 +36,21 @@ public class NotificationService {
     private final NotificationRepository notificationRepository;
     private final EmailService emailService;
     private final TemplateService templateService;
+    private final NotificationStreamService notificationStreamService;
+    private final NotificationDeduplicationService deduplicationService;
+    private final NotificationThrottleService throttleService;
 
     @Value("${notification.retry-attempts:3}")
     private int maxRetryAttempts;
 
+    // How far back a user's notification history goes; older months are not read
+    @Value("${notification.history.window-days:90}")
+    private int historyWindowDays;
+
+    // Retries and digests only look at recent rows, so they stay on the newest partitions
+    @Value("${notification.jobs.lookback-hours:48}")
+    private int jobLookbackHours;
+
     /**
      * Send a notification (email, SMS, push) based on the request.
      */
@@ -43,6 +58,13 @@ public class NotificationService {
         log.info("Processing notification request for user: {} type: {}",
                 request.getUserId(), request.getType());
 
+        // Skip redelivered events and retried requests for the same business event
+        String dedupKey = deduplicationService.keyFor(request);
+        if (dedupKey != null && !deduplicationService.claim(dedupKey)) {
+            log.info("Duplicate notification suppressed: {}", dedupKey);
+            return findExistingNotification(request);
+        }
+
         // Determine subject from template if not provided
         String subject = request.getSubject();
         if (subject == null || subject.isBlank()) {
@@ -75,9 +97,16 @@ public class NotificationService {
 
         // Send based on channel
         if (request.getChannel() == NotificationChannel.EMAIL) {
-            sendEmailNotification(notification);
+            if (throttleService.tryAcquire(notification.getRecipient(), notification.getType())) {
+                sendEmailNotification(notification);
+            } else {
+                // Recipient is over its rate limit, merge into the next digest
+                notification.setStatus(NotificationStatus.THROTTLED);
+            }
+        } else if (request.getChannel() == NotificationChannel.IN_APP) {
+            sendInAppNotification(notification);
         } else {
-            // For SMS, PUSH, IN_APP - mark as pending for future implementation
+            // For SMS, PUSH - mark as pending for future implementation
             log.info("Channel {} not yet implemented, marking as pending", request.getChannel());
         }
 
@@ -110,6 +139,15 @@ public class NotificationService {
         notificationRepository.save(notification);
     }
 
+    /**
+     * Deliver in-app notification to the user's open streams.
+     */
+    private void sendInAppNotification(Notification notification) {
+        notification.setStatus(NotificationStatus.SENT);
+        notification.setSentAt(Instant.now());
+        notificationStreamService.publish(NotificationResponse.fromNotification(notification));
+    }
+
     /**
      * Handle send failure with retry logic.
      */
@@ -133,7 +171,8 @@ public class NotificationService {
     @Scheduled(fixedDelayString = "60000") // Run every minute
     public void retryFailedNotifications() {
         List<Notification> toRetry = notificationRepository
-                .findByStatusAndRetryCountLessThan(NotificationStatus.RETRYING, maxRetryAttempts);
+                .findByStatusAndRetryCountLessThanAndCreatedAtGreaterThanEqual(NotificationStatus.RETRYING,
+                        maxRetryAttempts, jobsSince());
 
         if (!toRetry.isEmpty()) {
             log.info("Retrying {} failed notifications", toRetry.size());
@@ -141,6 +180,97 @@ public class NotificationService {
         }
     }
 
+    /**
+     * Scheduled job to merge throttled emails into one digest per recipient.
+     */
+    @Scheduled(fixedDelayString = "${notification.throttle.digest-interval-ms:60000}")
+    public void flushDigests() {
+        throttleService.evictExpiredWindows();
+
+        List<Notification> held = notificationRepository
+                .findByStatusAndChannelAndCreatedAtGreaterThanEqualOrderByCreatedAtAsc(NotificationStatus.THROTTLED,
+                        NotificationChannel.EMAIL, jobsSince());
+
+        if (!held.isEmpty()) {
+            Map<String, List<Notification>> byRecipient = held.stream()
+                    .collect(Collectors.groupingBy(n -> n.getRecipient().toLowerCase(),
+                            LinkedHashMap::new, Collectors.toList()));
+            log.info("Sending digests for {} throttled notifications to {} recipients",
+                    held.size(), byRecipient.size());
+            byRecipient.values().forEach(this::sendDigest);
+        }
+    }
+
+    /**
+     * Send a recipient's held notifications as a single email.
+     */
+    private void sendDigest(List<Notification> notifications) {
+        if (notifications.size() == 1) {
+            sendEmailNotification(notifications.get(0));
+            return;
+        }
+
+        List<Map<String, Object>> updates = notifications.stream()
+                .map(n -> Map.<String, Object>of(
+                        "subject", n.getSubject() != null ? n.getSubject() : n.getType().name(),
+                        "createdAt", String.valueOf(n.getCreatedAt())))
+                .toList();
+
+        String content = templateService.renderTemplate("digest", Map.of(
+                "updateCount", notifications.size(),
+                "updates", updates,
+                "accountUrl", "https://cloudforgetech.in/account"));
+        String recipient = notifications.get(0).getRecipient();
+
+        try {
+            emailService.sendEmail(recipient, "You have " + notifications.size() + " updates from CloudForge",
+                    content);
+
+            Instant sentAt = Instant.now();
+            notifications.forEach(n -> {
+                n.setStatus(NotificationStatus.SENT);
+                n.setSentAt(sentAt);
+            });
+            log.info("Digest of {} notifications sent to: {}", notifications.size(), recipient);
+
+        } catch (Exception e) {
+            log.error("Failed to send digest to: {}", recipient, e);
+            notifications.forEach(n -> {
+                n.setRetryCount(n.getRetryCount() + 1);
+                n.setErrorMessage(e.getMessage());
+                if (n.getRetryCount() >= maxRetryAttempts) {
+                    n.setStatus(NotificationStatus.FAILED);
+                }
+            });
+        }
+
+        notificationRepository.saveAll(notifications);
+    }
+
+    /**
+     * Resolve the notification that a suppressed duplicate refers to. The dedup key and
+     * the notification row are written in one transaction, and keys are purged long
+     * before rows are archived, so a claimed key always has its row.
+     */
+    private Instant historySince() {
+        return Instant.now().minus(Duration.ofDays(historyWindowDays));
+    }
+
+    private Instant jobsSince() {
+        return Instant.now().minus(Duration.ofHours(jobLookbackHours));
+    }
+
+    private NotificationResponse findExistingNotification(NotificationRequest request) {
+        return notificationRepository
+                .findFirstByReferenceIdAndReferenceTypeAndTypeAndChannelOrderByCreatedAtDesc(
+                        request.getReferenceId(), request.getReferenceType(),
+                        request.getType(), request.getChannel())
+                .map(NotificationResponse::fromNotification)
+                .orElseThrow(() -> new NotificationException("Duplicate notification for "
+                        + request.getReferenceType() + " " + request.getReferenceId()
+                        + " has no stored original"));
+    }
+
     /**
      * Get notification by ID.
      */
@@ -151,20 +281,22 @@ public class NotificationService {
     }
 
     /**
-     * Get notifications for a user.
+     * Get a user's notifications from the last {@code notification.history.window-days}.
      */
     @Transactional(readOnly = true)
     public Page<NotificationResponse> getNotificationsForUser(UUID userId, Pageable pageable) {
-        return notificationRepository.findByUserId(userId, pageable)
+        return notificationRepository.findByUserIdAndCreatedAtGreaterThanEqual(userId, historySince(), pageable)
                 .map(NotificationResponse::fromNotification);
     }
 
     /**
-     * Get notifications by type for a user.
+     * Get a user's notifications of one type from the last
+     * {@code notification.history.window-days}.
      */
     @Transactional(readOnly = true)
     public Page<NotificationResponse> getNotificationsByType(UUID userId, NotificationType type, Pageable pageable) {
-        return notificationRepository.findByUserIdAndType(userId, type, pageable)
+        return notificationRepository.findByUserIdAndTypeAndCreatedAtGreaterThanEqual(userId, type, historySince(),
+                        pageable)
                 .map(NotificationResponse::fromNotification);
     }
 
@@ -0,0 +1,211 @@
+package io.cloudforge.notificationservice.service;
+
+import io.cloudforge.notificationservice.dto.NotificationResponse;
+import io.cloudforge.notificationservice.exception.NotificationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes IN_APP notifications to connected clients over Server-Sent Events.
+ *
+ * Each user can hold a small number of open streams. Every stream owns a bounded
+ * buffer that is drained on a dedicated executor, so a slow client only ever
+ * loses its own oldest events and never blocks the sender or other users.
+ */
+@Service
+@Slf4j
+public class NotificationStreamService {
+
+    private static final String NOTIFICATION_EVENT = "notification";
+
+    private final Map<UUID, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final Executor streamExecutor;
+    private final AtomicLong eventSequence = new AtomicLong();
+
+    @Value("${notification.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${notification.stream.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${notification.stream.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    public NotificationStreamService(@Qualifier("notificationStreamExecutor") Executor streamExecutor) {
+        this.streamExecutor = streamExecutor;
+    }
+
+    /**
+     * Opens a new stream for the given user. The stream ends no later than
+     * {@code notAfter}, the expiry of the token it was opened with, so a revoked or
+     * expired token cannot keep it open; clients reconnect with a fresh token.
+     */
+    public SseEmitter subscribe(UUID userId, Instant notAfter) {
+        long untilExpiry = Duration.between(Instant.now(), notAfter).toMillis();
+        // A timeout of 0 would mean no timeout at all
+        SseEmitter emitter = new SseEmitter(Math.max(1, Math.min(timeoutMs, untilExpiry)));
+        Subscription subscription = new Subscription(userId, emitter, bufferSize);
+
+        // Check and add under the map's per-key lock so concurrent subscribes cannot exceed the
+        // cap and a concurrent remove cannot drop the set this subscription was added to
+        Set<Subscription> userSubscriptions = subscriptions.compute(userId, (id, current) -> {
+            Set<Subscription> set = current != null ? current : ConcurrentHashMap.newKeySet();
+            if (set.size() >= maxConnectionsPerUser) {
+                throw new NotificationException("Too many open notification streams for user: " + userId);
+            }
+            set.add(subscription);
+            return set;
+        });
+
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onTimeout(() -> remove(subscription));
+        emitter.onError(e -> remove(subscription));
+
+        subscription.enqueue(SseEmitter.event().comment("connected"));
+        dispatch(subscription);
+
+        log.debug("Opened notification stream for user: {} ({} open)", userId, userSubscriptions.size());
+        return emitter;
+    }
+
+    /**
+     * Publishes a notification to every open stream of its user. When called inside
+     * a transaction the push is deferred until commit so clients never see rows that
+     * were rolled back.
+     */
+    public void publish(NotificationResponse notification) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    fanOut(notification);
+                }
+            });
+        } else {
+            fanOut(notification);
+        }
+    }
+
+    /**
+     * Keeps idle connections alive through proxies and detects dead clients.
+     */
+    @Scheduled(fixedDelayString = "${notification.stream.heartbeat-interval-ms:15000}")
+    public void sendHeartbeats() {
+        subscriptions.values().forEach(userSubscriptions -> userSubscriptions.forEach(subscription -> {
+            subscription.enqueue(SseEmitter.event().comment("heartbeat"));
+            dispatch(subscription);
+        }));
+    }
+
+    /**
+     * Number of currently open streams across all users.
+     */
+    public int getOpenConnectionCount() {
+        return subscriptions.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void fanOut(NotificationResponse notification) {
+        Set<Subscription> userSubscriptions = subscriptions.get(notification.getUserId());
+        if (userSubscriptions == null || userSubscriptions.isEmpty()) {
+            log.debug("No open streams for user: {}, notification {} will be read on next fetch",
+                    notification.getUserId(), notification.getId());
+            return;
+        }
+
+        String eventId = String.valueOf(eventSequence.incrementAndGet());
+        userSubscriptions.forEach(subscription -> {
+            subscription.enqueue(SseEmitter.event()
+                    .id(eventId)
+                    .name(NOTIFICATION_EVENT)
+                    .data(notification, MediaType.APPLICATION_JSON));
+            dispatch(subscription);
+        });
+    }
+
+    private void dispatch(Subscription subscription) {
+        if (!subscription.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            streamExecutor.execute(() -> drain(subscription));
+        } catch (RuntimeException e) {
+            // Executor saturated: leave the events buffered for the next dispatch
+            subscription.draining.set(false);
+            log.warn("Notification stream executor rejected dispatch for user: {}", subscription.userId);
+        }
+    }
+
+    private void drain(Subscription subscription) {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscription.buffer.poll()) != null) {
+                subscription.emitter.send(event);
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Notification stream for user {} closed: {}", subscription.userId, e.getMessage());
+            subscription.emitter.completeWithError(e);
+            remove(subscription);
+            return;
+        } finally {
+            subscription.draining.set(false);
+        }
+
+        // An event may have been enqueued after the last poll but before the flag was cleared
+        if (!subscription.buffer.isEmpty()) {
+            dispatch(subscription);
+        }
+    }
+
+    private void remove(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.userId, (id, userSubscriptions) -> {
+            userSubscriptions.remove(subscription);
+            return userSubscriptions.isEmpty() ? null : userSubscriptions;
+        });
+        subscription.buffer.clear();
+    }
+
+    private static final class Subscription {
+
+        private final UUID userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+
+        private Subscription(UUID userId, SseEmitter emitter, int bufferSize) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        /**
+         * Adds an event, dropping the oldest buffered ones if the client is not keeping up.
+         */
+        private void enqueue(SseEmitter.SseEventBuilder event) {
+            while (!buffer.offer(event)) {
+                if (buffer.poll() != null) {
+                    log.debug("Notification stream buffer full for user: {}, dropping oldest event", userId);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.cloudforge.notificationservice.service;
+
+import io.cloudforge.notificationservice.model.NotificationType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-recipient email rate limiter.
+ *
+ * Each recipient gets a fixed window of {@code max-per-window} immediate emails.
+ * Anything beyond that is held as THROTTLED and merged into one digest email by
+ * {@link NotificationService#flushDigests()}, so a storm of payment-failed retries
+ * turns into a single message instead of dozens.
+ */
+@Service
+@Slf4j
+public class NotificationThrottleService {
+
+    // Time-sensitive notifications always go out immediately
+    private static final Set<NotificationType> EXEMPT_TYPES = Set.of(NotificationType.PASSWORD_RESET);
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    @Value("${notification.throttle.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notification.throttle.max-per-window:3}")
+    private int maxPerWindow;
+
+    @Value("${notification.throttle.window-ms:600000}")
+    private long windowMs;
+
+    /**
+     * Records an email for the recipient.
+     *
+     * @return true if it may be sent now, false if it should be held for the next digest
+     */
+    public boolean tryAcquire(String recipient, NotificationType type) {
+        if (!enabled || recipient == null || EXEMPT_TYPES.contains(type)) {
+            return true;
+        }
+
+        long now = System.currentTimeMillis();
+        Window window = windows.compute(recipient.toLowerCase(), (key, current) -> {
+            if (current == null || now - current.startedAt >= windowMs) {
+                return new Window(now, 1);
+            }
+            return new Window(current.startedAt, current.count + 1);
+        });
+
+        boolean allowed = window.count <= maxPerWindow;
+        if (!allowed) {
+            log.debug("Recipient {} exceeded {} emails per {} ms, holding {} for digest",
+                    recipient, maxPerWindow, windowMs, type);
+        }
+        return allowed;
+    }
+
+    /**
+     * Forgets windows that have already expired to keep the map bounded by active recipients.
+     */
+    public void evictExpiredWindows() {
+        long now = System.currentTimeMillis();
+        windows.entrySet().removeIf(entry -> now - entry.getValue().startedAt >= windowMs);
+    }
+
+    private record Window(long startedAt, int count) {
+    }
+}
@@ -0,0 +1,9 @@
+-- V2__create_notification_dedup_keys_table.sql
+-- One row per (reference_id, reference_type, type, channel) that has already produced a notification.
+-- The primary key decides deduplication: a notification is sent only if inserting its key succeeds.
+CREATE TABLE notification_dedup_keys (
+    dedup_key VARCHAR(255) PRIMARY KEY,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_notification_dedup_keys_created_at ON notification_dedup_keys(created_at);
@@ -0,0 +1,65 @@
+-- V3__partition_notifications_by_month.sql
+-- Rebuild notifications as a table range-partitioned by month on created_at.
+-- Old months are detached and archived by NotificationPartitionService, so every index
+-- only ever covers the retained months and write-path index maintenance stays flat.
+
+ALTER TABLE notifications RENAME TO notifications_legacy;
+ALTER TABLE notifications_legacy RENAME CONSTRAINT notifications_pkey TO notifications_legacy_pkey;
+
+CREATE TABLE notifications (
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    user_id UUID NOT NULL,
+    type VARCHAR(30) NOT NULL,
+    channel VARCHAR(20) NOT NULL,
+    subject VARCHAR(255),
+    content TEXT,
+    recipient VARCHAR(255) NOT NULL,
+    status VARCHAR(20) DEFAULT 'PENDING',
+    reference_id VARCHAR(100),
+    reference_type VARCHAR(50),
+    retry_count INT DEFAULT 0,
+    error_message TEXT,
+    sent_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    -- The partition key has to be part of every unique constraint
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Catches rows outside the pre-created months so inserts never fail
+CREATE TABLE notifications_default PARTITION OF notifications DEFAULT;
+
+-- One partition per month from the oldest existing row up to two months ahead
+DO $$
+DECLARE
+    month_start DATE := date_trunc('month',
+            COALESCE((SELECT MIN(created_at) FROM notifications_legacy), CURRENT_TIMESTAMP))::date;
+    last_month DATE := (date_trunc('month', CURRENT_TIMESTAMP) + INTERVAL '2 months')::date;
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF notifications FOR VALUES FROM (%L) TO (%L)',
+                'notifications_p' || to_char(month_start, 'YYYY_MM'),
+                month_start,
+                (month_start + INTERVAL '1 month')::date);
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO notifications (id, user_id, type, channel, subject, content, recipient, status,
+                           reference_id, reference_type, retry_count, error_message, sent_at,
+                           created_at, updated_at)
+SELECT id, user_id, type, channel, subject, content, recipient, status,
+       reference_id, reference_type, retry_count, error_message, sent_at,
+       COALESCE(created_at, CURRENT_TIMESTAMP), updated_at
+FROM notifications_legacy;
+
+DROP TABLE notifications_legacy;
+
+-- Paginated history per user, newest first
+CREATE INDEX idx_notifications_user_created ON notifications(user_id, created_at DESC);
+
+-- Retry and digest jobs, which only look back a few hours
+CREATE INDEX idx_notifications_status_created ON notifications(status, created_at);
+
+-- Duplicate resolution by business reference
+CREATE INDEX idx_notifications_reference ON notifications(reference_id, reference_type);
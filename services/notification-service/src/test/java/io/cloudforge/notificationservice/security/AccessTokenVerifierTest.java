@@ -0,0 +1,141 @@
+package io.cloudforge.notificationservice.security;
+
+import io.cloudforge.notificationservice.exception.NotificationAccessDeniedException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AccessTokenVerifierTest {
+
+    private static final String SECRET = "test-jwt-secret-key-that-is-at-least-256-bits-long";
+
+    private StringRedisTemplate redisTemplate;
+    private ValueOperations<String, String> values;
+    private AccessTokenVerifier verifier;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        verifier = new AccessTokenVerifier(SECRET, redisTemplate);
+    }
+
+    @Test
+    void acceptsAccessTokenOfSameUser() {
+        UUID userId = UUID.randomUUID();
+
+        assertDoesNotThrow(() -> verifier.requireUser(bearer(token(SECRET, userId, "access")), userId));
+    }
+
+    @Test
+    void returnsExpiryOfToken() {
+        UUID userId = UUID.randomUUID();
+        Date expiration = new Date((System.currentTimeMillis() / 1000 + 60) * 1000);
+
+        Instant expiry = verifier.requireUser(bearer(token(SECRET, userId, "access", "jti-1", new Date(),
+                expiration)), userId);
+
+        assertEquals(expiration.toInstant(), expiry);
+    }
+
+    @Test
+    void rejectsAccessTokenOfAnotherUser() {
+        String header = bearer(token(SECRET, UUID.randomUUID(), "access"));
+
+        assertThrows(NotificationAccessDeniedException.class,
+                () -> verifier.requireUser(header, UUID.randomUUID()));
+    }
+
+    @Test
+    void rejectsMissingForgedAndRefreshTokens() {
+        UUID userId = UUID.randomUUID();
+        String forged = token("another-secret-key-that-is-at-least-256-bits-long!!", userId, "access");
+
+        assertThrows(NotificationAccessDeniedException.class, () -> verifier.requireUser(null, userId));
+        assertThrows(NotificationAccessDeniedException.class,
+                () -> verifier.requireUser(bearer(forged), userId));
+        assertThrows(NotificationAccessDeniedException.class,
+                () -> verifier.requireUser(bearer(token(SECRET, userId, "refresh")), userId));
+    }
+
+    @Test
+    void rejectsTokenRevokedOnLogout() {
+        UUID userId = UUID.randomUUID();
+        when(redisTemplate.hasKey("auth:revoked:jti:jti-1")).thenReturn(true);
+
+        assertThrows(NotificationAccessDeniedException.class,
+                () -> verifier.requireUser(bearer(token(SECRET, userId, "access")), userId));
+    }
+
+    @Test
+    void rejectsTokenIssuedBeforeAllSessionsWereEnded() {
+        UUID userId = UUID.randomUUID();
+        Date issuedAt = new Date(System.currentTimeMillis() - 60_000);
+        when(values.get("auth:revoked:user:jane"))
+                .thenReturn(Long.toString(Instant.now().getEpochSecond()));
+
+        assertThrows(NotificationAccessDeniedException.class, () -> verifier.requireUser(bearer(
+                token(SECRET, userId, "access", "jti-1", issuedAt, inOneMinute())), userId));
+    }
+
+    @Test
+    void acceptsTokenIssuedAfterAllSessionsWereEnded() {
+        UUID userId = UUID.randomUUID();
+        when(values.get("auth:revoked:user:jane"))
+                .thenReturn(Long.toString(Instant.now().getEpochSecond() - 120));
+
+        assertDoesNotThrow(() -> verifier.requireUser(bearer(token(SECRET, userId, "access")), userId));
+    }
+
+    @Test
+    void rejectsTokenWhenRevocationCannotBeChecked() {
+        UUID userId = UUID.randomUUID();
+        when(redisTemplate.hasKey("auth:revoked:jti:jti-1"))
+                .thenThrow(new RedisConnectionFailureException("Redis is down"));
+
+        assertThrows(NotificationAccessDeniedException.class,
+                () -> verifier.requireUser(bearer(token(SECRET, userId, "access")), userId));
+    }
+
+    private static String token(String secret, UUID userId, String type) {
+        return token(secret, userId, type, "jti-1", new Date(), inOneMinute());
+    }
+
+    private static String token(String secret, UUID userId, String type, String id, Date issuedAt,
+            Date expiration) {
+        return Jwts.builder()
+                .id(id)
+                .subject("jane")
+                .claim("token_type", type)
+                .claim("uid", userId.toString())
+                .issuedAt(issuedAt)
+                .expiration(expiration)
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+    private static Date inOneMinute() {
+        return new Date(System.currentTimeMillis() + 60_000);
+    }
+
+    private static String bearer(String token) {
+        return "Bearer " + token;
+    }
+}
@@ -0,0 +1,61 @@
+package io.cloudforge.notificationservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.KafkaContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@Testcontainers
+class NotificationPartitionServiceTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Container
+    @ServiceConnection
+    static KafkaContainer kafka = new KafkaContainer(DockerImageName.parse("confluentinc/cp-kafka:7.5.0"));
+
+    @Autowired
+    private NotificationPartitionService partitionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void createsPartitionForMonthWithRowsInDefaultPartition() {
+        YearMonth farMonth = YearMonth.now().plusMonths(6);
+        String partition = "notifications_p" + farMonth.format(DateTimeFormatter.ofPattern("yyyy_MM"));
+        jdbcTemplate.update("INSERT INTO notifications (user_id, type, channel, recipient, created_at) "
+                        + "VALUES (gen_random_uuid(), 'WELCOME', 'EMAIL', 'jane@example.com', ?)",
+                Timestamp.valueOf(farMonth.atDay(10).atStartOfDay()));
+        assertEquals(1, count("notifications_default"));
+
+        ReflectionTestUtils.setField(partitionService, "monthsAhead", 6);
+        partitionService.runMaintenance();
+
+        assertEquals(0, count("notifications_default"));
+        assertEquals(1, count(partition));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE c.relname = 'notifications_default'", Integer.class));
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,143 @@
+package io.cloudforge.notificationservice.service;
+
+import io.cloudforge.notificationservice.dto.NotificationRequest;
+import io.cloudforge.notificationservice.dto.NotificationResponse;
+import io.cloudforge.notificationservice.model.Notification;
+import io.cloudforge.notificationservice.model.NotificationChannel;
+import io.cloudforge.notificationservice.model.NotificationStatus;
+import io.cloudforge.notificationservice.model.NotificationType;
+import io.cloudforge.notificationservice.repository.NotificationDedupKeyRepository;
+import io.cloudforge.notificationservice.repository.NotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationServiceTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationDedupKeyRepository dedupKeyRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private TemplateService templateService;
+
+    @Mock
+    private NotificationStreamService notificationStreamService;
+
+    @Mock
+    private NotificationThrottleService throttleService;
+
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        notificationService = new NotificationService(notificationRepository, emailService, templateService,
+                notificationStreamService, new NotificationDeduplicationService(dedupKeyRepository),
+                throttleService);
+    }
+
+    @Test
+    void duplicateReturnsStoredNotification() throws Exception {
+        NotificationRequest request = orderConfirmation();
+        Notification stored = Notification.builder()
+                .id(UUID.randomUUID())
+                .userId(request.getUserId())
+                .type(request.getType())
+                .channel(request.getChannel())
+                .recipient(request.getRecipient())
+                .referenceId(request.getReferenceId())
+                .referenceType(request.getReferenceType())
+                .status(NotificationStatus.THROTTLED)
+                .createdAt(Instant.now())
+                .build();
+        when(dedupKeyRepository.claim("ORDER:" + request.getReferenceId() + ":ORDER_CONFIRMATION:EMAIL"))
+                .thenReturn(0);
+        when(notificationRepository.findFirstByReferenceIdAndReferenceTypeAndTypeAndChannelOrderByCreatedAtDesc(
+                request.getReferenceId(), "ORDER", NotificationType.ORDER_CONFIRMATION, NotificationChannel.EMAIL))
+                .thenReturn(Optional.of(stored));
+
+        NotificationResponse response = notificationService.sendNotification(request);
+
+        assertEquals(stored.getId(), response.getId());
+        assertEquals(NotificationStatus.THROTTLED, response.getStatus());
+        verify(notificationRepository, never()).save(any());
+        verify(emailService, never()).sendEmail(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void firstRequestIsStored() {
+        NotificationRequest request = orderConfirmation();
+        when(dedupKeyRepository.claim(anyString())).thenReturn(1);
+        when(templateService.getSubjectForType("ORDER_CONFIRMATION", null)).thenReturn("Order confirmed");
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(invocation -> {
+            Notification notification = invocation.getArgument(0);
+            if (notification.getId() == null) {
+                notification.setId(UUID.randomUUID());
+            }
+            return notification;
+        });
+
+        NotificationResponse response = notificationService.sendNotification(request);
+
+        assertEquals(NotificationStatus.THROTTLED, response.getStatus());
+        verify(notificationRepository, never())
+                .findFirstByReferenceIdAndReferenceTypeAndTypeAndChannelOrderByCreatedAtDesc(
+                        anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void historyOnlyReadsTheHotWindow() {
+        ReflectionTestUtils.setField(notificationService, "historyWindowDays", 90);
+        UUID userId = UUID.randomUUID();
+        Pageable pageable = PageRequest.of(0, 20);
+        when(notificationRepository.findByUserIdAndCreatedAtGreaterThanEqual(any(), any(), any()))
+                .thenReturn(Page.empty());
+
+        notificationService.getNotificationsForUser(userId, pageable);
+
+        ArgumentCaptor<Instant> since = ArgumentCaptor.forClass(Instant.class);
+        verify(notificationRepository).findByUserIdAndCreatedAtGreaterThanEqual(eq(userId), since.capture(),
+                eq(pageable));
+        Duration window = Duration.between(since.getValue(), Instant.now());
+        assertTrue(window.compareTo(Duration.ofDays(90)) >= 0 && window.compareTo(Duration.ofDays(91)) < 0,
+                "window: " + window);
+    }
+
+    private static NotificationRequest orderConfirmation() {
+        return NotificationRequest.builder()
+                .userId(UUID.randomUUID())
+                .type(NotificationType.ORDER_CONFIRMATION)
+                .channel(NotificationChannel.EMAIL)
+                .recipient("jane@example.com")
+                .referenceId(UUID.randomUUID().toString())
+                .referenceType("ORDER")
+                .build();
+    }
+}
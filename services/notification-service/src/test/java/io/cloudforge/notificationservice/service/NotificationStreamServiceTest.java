@@ -0,0 +1,107 @@
+package io.cloudforge.notificationservice.service;
+
+import io.cloudforge.notificationservice.exception.NotificationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificationStreamServiceTest {
+
+    private static final int MAX_CONNECTIONS = 3;
+    private static final Instant TOKEN_EXPIRY = Instant.now().plus(Duration.ofHours(1));
+
+    private NotificationStreamService streamService;
+
+    @BeforeEach
+    void setUp() {
+        streamService = new NotificationStreamService(Runnable::run);
+        ReflectionTestUtils.setField(streamService, "timeoutMs", 60_000L);
+        ReflectionTestUtils.setField(streamService, "bufferSize", 8);
+        ReflectionTestUtils.setField(streamService, "maxConnectionsPerUser", MAX_CONNECTIONS);
+    }
+
+    @Test
+    void rejectsStreamsBeyondPerUserCap() {
+        UUID userId = UUID.randomUUID();
+        for (int i = 0; i < MAX_CONNECTIONS; i++) {
+            streamService.subscribe(userId, TOKEN_EXPIRY);
+        }
+
+        assertThrows(NotificationException.class, () -> streamService.subscribe(userId, TOKEN_EXPIRY));
+        assertEquals(MAX_CONNECTIONS, streamService.getOpenConnectionCount());
+    }
+
+    @Test
+    void concurrentSubscribesNeverExceedCap() throws Exception {
+        UUID userId = UUID.randomUUID();
+        int attempts = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < attempts; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        streamService.subscribe(userId, TOKEN_EXPIRY);
+                    } catch (NotificationException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(MAX_CONNECTIONS, streamService.getOpenConnectionCount());
+        assertEquals(attempts - MAX_CONNECTIONS, rejected.get());
+    }
+
+    @Test
+    void closedStreamFreesItsSlot() {
+        UUID userId = UUID.randomUUID();
+        List<SseEmitter> emitters = new ArrayList<>();
+        for (int i = 0; i < MAX_CONNECTIONS; i++) {
+            emitters.add(streamService.subscribe(userId, TOKEN_EXPIRY));
+        }
+
+        // Sending to a completed emitter fails, which drops its subscription
+        emitters.get(0).complete();
+        streamService.sendHeartbeats();
+
+        assertEquals(MAX_CONNECTIONS - 1, streamService.getOpenConnectionCount());
+        streamService.subscribe(userId, TOKEN_EXPIRY);
+        assertEquals(MAX_CONNECTIONS, streamService.getOpenConnectionCount());
+    }
+
+    @Test
+    void streamEndsWhenItsTokenExpires() {
+        SseEmitter emitter = streamService.subscribe(UUID.randomUUID(), Instant.now().plusSeconds(5));
+
+        assertTrue(emitter.getTimeout() <= 5_000);
+        assertTrue(emitter.getTimeout() > 0);
+    }
+}
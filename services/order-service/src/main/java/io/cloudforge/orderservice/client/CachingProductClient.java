@@ -0,0 +1,244 @@
+package io.cloudforge.orderservice.client;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Near-cache in front of the product service's Feign client.
+ *
+ * Products are kept locally for a short TTL. Past the TTL an entry is still served
+ * while a background refresh fetches the current version (stale-while-revalidate),
+ * until it reaches the maximum staleness and must be reloaded before use. Concurrent
+ * misses for the same product share one remote call (single-flight), and batch
+ * lookups only fetch the products that are not already cached or in flight.
+ *
+ * Callers that must not act on cached data, such as checkout, use
+ * {@link #getProductsFresh(Collection)}.
+ */
+@Component
+@Primary
+@Slf4j
+public class CachingProductClient implements ProductClient {
+
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private final ProductClient delegate;
+    private final Map<String, CachedProduct> cache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<ProductResponse>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService refresher;
+
+    @Value("${product-cache.ttl-ms:5000}")
+    private long ttlMs;
+
+    @Value("${product-cache.max-stale-ms:60000}")
+    private long maxStaleMs;
+
+    @Value("${product-cache.max-entries:5000}")
+    private int maxEntries;
+
+    public CachingProductClient(@Qualifier("productFeignClient") ProductClient delegate,
+            @Value("${product-cache.refresh-threads:2}") int refreshThreads) {
+        this.delegate = delegate;
+        this.refresher = Executors.newFixedThreadPool(refreshThreads, runnable -> {
+            Thread thread = new Thread(runnable, "product-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public ProductResponse getProduct(String id) {
+        long now = System.currentTimeMillis();
+        CachedProduct cached = cache.get(id);
+        if (cached != null && now - cached.loadedAt < maxStaleMs) {
+            if (now - cached.loadedAt >= ttlMs) {
+                refreshInBackground(List.of(id));
+            }
+            return cached.product;
+        }
+        ProductResponse product = await(load(List.of(id)).get(id));
+        // Joined a batch load that did not find it; let the product service report why
+        return product != null ? product : delegate.getProduct(id);
+    }
+
+    @Override
+    public List<ProductResponse> getProducts(ProductBatchRequest request) {
+        Map<String, ProductResponse> result = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        List<String> stale = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        for (String id : new LinkedHashSet<>(request.getIds())) {
+            CachedProduct cached = cache.get(id);
+            if (cached != null && now - cached.loadedAt < maxStaleMs) {
+                result.put(id, cached.product);
+                if (now - cached.loadedAt >= ttlMs) {
+                    stale.add(id);
+                }
+            } else {
+                result.put(id, null);
+                missing.add(id);
+            }
+        }
+
+        if (!stale.isEmpty()) {
+            refreshInBackground(stale);
+        }
+        if (!missing.isEmpty()) {
+            load(missing).forEach((id, future) -> result.put(id, await(future)));
+        }
+        return result.values().stream().filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Reads the given products from the product service, bypassing and then updating
+     * the cache. Unknown ids are left out.
+     */
+    public List<ProductResponse> getProductsFresh(Collection<String> ids) {
+        List<ProductResponse> products = new ArrayList<>();
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        for (int from = 0; from < distinct.size(); from += MAX_BATCH_SIZE) {
+            List<ProductResponse> batch = delegate.getProducts(ProductBatchRequest.builder()
+                    .ids(new ArrayList<>(distinct.subList(from, Math.min(from + MAX_BATCH_SIZE, distinct.size()))))
+                    .build());
+            if (batch != null) {
+                batch.forEach(this::store);
+                products.addAll(batch);
+            }
+        }
+        return products;
+    }
+
+    @Override
+    public void reserveStock(StockReservationRequest request) {
+        try {
+            delegate.reserveStock(request);
+        } finally {
+            // Stock of these products just changed, or was about to
+            request.getItems().forEach(item -> cache.remove(item.getProductId()));
+        }
+    }
+
+    @Override
+    public void releaseReservation(String reservationId) {
+        delegate.releaseReservation(reservationId);
+    }
+
+    /**
+     * Starts or joins a load for each id. Ids nobody is loading yet are fetched on the
+     * calling thread, in one call; the rest wait for the load already under way.
+     */
+    private Map<String, CompletableFuture<ProductResponse>> load(Collection<String> ids) {
+        Map<String, CompletableFuture<ProductResponse>> futures = new LinkedHashMap<>();
+        Map<String, CompletableFuture<ProductResponse>> claimed = new LinkedHashMap<>();
+        for (String id : ids) {
+            CompletableFuture<ProductResponse> mine = new CompletableFuture<>();
+            CompletableFuture<ProductResponse> running = inFlight.putIfAbsent(id, mine);
+            if (running == null) {
+                claimed.put(id, mine);
+                futures.put(id, mine);
+            } else {
+                futures.put(id, running);
+            }
+        }
+        if (!claimed.isEmpty()) {
+            fetch(claimed);
+        }
+        return futures;
+    }
+
+    private void refreshInBackground(List<String> ids) {
+        Map<String, CompletableFuture<ProductResponse>> claimed = new LinkedHashMap<>();
+        for (String id : ids) {
+            CompletableFuture<ProductResponse> mine = new CompletableFuture<>();
+            if (inFlight.putIfAbsent(id, mine) == null) {
+                claimed.put(id, mine);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+        try {
+            refresher.execute(() -> fetch(claimed));
+        } catch (RuntimeException e) {
+            // Executor shut down or saturated; the stale copy is served until someone reloads it
+            claimed.forEach((id, future) -> {
+                inFlight.remove(id, future);
+                future.complete(cache.containsKey(id) ? cache.get(id).product : null);
+            });
+        }
+    }
+
+    private void fetch(Map<String, CompletableFuture<ProductResponse>> claimed) {
+        try {
+            // Always the batch endpoint, even for one id: it leaves unknown ids out instead of
+            // failing, so a missing product cannot fail the other lookups sharing this load
+            Map<String, ProductResponse> byId = new HashMap<>();
+            getProductsFresh(claimed.keySet()).forEach(product -> byId.put(product.getId(), product));
+            claimed.forEach((id, future) -> {
+                ProductResponse product = byId.get(id);
+                if (product != null) {
+                    store(product);
+                }
+                future.complete(product);
+            });
+        } catch (RuntimeException e) {
+            log.debug("Product lookup for {} ids failed: {}", claimed.size(), e.getMessage());
+            claimed.values().forEach(future -> future.completeExceptionally(e));
+        } finally {
+            claimed.forEach(inFlight::remove);
+        }
+    }
+
+    private void store(ProductResponse product) {
+        if (cache.size() >= maxEntries && !cache.containsKey(product.getId())) {
+            makeRoom();
+        }
+        cache.put(product.getId(), new CachedProduct(product, System.currentTimeMillis()));
+    }
+
+    private void makeRoom() {
+        long now = System.currentTimeMillis();
+        cache.values().removeIf(c -> now - c.loadedAt >= ttlMs);
+        if (cache.size() >= maxEntries) {
+            cache.clear();
+        }
+    }
+
+    private static ProductResponse await(CompletableFuture<ProductResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private record CachedProduct(ProductResponse product, long loadedAt) {
+    }
+}
@@ -0,0 +1,212 @@
+package io.cloudforge.orderservice.client;
+
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * User lookups for enrichment, batched in front of {@link UserClient}.
+ *
+ * Lookups that arrive within a short window are merged into one
+ * {@code POST /api/users/batch} call, and results are cached for a short TTL, so
+ * enriching a page of orders or a burst of events costs one round trip instead of
+ * one per user. Lookups are best effort: users that cannot be resolved in time are
+ * simply absent from the result. Failed lookups are never cached, and rejected
+ * service credentials are logged as errors and counted separately from outages.
+ */
+@Component
+@Slf4j
+public class CoalescingUserClient {
+
+    private final UserClient userClient;
+    private final Counter authFailureCounter;
+    private final Counter failureCounter;
+    private final Map<UUID, CachedUser> cache = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "user-lookup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Object lock = new Object();
+    private Map<UUID, CompletableFuture<UserResponse>> pending = new HashMap<>();
+    private boolean flushScheduled;
+
+    @Value("${user-lookup.batch-window-ms:10}")
+    private long batchWindowMs;
+
+    @Value("${user-lookup.max-batch-size:200}")
+    private int maxBatchSize;
+
+    @Value("${user-lookup.timeout-ms:2000}")
+    private long timeoutMs;
+
+    @Value("${user-lookup.cache.ttl-ms:60000}")
+    private long cacheTtlMs;
+
+    @Value("${user-lookup.cache.max-entries:10000}")
+    private int cacheMaxEntries;
+
+    public CoalescingUserClient(UserClient userClient, MeterRegistry meterRegistry) {
+        this.userClient = userClient;
+        this.authFailureCounter = Counter.builder("user.lookup.failures")
+                .tag("reason", "auth")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("user.lookup.failures")
+                .tag("reason", "error")
+                .register(meterRegistry);
+    }
+
+    public Optional<UserResponse> getUser(UUID id) {
+        return Optional.ofNullable(getUsers(List.of(id)).get(id));
+    }
+
+    /**
+     * Resolves the given users, answering from cache where possible and joining the
+     * current batch for the rest.
+     */
+    public Map<UUID, UserResponse> getUsers(Collection<UUID> ids) {
+        Map<UUID, UserResponse> result = new HashMap<>();
+        Map<UUID, CompletableFuture<UserResponse>> waiting = new HashMap<>();
+        long now = System.currentTimeMillis();
+
+        for (UUID id : ids) {
+            if (id == null || result.containsKey(id) || waiting.containsKey(id)) {
+                continue;
+            }
+            CachedUser cached = cache.get(id);
+            if (cached != null && cached.expiresAt > now) {
+                if (cached.user != null) {
+                    result.put(id, cached.user);
+                }
+            } else {
+                waiting.put(id, enqueue(id));
+            }
+        }
+
+        if (waiting.isEmpty()) {
+            return result;
+        }
+
+        try {
+            CompletableFuture.allOf(waiting.values().toArray(CompletableFuture[]::new))
+                    .get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("User lookup for {} ids timed out after {} ms", waiting.size(), timeoutMs);
+        } catch (ExecutionException e) {
+            log.warn("User lookup failed: {}", e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        waiting.forEach((id, future) -> {
+            UserResponse user = future.getNow(null);
+            if (user != null) {
+                result.put(id, user);
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<UserResponse> enqueue(UUID id) {
+        Map<UUID, CompletableFuture<UserResponse>> full = null;
+        CompletableFuture<UserResponse> future;
+
+        synchronized (lock) {
+            future = pending.computeIfAbsent(id, key -> new CompletableFuture<>());
+            if (pending.size() >= maxBatchSize) {
+                full = pending;
+                pending = new HashMap<>();
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                executor.schedule(this::flushPending, batchWindowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (full != null) {
+            Map<UUID, CompletableFuture<UserResponse>> batch = full;
+            executor.execute(() -> fetch(batch));
+        }
+        return future;
+    }
+
+    private void flushPending() {
+        Map<UUID, CompletableFuture<UserResponse>> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = new HashMap<>();
+            flushScheduled = false;
+        }
+        if (!batch.isEmpty()) {
+            fetch(batch);
+        }
+    }
+
+    private void fetch(Map<UUID, CompletableFuture<UserResponse>> batch) {
+        List<UUID> ids = new ArrayList<>(batch.keySet());
+        try {
+            List<UserResponse> users = userClient.getUsers(UserBatchRequest.builder().ids(ids).build());
+            Map<UUID, UserResponse> byId = users == null ? Map.of() : users.stream()
+                    .collect(Collectors.toMap(UserResponse::getId, Function.identity(), (a, b) -> a));
+
+            long expiresAt = System.currentTimeMillis() + cacheTtlMs;
+            makeRoom(ids.size());
+            batch.forEach((id, future) -> {
+                UserResponse user = byId.get(id);
+                // Unknown ids are cached too so a deleted user is not re-requested on every event
+                cache.put(id, new CachedUser(user, expiresAt));
+                future.complete(user);
+            });
+            log.debug("Resolved {} of {} users in one batch", byId.size(), ids.size());
+        } catch (FeignException.Unauthorized | FeignException.Forbidden e) {
+            authFailureCounter.increment();
+            log.error("user-service rejected the service credentials for a batch lookup ({}); "
+                    + "check services.service-token", e.status());
+            batch.values().forEach(future -> future.complete(null));
+        } catch (RuntimeException e) {
+            failureCounter.increment();
+            log.warn("Batch user lookup for {} ids failed: {}", ids.size(), e.getMessage());
+            batch.values().forEach(future -> future.complete(null));
+        }
+    }
+
+    private void makeRoom(int incoming) {
+        if (cache.size() + incoming <= cacheMaxEntries) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        cache.values().removeIf(c -> c.expiresAt <= now);
+        if (cache.size() + incoming > cacheMaxEntries) {
+            cache.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private record CachedUser(UserResponse user, long expiresAt) {
+    }
+}
@@ -5,11 +5,12 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class StockRequest {
-    private Integer quantity;
-    private String orderId;
+public class ProductBatchRequest {
+    private List<String> ids;
 }
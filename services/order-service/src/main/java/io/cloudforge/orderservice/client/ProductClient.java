@@ -1,20 +1,34 @@
 package io.cloudforge.orderservice.client;
 
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
-@FeignClient(name = "product-service", url = "${services.product-service-url}")
+import java.util.List;
+
+// Not primary: services get the caching decorator, CachingProductClient, instead
+@FeignClient(name = "product-service", url = "${services.product-service-url}",
+        primary = false, qualifiers = "productFeignClient")
 public interface ProductClient {
 
     @GetMapping("/api/products/{id}")
     ProductResponse getProduct(@PathVariable("id") String id);
 
-    @PostMapping("/api/products/{id}/reserve")
-    void reserveStock(@PathVariable("id") String id, @RequestBody StockRequest request);
+    /**
+     * Looks up to 500 products in one call. Unknown ids are left out of the result.
+     */
+    @PostMapping("/api/products/batch")
+    List<ProductResponse> getProducts(@RequestBody ProductBatchRequest request);
+
+    /**
+     * Reserves every item or none; answers 409 when any product is short.
+     */
+    @PostMapping("/api/products/reservations")
+    void reserveStock(@RequestBody StockReservationRequest request);
 
-    @PostMapping("/api/products/{id}/release")
-    void releaseStock(@PathVariable("id") String id, @RequestBody StockRequest request);
+    @DeleteMapping("/api/products/reservations/{reservationId}")
+    void releaseReservation(@PathVariable("reservationId") String reservationId);
 }
@@ -3,10 +3,13 @@ package io.cloudforge.orderservice.client;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
 import java.util.UUID;
 
-@FeignClient(name = "user-service", url = "${services.user-service-url}")
+@FeignClient(name = "user-service", url = "${services.user-service-url}", configuration = UserClientConfig.class)
 public interface UserClient {
 
     @GetMapping("/api/users/{id}")
@@ -14,4 +17,7 @@ public interface UserClient {
 
     @GetMapping("/api/users/email/{email}")
     UserResponse getUserByEmail(@PathVariable("email") String email);
+
+    @PostMapping("/api/users/batch")
+    List<UserResponse> getUsers(@RequestBody UserBatchRequest request);
 }
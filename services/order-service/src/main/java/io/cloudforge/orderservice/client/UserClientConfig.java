@@ -0,0 +1,19 @@
+package io.cloudforge.orderservice.client;
+
+import feign.RequestInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Feign configuration for {@link UserClient}. Not a @Configuration on purpose, so the
+ * service token is only sent to user-service and never to other clients.
+ */
+public class UserClientConfig {
+
+    static final String SERVICE_TOKEN_HEADER = "X-Service-Token";
+
+    @Bean
+    public RequestInterceptor serviceTokenInterceptor(@Value("${services.service-token}") String serviceToken) {
+        return template -> template.header(SERVICE_TOKEN_HEADER, serviceToken);
+    }
+}
@@ -19,4 +19,9 @@ public class UserResponse {
     private String lastName;
     private String role;
     private boolean enabled;
+
+    public String fullName() {
+        String name = ((firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "")).trim();
+        return name.isEmpty() ? username : name;
+    }
 }
@@ -22,7 +22,8 @@ public class CorsConfig {
                 "https://www.cloudforgetech.in"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration
-                .setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With", "X-User-Id"));
+                .setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With", "X-User-Id",
+                        "X-Cart-Token", "X-Checkout-Ticket"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
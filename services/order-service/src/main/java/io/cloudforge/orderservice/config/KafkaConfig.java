@@ -1,10 +1,27 @@
 package io.cloudforge.orderservice.config;
 
+import io.cloudforge.events.OrderCreatedEvent;
+import io.cloudforge.events.kafka.EventSender;
+import io.cloudforge.events.kafka.ProducerProfile;
+import io.cloudforge.orderservice.event.OrderCancelledEvent;
+import io.cloudforge.orderservice.event.OrderStatusChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
 
 @Configuration
 public class KafkaConfig {
@@ -18,6 +35,86 @@ public class KafkaConfig {
     @Value("${kafka.topics.order-cancelled}")
     private String orderCancelledTopic;
 
+    @Value("${kafka.topics.payment-reconciliation}")
+    private String paymentReconciliationTopic;
+
+    @Value("${payment-events.batch-size:500}")
+    private int paymentEventBatchSize;
+
+    @Value("${payment-events.concurrency:3}")
+    private int paymentEventConcurrency;
+
+    /**
+     * Applies the producer profile ({@code kafka.producer.profile}) to the template's
+     * producer factory.
+     */
+    @Bean
+    public DefaultKafkaProducerFactoryCustomizer producerProfileCustomizer(
+            @Value("${kafka.producer.profile:low-latency}") String profile) {
+        ProducerProfile producerProfile = ProducerProfile.of(profile);
+        return producerProfile::applyTo;
+    }
+
+    @Bean
+    public EventSender eventSender(KafkaTemplate<String, Object> kafkaTemplate, MeterRegistry meterRegistry,
+            @Value("${kafka.producer.buffer.capacity:10000}") int capacity,
+            @Value("${kafka.producer.buffer.block-timeout-ms:5000}") long blockTimeoutMs) {
+        return new EventSender(kafkaTemplate, meterRegistry, capacity, blockTimeoutMs);
+    }
+
+    /**
+     * Batch listener factory for payment outcomes. Values are read as raw bytes because
+     * one batch mixes completed and failed events, binary or JSON, with no type headers.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> paymentEventListenerFactory(
+            KafkaProperties kafkaProperties) {
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(null);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, paymentEventBatchSize);
+
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props));
+        factory.setBatchListener(true);
+        factory.setConcurrency(paymentEventConcurrency);
+        return factory;
+    }
+
+    /**
+     * Listener factories for the order_summary projection. Producers send JSON without
+     * type headers, so each topic's listener names the type its JSON values bind to.
+     * Binary events carry their own type and are unaffected.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> orderCreatedSummaryListenerFactory(
+            KafkaProperties kafkaProperties) {
+        return typedListenerFactory(kafkaProperties, OrderCreatedEvent.class);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> orderCancelledSummaryListenerFactory(
+            KafkaProperties kafkaProperties) {
+        return typedListenerFactory(kafkaProperties, OrderCancelledEvent.class);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> orderStatusSummaryListenerFactory(
+            KafkaProperties kafkaProperties) {
+        return typedListenerFactory(kafkaProperties, OrderStatusChangedEvent.class);
+    }
+
+    private ConcurrentKafkaListenerContainerFactory<String, Object> typedListenerFactory(
+            KafkaProperties kafkaProperties, Class<?> valueType) {
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(null);
+        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, valueType.getName());
+        props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props));
+        return factory;
+    }
+
     @Bean
     public NewTopic orderCreatedTopic() {
         return TopicBuilder.name(orderCreatedTopic)
@@ -41,4 +138,12 @@ public class KafkaConfig {
                 .replicas(1)
                 .build();
     }
+
+    @Bean
+    public NewTopic paymentReconciliationTopic() {
+        return TopicBuilder.name(paymentReconciliationTopic)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
 }
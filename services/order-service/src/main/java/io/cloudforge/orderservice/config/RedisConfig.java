@@ -1,5 +1,6 @@
 package io.cloudforge.orderservice.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.cloudforge.orderservice.model.Cart;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,14 +12,18 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 @Configuration
 public class RedisConfig {
 
+    // Uses the application's ObjectMapper so Instants are written as ISO strings, which the
+    // cart merge script relies on, and derived getters such as totalAmount are ignored on read
     @Bean
-    public RedisTemplate<String, Cart> cartRedisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Cart> cartRedisTemplate(RedisConnectionFactory connectionFactory,
+            ObjectMapper objectMapper) {
+        Jackson2JsonRedisSerializer<Cart> cartSerializer = new Jackson2JsonRedisSerializer<>(objectMapper, Cart.class);
         RedisTemplate<String, Cart> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new Jackson2JsonRedisSerializer<>(Cart.class));
+        template.setValueSerializer(cartSerializer);
         template.setHashKeySerializer(new StringRedisSerializer());
-        template.setHashValueSerializer(new Jackson2JsonRedisSerializer<>(Cart.class));
+        template.setHashValueSerializer(cartSerializer);
         return template;
     }
 }
@@ -3,16 +3,21 @@ package io.cloudforge.orderservice.controller;
 import io.cloudforge.orderservice.dto.CartItemRequest;
 import io.cloudforge.orderservice.dto.CartResponse;
 import io.cloudforge.orderservice.dto.CheckoutRequest;
+import io.cloudforge.orderservice.dto.CheckoutTicketResponse;
 import io.cloudforge.orderservice.dto.OrderResponse;
+import io.cloudforge.orderservice.model.CartOwner;
 import io.cloudforge.orderservice.service.CartService;
-import io.cloudforge.orderservice.service.OrderService;
+import io.cloudforge.orderservice.service.CheckoutAdmissionService;
+import io.cloudforge.orderservice.service.CheckoutSagaService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -22,7 +27,8 @@ import java.util.UUID;
 public class CartController {
 
     private final CartService cartService;
-    private final OrderService orderService;
+    private final CheckoutSagaService checkoutSagaService;
+    private final CheckoutAdmissionService checkoutAdmissionService;
 
     // TODO: Get userId from JWT token in production
     // For now, accept as header for testing
@@ -30,51 +36,96 @@ public class CartController {
         return UUID.fromString(userIdHeader);
     }
 
+    // Signed-in users are identified by X-User-Id, guests by the X-Cart-Token they were issued
+    private CartOwner getOwner(String userIdHeader, String cartTokenHeader) {
+        if (userIdHeader != null) {
+            return CartOwner.user(getUserId(userIdHeader));
+        }
+        return CartOwner.guest(cartTokenHeader);
+    }
+
+    @PostMapping("/guest")
+    @Operation(summary = "Start a guest cart and get its token")
+    public ResponseEntity<Map<String, String>> createGuestCart() {
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("cartToken", CartOwner.newGuestToken()));
+    }
+
+    @PostMapping("/merge")
+    @Operation(summary = "Merge a guest cart into the signed-in user's cart")
+    public ResponseEntity<CartResponse> mergeGuestCart(
+            @RequestHeader("X-User-Id") String userId,
+            @RequestHeader("X-Cart-Token") String cartToken) {
+        return ResponseEntity.ok(cartService.mergeGuestCart(getUserId(userId), cartToken));
+    }
+
     @GetMapping
-    @Operation(summary = "Get user's cart")
+    @Operation(summary = "Get user's or guest's cart")
     public ResponseEntity<CartResponse> getCart(
-            @RequestHeader("X-User-Id") String userId) {
-        return ResponseEntity.ok(cartService.getCart(getUserId(userId)));
+            @RequestHeader(value = "X-User-Id", required = false) String userId,
+            @RequestHeader(value = "X-Cart-Token", required = false) String cartToken) {
+        return ResponseEntity.ok(cartService.getCart(getOwner(userId, cartToken)));
     }
 
     @PostMapping("/items")
     @Operation(summary = "Add item to cart")
     public ResponseEntity<CartResponse> addItem(
-            @RequestHeader("X-User-Id") String userId,
+            @RequestHeader(value = "X-User-Id", required = false) String userId,
+            @RequestHeader(value = "X-Cart-Token", required = false) String cartToken,
             @Valid @RequestBody CartItemRequest request) {
-        return ResponseEntity.ok(cartService.addItem(getUserId(userId), request));
+        return ResponseEntity.ok(cartService.addItem(getOwner(userId, cartToken), request));
     }
 
     @PutMapping("/items/{productId}")
     @Operation(summary = "Update item quantity in cart")
     public ResponseEntity<CartResponse> updateItemQuantity(
-            @RequestHeader("X-User-Id") String userId,
+            @RequestHeader(value = "X-User-Id", required = false) String userId,
+            @RequestHeader(value = "X-Cart-Token", required = false) String cartToken,
             @PathVariable String productId,
             @RequestParam int quantity) {
-        return ResponseEntity.ok(cartService.updateItemQuantity(getUserId(userId), productId, quantity));
+        return ResponseEntity.ok(cartService.updateItemQuantity(getOwner(userId, cartToken), productId, quantity));
     }
 
     @DeleteMapping("/items/{productId}")
     @Operation(summary = "Remove item from cart")
     public ResponseEntity<CartResponse> removeItem(
-            @RequestHeader("X-User-Id") String userId,
+            @RequestHeader(value = "X-User-Id", required = false) String userId,
+            @RequestHeader(value = "X-Cart-Token", required = false) String cartToken,
             @PathVariable String productId) {
-        return ResponseEntity.ok(cartService.removeItem(getUserId(userId), productId));
+        return ResponseEntity.ok(cartService.removeItem(getOwner(userId, cartToken), productId));
     }
 
     @DeleteMapping
     @Operation(summary = "Clear entire cart")
     public ResponseEntity<Void> clearCart(
-            @RequestHeader("X-User-Id") String userId) {
-        cartService.clearCart(getUserId(userId));
+            @RequestHeader(value = "X-User-Id", required = false) String userId,
+            @RequestHeader(value = "X-Cart-Token", required = false) String cartToken) {
+        cartService.clearCart(getOwner(userId, cartToken));
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/checkout/queue")
+    @Operation(summary = "Join the checkout queue (only enforced while admission control is on)")
+    public ResponseEntity<CheckoutTicketResponse> joinCheckoutQueue(
+            @RequestHeader("X-User-Id") String userId) {
+        return ResponseEntity.accepted().body(checkoutAdmissionService.join(getUserId(userId)));
+    }
+
+    @GetMapping("/checkout/queue/{ticket}")
+    @Operation(summary = "Get position in the checkout queue")
+    public ResponseEntity<CheckoutTicketResponse> getCheckoutQueuePosition(
+            @RequestHeader("X-User-Id") String userId,
+            @PathVariable String ticket) {
+        return ResponseEntity.ok(checkoutAdmissionService.getStatus(getUserId(userId), ticket));
+    }
+
     @PostMapping("/checkout")
-    @Operation(summary = "Checkout cart and create order")
+    @Operation(summary = "Checkout cart: reserve stock and create an order awaiting payment")
     public ResponseEntity<OrderResponse> checkout(
             @RequestHeader("X-User-Id") String userId,
+            @RequestHeader(value = "X-Checkout-Ticket", required = false) String ticket,
             @Valid @RequestBody CheckoutRequest request) {
-        return ResponseEntity.ok(orderService.checkoutCart(getUserId(userId), request));
+        UUID user = getUserId(userId);
+        return ResponseEntity.ok(checkoutAdmissionService.checkout(user, ticket,
+                () -> checkoutSagaService.checkout(user, request)));
     }
 }
@@ -2,18 +2,23 @@ package io.cloudforge.orderservice.controller;
 
 import io.cloudforge.orderservice.dto.OrderRequest;
 import io.cloudforge.orderservice.dto.OrderResponse;
+import io.cloudforge.orderservice.dto.OrderSummaryResponse;
 import io.cloudforge.orderservice.model.OrderStatus;
+import io.cloudforge.orderservice.service.OrderQueryService;
 import io.cloudforge.orderservice.service.OrderService;
+import io.cloudforge.web.ConditionalResponses;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.UUID;
 
@@ -24,6 +29,7 @@ import java.util.UUID;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderQueryService orderQueryService;
 
     // TODO: Get userId from JWT token in production
     private UUID getUserId(String userIdHeader) {
@@ -43,24 +49,31 @@ public class OrderController {
     @Operation(summary = "Get order by ID")
     public ResponseEntity<OrderResponse> getOrder(
             @RequestHeader("X-User-Id") String userId,
-            @PathVariable UUID orderId) {
-        return ResponseEntity.ok(orderService.getOrderForUser(orderId, getUserId(userId)));
+            @PathVariable UUID orderId,
+            WebRequest request) {
+        UUID user = getUserId(userId);
+        if (ConditionalResponses.notModified(request, orderService.getOrderUpdatedAt(orderId, user))) {
+            return null;
+        }
+        return ConditionalResponses.revalidate(orderService.getOrderForUser(orderId, user));
     }
 
     @GetMapping
     @Operation(summary = "Get user's orders")
-    public ResponseEntity<Page<OrderResponse>> getUserOrders(
+    public ResponseEntity<Page<OrderSummaryResponse>> getUserOrders(
             @RequestHeader("X-User-Id") String userId,
-            @PageableDefault(size = 10, sort = "createdAt") Pageable pageable) {
-        return ResponseEntity.ok(orderService.getUserOrders(getUserId(userId), pageable));
+            @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+        return ConditionalResponses.page(orderQueryService.getUserOrders(getUserId(userId), pageable),
+                OrderSummaryResponse::getId, OrderSummaryResponse::getUpdatedAt);
     }
 
     @GetMapping("/status/{status}")
     @Operation(summary = "Get orders by status (Admin)")
-    public ResponseEntity<Page<OrderResponse>> getOrdersByStatus(
+    public ResponseEntity<Page<OrderSummaryResponse>> getOrdersByStatus(
             @PathVariable OrderStatus status,
-            @PageableDefault(size = 20) Pageable pageable) {
-        return ResponseEntity.ok(orderService.getOrdersByStatus(status, pageable));
+            @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+        return ConditionalResponses.page(orderQueryService.getOrdersByStatus(status, pageable),
+                OrderSummaryResponse::getId, OrderSummaryResponse::getUpdatedAt);
     }
 
     @PutMapping("/{orderId}/cancel")
@@ -0,0 +1,31 @@
+package io.cloudforge.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartItemIssue {
+
+    public enum Type {
+        /** The line has been repriced to the current price. */
+        PRICE_CHANGED,
+        /** Fewer units are left than the line asks for. */
+        INSUFFICIENT_STOCK,
+        OUT_OF_STOCK,
+        /** The product was removed from the catalog or deactivated. */
+        UNAVAILABLE
+    }
+
+    private String productId;
+    private Type type;
+    private BigDecimal previousPrice;
+    private BigDecimal currentPrice;
+    private Integer availableQuantity;
+}
@@ -23,14 +23,24 @@ public class CartResponse {
     private BigDecimal totalAmount;
     private int itemCount;
     private Instant updatedAt;
+    // Lines that changed or cannot be bought as they stand; empty when the cart is good to check out
+    private List<CartItemIssue> issues;
+    // False when current prices could not be fetched and the cart is shown as stored
+    private boolean validated;
 
     public static CartResponse fromCart(Cart cart) {
+        return fromCart(cart, List.of(), true);
+    }
+
+    public static CartResponse fromCart(Cart cart, List<CartItemIssue> issues, boolean validated) {
         return CartResponse.builder()
                 .userId(cart.getUserId())
                 .items(cart.getItems())
                 .totalAmount(cart.getTotalAmount())
                 .itemCount(cart.getItemCount())
                 .updatedAt(cart.getUpdatedAt())
+                .issues(issues)
+                .validated(validated)
                 .build();
     }
 }
@@ -0,0 +1,20 @@
+package io.cloudforge.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutTicketResponse {
+
+    // Null when admission control is off and checkout needs no ticket
+    private String ticket;
+    private boolean admitted;
+    // 1 for the next ticket to be admitted; 0 once admitted
+    private long position;
+    private long estimatedWaitSeconds;
+}
@@ -13,6 +13,10 @@ import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
+/**
+ * Full order with its items, returned by the single-order endpoints. Listings use
+ * {@link OrderSummaryResponse}, which is where customer name and email live.
+ */
 @Data
 @Builder
 @NoArgsConstructor
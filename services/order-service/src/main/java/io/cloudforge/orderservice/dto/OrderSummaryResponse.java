@@ -0,0 +1,47 @@
+package io.cloudforge.orderservice.dto;
+
+import io.cloudforge.orderservice.model.OrderStatus;
+import io.cloudforge.orderservice.model.OrderSummary;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One row of an order listing, read from the order_summary table. Carries the
+ * customer details; {@link OrderResponse} deliberately does not.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryResponse {
+
+    private UUID id;
+    private UUID userId;
+    private String customerName;
+    private String customerEmail;
+    private OrderStatus status;
+    private BigDecimal totalAmount;
+    private Integer itemCount;
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    public static OrderSummaryResponse fromSummary(OrderSummary summary) {
+        return OrderSummaryResponse.builder()
+                .id(summary.getOrderId())
+                .userId(summary.getUserId())
+                .customerName(summary.getCustomerName())
+                .customerEmail(summary.getCustomerEmail())
+                .status(summary.getStatus())
+                .totalAmount(summary.getTotalAmount())
+                .itemCount(summary.getItemCount())
+                .createdAt(summary.getCreatedAt())
+                .updatedAt(summary.getUpdatedAt())
+                .build();
+    }
+}
@@ -1,17 +1,26 @@
 package io.cloudforge.orderservice.event;
 
+import io.cloudforge.events.OrderCreatedEvent;
+import io.cloudforge.events.kafka.EventSender;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Publishes this service's events. Sends go through {@link EventSender}, which bounds
+ * how many may await the broker and records per-topic latency and errors; callers
+ * that need the outcome get the send's future.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EventPublisher {
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final EventSender eventSender;
 
     @Value("${kafka.topics.order-created}")
     private String orderCreatedTopic;
@@ -19,13 +28,33 @@ public class EventPublisher {
     @Value("${kafka.topics.order-cancelled}")
     private String orderCancelledTopic;
 
+    @Value("${kafka.topics.order-updated}")
+    private String orderUpdatedTopic;
+
+    @Value("${kafka.topics.payment-reconciliation}")
+    private String paymentReconciliationTopic;
+
     public void publishOrderCreated(OrderCreatedEvent event) {
         log.info("Publishing order created event for order: {}", event.getOrderId());
-        kafkaTemplate.send(orderCreatedTopic, event.getOrderId().toString(), event);
+        eventSender.send(orderCreatedTopic, event.getOrderId().toString(), event);
     }
 
     public void publishOrderCancelled(OrderCancelledEvent event) {
         log.info("Publishing order cancelled event for order: {}", event.getOrderId());
-        kafkaTemplate.send(orderCancelledTopic, event.getOrderId().toString(), event);
+        eventSender.send(orderCancelledTopic, event.getOrderId().toString(), event);
+    }
+
+    public CompletableFuture<SendResult<String, Object>> publishOrderStatusChanged(OrderStatusChangedEvent event) {
+        log.info("Publishing order status change for order {}: {} -> {}",
+                event.getOrderId(), event.getPreviousStatus(), event.getStatus());
+        // Keyed by order id so every change of one order lands on the same partition, in order
+        return eventSender.send(orderUpdatedTopic, event.getOrderId().toString(), event);
+    }
+
+    public CompletableFuture<SendResult<String, Object>> publishPaymentReconciliation(
+            PaymentReconciliationEvent event) {
+        log.info("Publishing payment reconciliation for order {}: payment {}",
+                event.getOrderId(), event.getPaymentId());
+        return eventSender.send(paymentReconciliationTopic, event.getOrderId().toString(), event);
     }
 }
@@ -1,11 +1,11 @@
-package io.cloudforge.paymentservice.event;
+package io.cloudforge.orderservice.event;
 
+import io.cloudforge.orderservice.model.OrderStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.UUID;
 
@@ -13,12 +13,10 @@ import java.util.UUID;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class PaymentFailedEvent {
-
-    private UUID paymentId;
+public class OrderStatusChangedEvent {
     private UUID orderId;
     private UUID userId;
-    private BigDecimal amount;
-    private String failureReason;
-    private Instant failedAt;
+    private OrderStatus previousStatus;
+    private OrderStatus status;
+    private Instant changedAt;
 }
@@ -0,0 +1,187 @@
+package io.cloudforge.orderservice.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.cloudforge.events.PaymentCompletedEvent;
+import io.cloudforge.events.PaymentFailedEvent;
+import io.cloudforge.events.codec.EventCodec;
+import io.cloudforge.events.codec.EventFormatException;
+import io.cloudforge.orderservice.model.OrderStatus;
+import io.cloudforge.orderservice.service.CheckoutSagaService;
+import io.cloudforge.orderservice.service.PaymentOutcomeService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drives order status from payment outcomes.
+ *
+ * Each poll is handled as one batch: records are read partition by partition in
+ * offset order, collapsed to the final outcome per order, applied with bulk UPDATEs
+ * and then announced on the order-updated topic, after which the checkout sagas of
+ * those orders are completed or compensated. Offsets are only committed once
+ * every status change has been acknowledged by the broker, so a crash in between
+ * replays the batch and republishes the same changes.
+ *
+ * A payment that completes for an order already cancelled, usually by the payment
+ * timeout, cannot be applied. It is counted as {@code orders.payment.after-cancel}
+ * and announced on the payment-reconciliation topic so the charge gets refunded.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentEventConsumer {
+
+    private final PaymentOutcomeService paymentOutcomeService;
+    private final CheckoutSagaService checkoutSagaService;
+    private final EventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${kafka.topics.payment-completed}")
+    private String paymentCompletedTopic;
+
+    @Value("${payment-events.publish-timeout-ms:10000}")
+    private long publishTimeoutMs;
+
+    @KafkaListener(
+            topics = {"${kafka.topics.payment-completed}", "${kafka.topics.payment-failed}"},
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "paymentEventListenerFactory")
+    public void onPaymentEvents(List<ConsumerRecord<String, byte[]>> records) {
+        Map<TopicPartition, List<ConsumerRecord<String, byte[]>>> byPartition = new LinkedHashMap<>();
+        for (ConsumerRecord<String, byte[]> record : records) {
+            byPartition.computeIfAbsent(new TopicPartition(record.topic(), record.partition()),
+                    partition -> new ArrayList<>()).add(record);
+        }
+
+        Map<UUID, OrderStatus> outcomes = new LinkedHashMap<>();
+        Map<UUID, PaymentCompletedEvent> completed = new HashMap<>();
+        byPartition.values().forEach(partitionRecords -> partitionRecords.forEach(record -> {
+            Object event = readEvent(record);
+            if (event == null) {
+                return;
+            }
+            OrderStatus target;
+            UUID orderId;
+            if (event instanceof PaymentCompletedEvent payment) {
+                target = OrderStatus.CONFIRMED;
+                orderId = payment.getOrderId();
+                completed.put(orderId, payment);
+            } else {
+                target = OrderStatus.CANCELLED;
+                orderId = ((PaymentFailedEvent) event).getOrderId();
+            }
+            // A successful payment wins over a failed attempt for the same order
+            outcomes.merge(orderId, target,
+                    (current, next) -> current == OrderStatus.CONFIRMED ? current : next);
+        }));
+
+        if (outcomes.isEmpty()) {
+            return;
+        }
+
+        List<OrderStatusChangedEvent> changes = paymentOutcomeService.apply(outcomes);
+        List<PaymentReconciliationEvent> reconciliations = refundsNeeded(completed, changes);
+        awaitPublished(changes, reconciliations);
+        checkoutSagaService.onPaymentOutcomes(changes);
+
+        log.info("Processed {} payment events from {} partitions: {} orders updated",
+                records.size(), byPartition.size(), changes.size());
+    }
+
+    /**
+     * Completed payments whose order was cancelled before the payment arrived.
+     */
+    private List<PaymentReconciliationEvent> refundsNeeded(Map<UUID, PaymentCompletedEvent> completed,
+            List<OrderStatusChangedEvent> changes) {
+        List<UUID> unapplied = new ArrayList<>(completed.keySet());
+        changes.forEach(change -> unapplied.remove(change.getOrderId()));
+        List<PaymentReconciliationEvent> reconciliations = new ArrayList<>();
+        for (UUID orderId : paymentOutcomeService.findCancelled(unapplied)) {
+            PaymentCompletedEvent payment = completed.get(orderId);
+            log.error("Payment {} of {} {} completed for cancelled order {}; it needs a refund",
+                    payment.getPaymentId(), payment.getAmount(), payment.getCurrency(), orderId);
+            meterRegistry.counter("orders.payment.after-cancel").increment();
+            reconciliations.add(PaymentReconciliationEvent.builder()
+                    .orderId(orderId)
+                    .userId(payment.getUserId())
+                    .paymentId(payment.getPaymentId())
+                    .amount(payment.getAmount())
+                    .currency(payment.getCurrency())
+                    .reason("Payment completed after the order was cancelled")
+                    .detectedAt(Instant.now())
+                    .build());
+        }
+        return reconciliations;
+    }
+
+    private void awaitPublished(List<OrderStatusChangedEvent> changes,
+            List<PaymentReconciliationEvent> reconciliations) {
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        changes.forEach(change -> futures.add(eventPublisher.publishOrderStatusChanged(change)));
+        reconciliations.forEach(event -> futures.add(eventPublisher.publishPaymentReconciliation(event)));
+        CompletableFuture<?>[] sends = futures.toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(sends).get(publishTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // Fail the batch so it is redelivered; the updates are idempotent
+            throw new IllegalStateException("Could not publish order status changes", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing order status changes", e);
+        }
+    }
+
+    private Object readEvent(ConsumerRecord<String, byte[]> record) {
+        try {
+            Object event;
+            UUID orderId;
+            if (paymentCompletedTopic.equals(record.topic())) {
+                PaymentCompletedEvent completed = read(record.value(), PaymentCompletedEvent.class);
+                event = completed;
+                orderId = completed.getOrderId();
+            } else {
+                PaymentFailedEvent failed = read(record.value(), PaymentFailedEvent.class);
+                event = failed;
+                orderId = failed.getOrderId();
+            }
+            if (orderId == null) {
+                log.warn("Skipping payment event without order id at {}-{}@{}",
+                        record.topic(), record.partition(), record.offset());
+                return null;
+            }
+            return event;
+        } catch (IOException | EventFormatException | IllegalArgumentException e) {
+            // Retrying a malformed record would block the partition forever
+            log.error("Skipping unreadable payment event at {}-{}@{}: {}",
+                    record.topic(), record.partition(), record.offset(), e.getMessage());
+            return null;
+        }
+    }
+
+    // Binary or, from producers not yet switched over, JSON
+    private <T> T read(byte[] value, Class<T> type) throws IOException {
+        if (value == null) {
+            throw new EventFormatException("Empty payment event");
+        }
+        return EventCodec.isEncoded(value) ? EventCodec.decode(value, type) : objectMapper.readValue(value, type);
+    }
+}
@@ -1,4 +1,4 @@
-package io.cloudforge.paymentservice.event;
+package io.cloudforge.orderservice.event;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -9,18 +9,21 @@ import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.UUID;
 
+/**
+ * A payment that succeeded for an order which had already been cancelled, typically
+ * by the payment timeout. The customer was charged for an order that will not ship,
+ * so the payment has to be refunded.
+ */
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class PaymentCompletedEvent {
-
-    private UUID paymentId;
+public class PaymentReconciliationEvent {
     private UUID orderId;
     private UUID userId;
+    private UUID paymentId;
     private BigDecimal amount;
     private String currency;
-    private String status;
-    private String stripePaymentIntentId;
-    private Instant completedAt;
+    private String reason;
+    private Instant detectedAt;
 }
@@ -0,0 +1,15 @@
+package io.cloudforge.orderservice.exception;
+
+import io.cloudforge.orderservice.dto.CartResponse;
+import lombok.Getter;
+
+@Getter
+public class CartChangedException extends RuntimeException {
+
+    private final CartResponse cart;
+
+    public CartChangedException(CartResponse cart) {
+        super("Prices or availability changed since items were added to the cart");
+        this.cart = cart;
+    }
+}
@@ -0,0 +1,7 @@
+package io.cloudforge.orderservice.exception;
+
+public class CheckoutNotAdmittedException extends RuntimeException {
+    public CheckoutNotAdmittedException(String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,6 @@
 package io.cloudforge.orderservice.exception;
 
+import io.cloudforge.orderservice.dto.CartResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -41,6 +42,39 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<ErrorResponse> handleInsufficientStock(InsufficientStockException ex) {
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.CONFLICT.value(),
+                ex.getMessage(),
+                Instant.now());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(InvalidCartTokenException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCartToken(InvalidCartTokenException ex) {
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                ex.getMessage(),
+                Instant.now());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    // Answers with the repriced cart so the client can show what changed
+    @ExceptionHandler(CartChangedException.class)
+    public ResponseEntity<CartResponse> handleCartChanged(CartChangedException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getCart());
+    }
+
+    @ExceptionHandler(CheckoutNotAdmittedException.class)
+    public ResponseEntity<ErrorResponse> handleCheckoutNotAdmitted(CheckoutNotAdmittedException ex) {
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                ex.getMessage(),
+                Instant.now());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(error);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationErrors(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
@@ -0,0 +1,7 @@
+package io.cloudforge.orderservice.exception;
+
+public class InsufficientStockException extends RuntimeException {
+    public InsufficientStockException() {
+        super("Some items in the cart are no longer in stock");
+    }
+}
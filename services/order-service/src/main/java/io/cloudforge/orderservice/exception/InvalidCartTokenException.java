@@ -0,0 +1,7 @@
+package io.cloudforge.orderservice.exception;
+
+public class InvalidCartTokenException extends RuntimeException {
+    public InvalidCartTokenException() {
+        super("A valid X-User-Id or X-Cart-Token header is required");
+    }
+}
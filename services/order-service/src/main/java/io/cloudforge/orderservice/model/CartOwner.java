@@ -0,0 +1,51 @@
+package io.cloudforge.orderservice.model;
+
+import io.cloudforge.orderservice.exception.InvalidCartTokenException;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Whose cart is being worked on: a signed-in user, or a guest identified by an
+ * opaque token issued by {@code POST /api/cart/guest}.
+ */
+public record CartOwner(UUID userId, String guestToken) {
+
+    private static final String CART_PREFIX = "cart:";
+    private static final String GUEST_PREFIX = CART_PREFIX + "guest:";
+    private static final Pattern TOKEN_FORMAT = Pattern.compile("[A-Za-z0-9_-]{22,64}");
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public static CartOwner user(UUID userId) {
+        return new CartOwner(userId, null);
+    }
+
+    public static CartOwner guest(String token) {
+        // Tokens end up in a Redis key, so only accept what newGuestToken() produces
+        if (token == null || !TOKEN_FORMAT.matcher(token).matches()) {
+            throw new InvalidCartTokenException();
+        }
+        return new CartOwner(null, token);
+    }
+
+    public static String newGuestToken() {
+        byte[] bytes = new byte[24];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public boolean isGuest() {
+        return userId == null;
+    }
+
+    public String redisKey() {
+        return isGuest() ? GUEST_PREFIX + guestToken : CART_PREFIX + userId;
+    }
+
+    @Override
+    public String toString() {
+        return isGuest() ? "guest cart" : "user " + userId;
+    }
+}
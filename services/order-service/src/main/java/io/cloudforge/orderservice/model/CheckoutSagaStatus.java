@@ -0,0 +1,22 @@
+package io.cloudforge.orderservice.model;
+
+public enum CheckoutSagaStatus {
+    /** Saga recorded, stock not yet reserved. */
+    STARTED,
+    /** Stock reserved, order not yet persisted. */
+    STOCK_RESERVED,
+    /** Order persisted, waiting for the payment outcome. */
+    PAYMENT_PENDING,
+    /** Payment succeeded; the reservation is now a sale. */
+    COMPLETED,
+    /** Releasing stock after a failure, timeout or cancellation. */
+    COMPENSATING,
+    /** Stock released and order cancelled. */
+    COMPENSATED,
+    /** Ended before an order existed; nothing left to undo. */
+    FAILED;
+
+    public boolean isTerminal() {
+        return this == COMPLETED || this == COMPENSATED || this == FAILED;
+    }
+}
@@ -0,0 +1,61 @@
+package io.cloudforge.orderservice.repository;
+
+import io.cloudforge.orderservice.model.CheckoutSaga;
+import io.cloudforge.orderservice.model.CheckoutSagaStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface CheckoutSagaRepository extends JpaRepository<CheckoutSaga, UUID> {
+
+    List<CheckoutSaga> findByOrderIdInAndStatus(Collection<UUID> orderIds, CheckoutSagaStatus status);
+
+    List<CheckoutSaga> findByStatusAndUpdatedAtBefore(CheckoutSagaStatus status, Instant before, Pageable pageable);
+
+    List<CheckoutSaga> findByStatusAndPaymentDeadlineBefore(CheckoutSagaStatus status, Instant before,
+            Pageable pageable);
+
+    /**
+     * Compare-and-set on the saga status. Returns 0 if another instance or thread
+     * moved the saga first, which makes every step safe to attempt concurrently.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CheckoutSaga s SET s.status = :to, s.updatedAt = :now, "
+            + "s.failureReason = COALESCE(:reason, s.failureReason) "
+            + "WHERE s.id = :id AND s.status = :from")
+    int transition(@Param("id") UUID id,
+            @Param("from") CheckoutSagaStatus from,
+            @Param("to") CheckoutSagaStatus to,
+            @Param("reason") String reason,
+            @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE CheckoutSaga s SET s.status = io.cloudforge.orderservice.model.CheckoutSagaStatus.PAYMENT_PENDING, "
+            + "s.orderId = :orderId, s.paymentDeadline = :deadline, s.updatedAt = :now "
+            + "WHERE s.id = :id AND s.status = io.cloudforge.orderservice.model.CheckoutSagaStatus.STOCK_RESERVED")
+    int markPaymentPending(@Param("id") UUID id,
+            @Param("orderId") UUID orderId,
+            @Param("deadline") Instant deadline,
+            @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE CheckoutSaga s SET s.status = :to, s.updatedAt = :now "
+            + "WHERE s.orderId IN :orderIds AND s.status IN :from")
+    int transitionByOrderIds(@Param("orderIds") Collection<UUID> orderIds,
+            @Param("from") Collection<CheckoutSagaStatus> from,
+            @Param("to") CheckoutSagaStatus to,
+            @Param("now") Instant now);
+}
@@ -5,6 +5,7 @@ import io.cloudforge.orderservice.model.OrderStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -33,8 +34,19 @@ public interface OrderRepository extends JpaRepository<Order, UUID> {
 
     Optional<Order> findByIdAndUserId(UUID id, UUID userId);
 
+    @Query("SELECT o.updatedAt FROM Order o WHERE o.id = :id AND o.userId = :userId")
+    Optional<Instant> findUpdatedAtByIdAndUserId(@Param("id") UUID id, @Param("userId") UUID userId);
+
     long countByStatus(OrderStatus status);
 
     @Query("SELECT COUNT(o) FROM Order o WHERE o.userId = :userId")
     long countByUserId(@Param("userId") UUID userId);
+
+    /**
+     * Cancels the order only if it is still waiting for payment.
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.status = io.cloudforge.orderservice.model.OrderStatus.CANCELLED, o.updatedAt = :now "
+            + "WHERE o.id = :id AND o.status = io.cloudforge.orderservice.model.OrderStatus.PENDING")
+    int cancelIfPending(@Param("id") UUID id, @Param("now") Instant now);
 }
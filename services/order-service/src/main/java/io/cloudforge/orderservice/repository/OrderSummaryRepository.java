@@ -0,0 +1,68 @@
+package io.cloudforge.orderservice.repository;
+
+import io.cloudforge.orderservice.model.OrderStatus;
+import io.cloudforge.orderservice.model.OrderSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+@Repository
+public interface OrderSummaryRepository extends JpaRepository<OrderSummary, UUID> {
+
+    Page<OrderSummary> findByUserId(UUID userId, Pageable pageable);
+
+    Page<OrderSummary> findByStatus(OrderStatus status, Pageable pageable);
+
+    /**
+     * Records a new order. If a status event got here first the row already exists
+     * and keeps its newer status; only the order details are filled in.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_summary (order_id, user_id, status, total_amount, item_count,
+                                       customer_name, customer_email, created_at, updated_at)
+            VALUES (:orderId, :userId, :status, :totalAmount, :itemCount,
+                    :customerName, :customerEmail, :createdAt, :createdAt)
+            ON CONFLICT (order_id) DO UPDATE SET
+                user_id = EXCLUDED.user_id,
+                total_amount = EXCLUDED.total_amount,
+                item_count = EXCLUDED.item_count,
+                customer_name = EXCLUDED.customer_name,
+                customer_email = EXCLUDED.customer_email,
+                created_at = EXCLUDED.created_at
+            """, nativeQuery = true)
+    int upsertCreated(@Param("orderId") UUID orderId,
+            @Param("userId") UUID userId,
+            @Param("status") String status,
+            @Param("totalAmount") BigDecimal totalAmount,
+            @Param("itemCount") int itemCount,
+            @Param("customerName") String customerName,
+            @Param("customerEmail") String customerEmail,
+            @Param("createdAt") Instant createdAt);
+
+    /**
+     * Applies a status change unless a newer one has already been applied, so events
+     * arriving out of order across topics cannot move an order backwards.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_summary (order_id, user_id, status, item_count, updated_at)
+            VALUES (:orderId, :userId, :status, 0, :changedAt)
+            ON CONFLICT (order_id) DO UPDATE SET
+                status = EXCLUDED.status,
+                updated_at = EXCLUDED.updated_at
+            WHERE order_summary.updated_at <= EXCLUDED.updated_at
+            """, nativeQuery = true)
+    int applyStatus(@Param("orderId") UUID orderId,
+            @Param("userId") UUID userId,
+            @Param("status") String status,
+            @Param("changedAt") Instant changedAt);
+}
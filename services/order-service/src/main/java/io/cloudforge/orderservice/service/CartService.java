@@ -1,17 +1,27 @@
 package io.cloudforge.orderservice.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.cloudforge.orderservice.client.ProductClient;
 import io.cloudforge.orderservice.client.ProductResponse;
+import io.cloudforge.orderservice.dto.CartItemIssue;
 import io.cloudforge.orderservice.dto.CartItemRequest;
 import io.cloudforge.orderservice.dto.CartResponse;
+import io.cloudforge.orderservice.exception.CartChangedException;
 import io.cloudforge.orderservice.model.Cart;
 import io.cloudforge.orderservice.model.CartItem;
+import io.cloudforge.orderservice.model.CartOwner;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
@@ -20,26 +30,74 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class CartService {
 
+    /*
+     * Folds the guest cart (KEYS[1]) into the user's cart (KEYS[2]) and deletes it,
+     * in one step so a concurrent add on either side cannot be lost. Quantities of
+     * products in both carts are added up; totals are recomputed and then repriced
+     * in Java against current product data.
+     */
+    private static final RedisScript<String> MERGE = new DefaultRedisScript<>("""
+            local guestJson = redis.call('GET', KEYS[1])
+            local userJson = redis.call('GET', KEYS[2])
+            if not guestJson then
+                return userJson
+            end
+            local guest = cjson.decode(guestJson)
+            local cart = userJson and cjson.decode(userJson) or { items = {} }
+            local byProduct = {}
+            for _, item in ipairs(cart.items) do
+                byProduct[item.productId] = item
+            end
+            for _, item in ipairs(guest.items) do
+                local existing = byProduct[item.productId]
+                if existing then
+                    existing.quantity = existing.quantity + item.quantity
+                    if existing.unitPrice ~= cjson.null then
+                        existing.totalPrice = existing.unitPrice * existing.quantity
+                    end
+                else
+                    table.insert(cart.items, item)
+                    byProduct[item.productId] = item
+                end
+            end
+            redis.call('DEL', KEYS[1])
+            if #cart.items == 0 then
+                return userJson
+            end
+            -- Derived getters serialized with the cart; stale after the merge and ignored on read
+            cart.totalAmount = nil
+            cart.itemCount = nil
+            cart.userId = ARGV[1]
+            cart.updatedAt = ARGV[2]
+            local merged = cjson.encode(cart)
+            redis.call('SET', KEYS[2], merged, 'EX', ARGV[3])
+            return merged
+            """, String.class);
+
     private final RedisTemplate<String, Cart> cartRedisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
     private final ProductClient productClient;
-
-    private static final String CART_PREFIX = "cart:";
+    private final CartValidationService cartValidationService;
 
     @Value("${cart.ttl-days:7}")
     private long cartTtlDays;
 
-    public CartResponse getCart(UUID userId) {
-        Cart cart = getOrCreateCart(userId);
-        return CartResponse.fromCart(cart);
+    @Value("${cart.guest-ttl-days:2}")
+    private long guestCartTtlDays;
+
+    public CartResponse getCart(CartOwner owner) {
+        Cart cart = getOrCreateCart(owner);
+        return respond(owner, cart);
     }
 
-    public CartResponse addItem(UUID userId, CartItemRequest request) {
-        log.info("Adding item {} to cart for user {}", request.getProductId(), userId);
+    public CartResponse addItem(CartOwner owner, CartItemRequest request) {
+        log.info("Adding item {} to cart for {}", request.getProductId(), owner);
 
         // Fetch product details from Product Service
         ProductResponse product = productClient.getProduct(request.getProductId());
 
-        Cart cart = getOrCreateCart(userId);
+        Cart cart = getOrCreateCart(owner);
 
         CartItem item = CartItem.builder()
                 .productId(product.getId())
@@ -52,16 +110,16 @@ public class CartService {
                 .build();
 
         cart.addItem(item);
-        saveCart(userId, cart);
+        saveCart(owner, cart);
 
         log.info("Item added to cart. Cart now has {} items", cart.getItemCount());
-        return CartResponse.fromCart(cart);
+        return respond(owner, cart);
     }
 
-    public CartResponse updateItemQuantity(UUID userId, String productId, int quantity) {
-        log.info("Updating quantity for product {} in cart for user {}", productId, userId);
+    public CartResponse updateItemQuantity(CartOwner owner, String productId, int quantity) {
+        log.info("Updating quantity for product {} in cart for {}", productId, owner);
 
-        Cart cart = getOrCreateCart(userId);
+        Cart cart = getOrCreateCart(owner);
 
         if (quantity <= 0) {
             cart.removeItem(productId);
@@ -69,44 +127,102 @@ public class CartService {
             cart.updateItemQuantity(productId, quantity);
         }
 
-        saveCart(userId, cart);
-        return CartResponse.fromCart(cart);
+        saveCart(owner, cart);
+        return respond(owner, cart);
     }
 
-    public CartResponse removeItem(UUID userId, String productId) {
-        log.info("Removing item {} from cart for user {}", productId, userId);
+    public CartResponse removeItem(CartOwner owner, String productId) {
+        log.info("Removing item {} from cart for {}", productId, owner);
 
-        Cart cart = getOrCreateCart(userId);
+        Cart cart = getOrCreateCart(owner);
         cart.removeItem(productId);
-        saveCart(userId, cart);
+        saveCart(owner, cart);
+
+        return respond(owner, cart);
+    }
+
+    public void clearCart(CartOwner owner) {
+        log.info("Clearing cart for {}", owner);
+        cartRedisTemplate.delete(owner.redisKey());
+    }
 
-        return CartResponse.fromCart(cart);
+    /**
+     * Moves everything in a guest cart into the user's cart, typically right after
+     * sign-in. The guest cart is gone afterwards; merging it twice is a no-op.
+     */
+    public CartResponse mergeGuestCart(UUID userId, String guestToken) {
+        CartOwner guest = CartOwner.guest(guestToken);
+        CartOwner user = CartOwner.user(userId);
+
+        String merged = stringRedisTemplate.execute(MERGE,
+                List.of(guest.redisKey(), user.redisKey()),
+                userId.toString(), Instant.now().toString(),
+                Long.toString(TimeUnit.DAYS.toSeconds(cartTtlDays)));
+
+        Cart cart;
+        try {
+            cart = merged != null ? objectMapper.readValue(merged, Cart.class) : Cart.builder().userId(userId).build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Merged cart for user " + userId + " is unreadable", e);
+        }
+        log.info("Merged guest cart into cart of user {}, now {} items", userId, cart.getItemCount());
+        return respond(user, cart);
     }
 
-    public void clearCart(UUID userId) {
-        log.info("Clearing cart for user {}", userId);
-        cartRedisTemplate.delete(CART_PREFIX + userId);
+    /**
+     * Loads the cart for checkout, checked against fresh product data. If any line
+     * changed price or cannot be bought, the repriced cart is saved and returned to
+     * the caller through {@link CartChangedException} instead.
+     */
+    public Cart getCheckoutCart(CartOwner owner) {
+        Cart cart = getOrCreateCart(owner);
+        if (cart.getItems().isEmpty()) {
+            return cart;
+        }
+
+        List<CartItemIssue> issues = cartValidationService.revalidate(cart, true);
+        if (!issues.isEmpty()) {
+            saveCart(owner, cart);
+            throw new CartChangedException(CartResponse.fromCart(cart, issues, true));
+        }
+        return cart;
     }
 
-    public Cart getCartEntity(UUID userId) {
-        return getOrCreateCart(userId);
+    /**
+     * Flags changed lines against recently cached product data. A price change is
+     * reported once: the cart is saved with the new price.
+     */
+    private CartResponse respond(CartOwner owner, Cart cart) {
+        if (cart.getItems().isEmpty()) {
+            return CartResponse.fromCart(cart);
+        }
+        try {
+            List<CartItemIssue> issues = cartValidationService.revalidate(cart, false);
+            if (issues.stream().anyMatch(issue -> issue.getType() == CartItemIssue.Type.PRICE_CHANGED)) {
+                saveCart(owner, cart);
+            }
+            return CartResponse.fromCart(cart, issues, true);
+        } catch (RuntimeException e) {
+            // Still show the cart; checkout re-checks before any order is placed
+            log.warn("Could not check cart of {} against current prices: {}", owner, e.getMessage());
+            return CartResponse.fromCart(cart, List.of(), false);
+        }
     }
 
-    private Cart getOrCreateCart(UUID userId) {
-        String key = CART_PREFIX + userId;
-        Cart cart = cartRedisTemplate.opsForValue().get(key);
+    private Cart getOrCreateCart(CartOwner owner) {
+        Cart cart = cartRedisTemplate.opsForValue().get(owner.redisKey());
 
         if (cart == null) {
             cart = Cart.builder()
-                    .userId(userId)
+                    .userId(owner.userId())
                     .build();
         }
 
         return cart;
     }
 
-    private void saveCart(UUID userId, Cart cart) {
-        String key = CART_PREFIX + userId;
-        cartRedisTemplate.opsForValue().set(key, cart, cartTtlDays, TimeUnit.DAYS);
+    private void saveCart(CartOwner owner, Cart cart) {
+        long ttlDays = owner.isGuest() ? guestCartTtlDays : cartTtlDays;
+        cartRedisTemplate.opsForValue().set(owner.redisKey(), cart, ttlDays, TimeUnit.DAYS);
     }
 }
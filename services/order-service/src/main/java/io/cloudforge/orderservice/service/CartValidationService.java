@@ -0,0 +1,88 @@
+package io.cloudforge.orderservice.service;
+
+import io.cloudforge.orderservice.client.ProductBatchRequest;
+import io.cloudforge.orderservice.client.CachingProductClient;
+import io.cloudforge.orderservice.client.ProductResponse;
+import io.cloudforge.orderservice.dto.CartItemIssue;
+import io.cloudforge.orderservice.model.Cart;
+import io.cloudforge.orderservice.model.CartItem;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks cart lines against current product data.
+ *
+ * Everything a cart needs is looked up in one batch through the product near-cache,
+ * so browsing the cart rarely reaches the product service. Checkout bypasses the
+ * cache so orders are always placed at the current price.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CartValidationService {
+
+    private final CachingProductClient productClient;
+
+    /**
+     * Reprices the cart in place and reports every line that changed or cannot be
+     * bought in the requested quantity.
+     *
+     * @param fresh skip the cache and read current data from the product service
+     */
+    public List<CartItemIssue> revalidate(Cart cart, boolean fresh) {
+        Set<String> productIds = new LinkedHashSet<>();
+        cart.getItems().forEach(item -> productIds.add(item.getProductId()));
+        Map<String, ProductResponse> products = lookup(productIds, fresh);
+
+        List<CartItemIssue> issues = new ArrayList<>();
+        for (CartItem item : cart.getItems()) {
+            ProductResponse product = products.get(item.getProductId());
+            if (product == null || !product.isActive()) {
+                issues.add(issue(item, CartItemIssue.Type.UNAVAILABLE).build());
+                continue;
+            }
+
+            if (product.getPrice() != null && (item.getUnitPrice() == null
+                    || product.getPrice().compareTo(item.getUnitPrice()) != 0)) {
+                issues.add(issue(item, CartItemIssue.Type.PRICE_CHANGED)
+                        .previousPrice(item.getUnitPrice())
+                        .currentPrice(product.getPrice())
+                        .build());
+                item.setUnitPrice(product.getPrice());
+                item.calculateTotal();
+            }
+
+            int available = product.getStock() != null ? product.getStock() : 0;
+            if (available < item.getQuantity()) {
+                issues.add(issue(item, available == 0
+                        ? CartItemIssue.Type.OUT_OF_STOCK
+                        : CartItemIssue.Type.INSUFFICIENT_STOCK)
+                        .availableQuantity(available)
+                        .build());
+            }
+        }
+        return issues;
+    }
+
+    private Map<String, ProductResponse> lookup(Set<String> productIds, boolean fresh) {
+        List<ProductResponse> products = fresh
+                ? productClient.getProductsFresh(productIds)
+                : productClient.getProducts(ProductBatchRequest.builder().ids(new ArrayList<>(productIds)).build());
+
+        Map<String, ProductResponse> byId = new HashMap<>();
+        products.forEach(product -> byId.put(product.getId(), product));
+        return byId;
+    }
+
+    private static CartItemIssue.CartItemIssueBuilder issue(CartItem item, CartItemIssue.Type type) {
+        return CartItemIssue.builder().productId(item.getProductId()).type(type);
+    }
+}
@@ -0,0 +1,233 @@
+package io.cloudforge.orderservice.service;
+
+import io.cloudforge.orderservice.dto.CheckoutTicketResponse;
+import io.cloudforge.orderservice.exception.CheckoutNotAdmittedException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Virtual waiting room in front of checkout for product drops.
+ *
+ * Joining hands out a ticket with the next number from a Redis sequence, so the
+ * queue is FIFO across all instances. Once per second the admission watermark moves
+ * forward by {@code checkout.admission.rate-per-second}; tickets at or below it may
+ * check out within the admission window, counted from the tick that admitted them.
+ * A ticket is used up by a successful checkout; a failed one leaves it valid for
+ * another attempt within the window. Backend load is therefore capped at the
+ * admission rate however many users are waiting, and a user's position is simply
+ * their number minus the watermark.
+ *
+ * All keys share the {@code {queue}} hash tag, so the scripts stay on one slot when
+ * Redis runs as a cluster.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CheckoutAdmissionService {
+
+    private static final String KEY_PREFIX = "checkout:{queue}:";
+    private static final String SEQUENCE_KEY = KEY_PREFIX + "seq";
+    private static final String ADMITTED_KEY = KEY_PREFIX + "admitted";
+    private static final String LAST_TICK_KEY = KEY_PREFIX + "last-tick";
+    // Watermark of each tick that moved it, scored by watermark, with the tick's time in ms as member
+    private static final String ADMISSIONS_KEY = KEY_PREFIX + "admissions";
+    private static final String USER_KEY = KEY_PREFIX + "user:";
+
+    private static final long WAITING = 0L;
+    private static final long UNKNOWN = -1L;
+    private static final long EXPIRED = -2L;
+    private static final long IN_USE = -3L;
+
+    // Returns the caller's ticket, issuing the next number if they do not hold one yet
+    private static final RedisScript<String> JOIN = new DefaultRedisScript<>("""
+            local existing = redis.call('HGET', KEYS[1], 'ticket')
+            if existing then
+                return existing
+            end
+            local number = redis.call('INCR', KEYS[2])
+            redis.call('HSET', KEYS[1], 'ticket', ARGV[1], 'number', number)
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return ARGV[1]
+            """, String.class);
+
+    // Moves the watermark forward at most once per second, whichever instance gets there first,
+    // and records when it passed the tickets it admits
+    private static final RedisScript<Long> ADVANCE = new DefaultRedisScript<>("""
+            local time = redis.call('TIME')
+            local now = tonumber(time[1])
+            local last = tonumber(redis.call('GET', KEYS[3]) or '0')
+            local admitted = tonumber(redis.call('GET', KEYS[2]) or '0')
+            if now <= last then
+                return admitted
+            end
+            redis.call('SET', KEYS[3], now)
+            local issued = tonumber(redis.call('GET', KEYS[1]) or '0')
+            local next = math.min(issued, admitted + tonumber(ARGV[1]))
+            if next > admitted then
+                redis.call('SET', KEYS[2], next)
+                redis.call('ZADD', KEYS[4], next, time[1] .. string.format('%03d', math.floor(tonumber(time[2]) / 1000)))
+                redis.call('ZREMRANGEBYRANK', KEYS[4], 0, -tonumber(ARGV[2]) - 1)
+            end
+            return next
+            """, Long.class);
+
+    // Queue position, 0 if admitted, -1 if unknown, -2 if the admission window has passed,
+    // -3 if another checkout holds the ticket; ARGV[3] = '1' makes the caller the holder
+    private static final RedisScript<Long> STATUS = new DefaultRedisScript<>("""
+            local values = redis.call('HMGET', KEYS[1], 'ticket', 'number', 'checkoutAt')
+            if values[1] ~= ARGV[1] then
+                return -1
+            end
+            local number = tonumber(values[2])
+            local ahead = number - tonumber(redis.call('GET', KEYS[2]) or '0')
+            if ahead > 0 then
+                return ahead
+            end
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local admission = redis.call('ZRANGEBYSCORE', KEYS[3], number, '+inf', 'LIMIT', 0, 1)
+            if not admission[1] or now - tonumber(admission[1]) > tonumber(ARGV[2]) then
+                redis.call('DEL', KEYS[1])
+                return -2
+            end
+            if ARGV[3] == '1' then
+                if values[3] and now - tonumber(values[3]) <= tonumber(ARGV[2]) then
+                    return -3
+                end
+                redis.call('HSET', KEYS[1], 'checkoutAt', now)
+            end
+            return 0
+            """, Long.class);
+
+    // Uses the ticket up after a successful checkout (ARGV[2] = '1'), or frees it for another attempt
+    private static final RedisScript<Long> FINISH = new DefaultRedisScript<>("""
+            if redis.call('HGET', KEYS[1], 'ticket') ~= ARGV[1] then
+                return 0
+            end
+            if ARGV[2] == '1' then
+                return redis.call('DEL', KEYS[1])
+            end
+            return redis.call('HDEL', KEYS[1], 'checkoutAt')
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${checkout.admission.enabled:false}")
+    private boolean enabled;
+
+    @Value("${checkout.admission.rate-per-second:50}")
+    private long ratePerSecond;
+
+    @Value("${checkout.admission.window-ms:120000}")
+    private long admissionWindowMs;
+
+    @Value("${checkout.admission.ticket-ttl-ms:3600000}")
+    private long ticketTtlMs;
+
+    public CheckoutTicketResponse join(UUID userId) {
+        if (!enabled) {
+            return CheckoutTicketResponse.builder().admitted(true).build();
+        }
+        String ticket = redisTemplate.execute(JOIN,
+                List.of(USER_KEY + userId, SEQUENCE_KEY),
+                UUID.randomUUID().toString(), Long.toString(ticketTtlMs));
+        return getStatus(userId, ticket);
+    }
+
+    public CheckoutTicketResponse getStatus(UUID userId, String ticket) {
+        if (!enabled) {
+            return CheckoutTicketResponse.builder().ticket(ticket).admitted(true).build();
+        }
+        long ahead = status(userId, ticket, false);
+        if (ahead == UNKNOWN || ahead == EXPIRED) {
+            throw new CheckoutNotAdmittedException(ahead == UNKNOWN
+                    ? "Unknown checkout ticket, please join the queue again"
+                    : "Your checkout slot has expired, please join the queue again");
+        }
+        return CheckoutTicketResponse.builder()
+                .ticket(ticket)
+                .admitted(ahead == WAITING)
+                .position(ahead)
+                .estimatedWaitSeconds((ahead + ratePerSecond - 1) / ratePerSecond)
+                .build();
+    }
+
+    /**
+     * Runs the checkout if the ticket has been admitted. The ticket is used up only when
+     * the checkout succeeds, and a second checkout with the same ticket is turned away
+     * while the first is running. Runs the checkout directly when admission control is off.
+     */
+    public <T> T checkout(UUID userId, String ticket, Supplier<T> checkout) {
+        if (!enabled) {
+            return checkout.get();
+        }
+        if (ticket == null || ticket.isBlank()) {
+            throw new CheckoutNotAdmittedException("Checkout is queued, join the queue to get a ticket");
+        }
+        long ahead = status(userId, ticket, true);
+        if (ahead == UNKNOWN) {
+            throw new CheckoutNotAdmittedException("Unknown or already used checkout ticket");
+        }
+        if (ahead == EXPIRED) {
+            throw new CheckoutNotAdmittedException("Your checkout slot has expired, please join the queue again");
+        }
+        if (ahead == IN_USE) {
+            throw new CheckoutNotAdmittedException("A checkout with this ticket is already in progress");
+        }
+        if (ahead > WAITING) {
+            throw new CheckoutNotAdmittedException("Not your turn yet, you are number " + ahead + " in the queue");
+        }
+
+        T result;
+        try {
+            result = checkout.get();
+        } catch (RuntimeException e) {
+            finish(userId, ticket, false);
+            throw e;
+        }
+        finish(userId, ticket, true);
+        return result;
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void advance() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Long admitted = redisTemplate.execute(ADVANCE,
+                    List.of(SEQUENCE_KEY, ADMITTED_KEY, LAST_TICK_KEY, ADMISSIONS_KEY),
+                    Long.toString(ratePerSecond), Long.toString(admissionWindowMs / 1000 + 2));
+            log.trace("Checkout queue admitted up to ticket {}", admitted);
+        } catch (DataAccessException e) {
+            log.warn("Could not advance the checkout queue: {}", e.getMessage());
+        }
+    }
+
+    private long status(UUID userId, String ticket, boolean claim) {
+        Long result = redisTemplate.execute(STATUS,
+                List.of(USER_KEY + userId, ADMITTED_KEY, ADMISSIONS_KEY),
+                ticket, Long.toString(admissionWindowMs), claim ? "1" : "0");
+        return result != null ? result : UNKNOWN;
+    }
+
+    private void finish(UUID userId, String ticket, boolean succeeded) {
+        try {
+            redisTemplate.execute(FINISH, List.of(USER_KEY + userId), ticket, succeeded ? "1" : "0");
+        } catch (DataAccessException e) {
+            // The ticket then stays held, and lapses with its admission window
+            log.warn("Could not finish checkout ticket {}: {}", ticket, e.getMessage());
+        }
+    }
+}
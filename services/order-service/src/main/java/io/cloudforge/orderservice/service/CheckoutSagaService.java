@@ -0,0 +1,273 @@
+package io.cloudforge.orderservice.service;
+
+import feign.FeignException;
+import io.cloudforge.orderservice.client.ProductClient;
+import io.cloudforge.orderservice.client.StockReservationRequest;
+import io.cloudforge.orderservice.dto.CheckoutRequest;
+import io.cloudforge.orderservice.dto.OrderResponse;
+import io.cloudforge.orderservice.event.EventPublisher;
+import io.cloudforge.orderservice.event.OrderCancelledEvent;
+import io.cloudforge.orderservice.event.OrderStatusChangedEvent;
+import io.cloudforge.orderservice.exception.CartEmptyException;
+import io.cloudforge.orderservice.exception.InsufficientStockException;
+import io.cloudforge.orderservice.exception.OrderCreationException;
+import io.cloudforge.orderservice.model.*;
+import io.cloudforge.orderservice.repository.CheckoutSagaRepository;
+import io.cloudforge.orderservice.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Orchestrates checkout as a saga: reserve stock, persist the order, wait for the
+ * payment outcome, and hand the stock back if payment fails, times out or the order
+ * is cancelled.
+ *
+ * Every step is recorded in {@code checkout_sagas} with a compare-and-set on the
+ * status, and each local step commits before the next remote call, so no database
+ * transaction is held open across a call to another service. The saga id doubles as
+ * the stock reservation id, which makes reserving and releasing safe to retry.
+ * Payment itself is started asynchronously by the payment service when it sees the
+ * order-created event.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CheckoutSagaService {
+
+    private final CheckoutSagaRepository sagaRepository;
+    private final OrderRepository orderRepository;
+    private final OrderCreatedPublisher orderCreatedPublisher;
+    private final CartService cartService;
+    private final ProductClient productClient;
+    private final EventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${checkout.saga.payment-timeout-ms:900000}")
+    private long paymentTimeoutMs;
+
+    @Value("${checkout.saga.stale-after-ms:300000}")
+    private long staleAfterMs;
+
+    @Value("${checkout.saga.sweep-batch-size:100}")
+    private int sweepBatchSize;
+
+    public OrderResponse checkout(UUID userId, CheckoutRequest request) {
+        log.info("Checking out cart for user: {}", userId);
+
+        Cart cart = cartService.getCheckoutCart(CartOwner.user(userId));
+        if (cart.getItems().isEmpty()) {
+            throw new CartEmptyException();
+        }
+
+        Instant now = Instant.now();
+        CheckoutSaga saga = sagaRepository.save(CheckoutSaga.builder()
+                .id(UUID.randomUUID())
+                .userId(userId)
+                .status(CheckoutSagaStatus.STARTED)
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+        UUID sagaId = saga.getId();
+
+        reserveStock(sagaId, cart);
+        transition(sagaId, CheckoutSagaStatus.STARTED, CheckoutSagaStatus.STOCK_RESERVED, null);
+
+        Order saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                Order order = orderRepository.save(buildOrder(userId, request, cart));
+                Instant at = Instant.now();
+                if (sagaRepository.markPaymentPending(sagaId, order.getId(),
+                        at.plusMillis(paymentTimeoutMs), at) != 1) {
+                    throw new OrderCreationException("Checkout expired, please try again");
+                }
+                return order;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not persist order for checkout {}: {}", sagaId, e.getMessage());
+            abandon(sagaId, CheckoutSagaStatus.STOCK_RESERVED, "Order could not be created: " + e.getMessage());
+            throw e;
+        }
+
+        cartService.clearCart(CartOwner.user(userId));
+        orderCreatedPublisher.publish(saved);
+
+        log.info("Checkout {} placed order {}, awaiting payment", sagaId, saved.getId());
+        return OrderResponse.fromOrder(saved);
+    }
+
+    /**
+     * Advances the sagas of orders whose payment outcome was just applied.
+     */
+    public void onPaymentOutcomes(List<OrderStatusChangedEvent> changes) {
+        Map<OrderStatus, List<UUID>> byStatus = changes.stream()
+                .collect(Collectors.groupingBy(OrderStatusChangedEvent::getStatus,
+                        Collectors.mapping(OrderStatusChangedEvent::getOrderId, Collectors.toList())));
+        Instant now = Instant.now();
+
+        List<UUID> confirmed = byStatus.getOrDefault(OrderStatus.CONFIRMED, List.of());
+        if (!confirmed.isEmpty()) {
+            sagaRepository.transitionByOrderIds(confirmed,
+                    List.of(CheckoutSagaStatus.PAYMENT_PENDING), CheckoutSagaStatus.COMPLETED, now);
+        }
+
+        List<UUID> cancelled = byStatus.getOrDefault(OrderStatus.CANCELLED, List.of());
+        if (!cancelled.isEmpty()) {
+            sagaRepository.transitionByOrderIds(cancelled,
+                    List.of(CheckoutSagaStatus.PAYMENT_PENDING), CheckoutSagaStatus.COMPENSATING, now);
+            // Also picks up sagas left compensating by an earlier delivery of the same batch
+            sagaRepository.findByOrderIdInAndStatus(cancelled, CheckoutSagaStatus.COMPENSATING)
+                    .forEach(this::compensate);
+        }
+    }
+
+    /**
+     * Drives sagas that nobody else will move forward: payments that never arrived,
+     * checkouts abandoned mid-way by a crash, and compensations whose release failed.
+     */
+    @Scheduled(fixedDelayString = "${checkout.saga.sweep-interval-ms:10000}")
+    public void sweep() {
+        Instant now = Instant.now();
+        Pageable batch = PageRequest.of(0, sweepBatchSize);
+
+        sagaRepository.findByStatusAndPaymentDeadlineBefore(CheckoutSagaStatus.PAYMENT_PENDING, now, batch)
+                .forEach(this::expirePayment);
+
+        Instant stale = now.minusMillis(staleAfterMs);
+        for (CheckoutSagaStatus status : List.of(CheckoutSagaStatus.STARTED, CheckoutSagaStatus.STOCK_RESERVED)) {
+            sagaRepository.findByStatusAndUpdatedAtBefore(status, stale, batch)
+                    .forEach(saga -> abandon(saga.getId(), status, "Checkout did not complete"));
+        }
+
+        sagaRepository.findByStatusAndUpdatedAtBefore(CheckoutSagaStatus.COMPENSATING, now, batch)
+                .forEach(this::compensate);
+    }
+
+    private void reserveStock(UUID sagaId, Cart cart) {
+        StockReservationRequest request = StockReservationRequest.builder()
+                .reservationId(sagaId.toString())
+                .items(cart.getItems().stream()
+                        .map(item -> new StockReservationRequest.Item(item.getProductId(), item.getQuantity()))
+                        .toList())
+                .build();
+        try {
+            productClient.reserveStock(request);
+        } catch (FeignException.Conflict e) {
+            // Nothing was taken, so there is nothing to compensate
+            transition(sagaId, CheckoutSagaStatus.STARTED, CheckoutSagaStatus.FAILED, "Insufficient stock");
+            throw new InsufficientStockException();
+        } catch (RuntimeException e) {
+            // The reservation may or may not have been applied
+            log.warn("Stock reservation for checkout {} failed: {}", sagaId, e.getMessage());
+            abandon(sagaId, CheckoutSagaStatus.STARTED, "Stock reservation failed: " + e.getMessage());
+            throw new OrderCreationException("Could not reserve stock, please try again");
+        }
+    }
+
+    private void expirePayment(CheckoutSaga saga) {
+        UUID orderId = saga.getOrderId();
+        Boolean cancelled = transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            if (orderRepository.cancelIfPending(orderId, now) == 1) {
+                sagaRepository.transition(saga.getId(), CheckoutSagaStatus.PAYMENT_PENDING,
+                        CheckoutSagaStatus.COMPENSATING, "Payment timed out", now);
+                return true;
+            }
+            // Paid, or cancelled by the user, after the sweep picked the saga up
+            boolean stillOpen = orderRepository.findById(orderId)
+                    .map(order -> order.getStatus() != OrderStatus.CANCELLED)
+                    .orElse(false);
+            sagaRepository.transition(saga.getId(), CheckoutSagaStatus.PAYMENT_PENDING,
+                    stillOpen ? CheckoutSagaStatus.COMPLETED : CheckoutSagaStatus.COMPENSATING, null, now);
+            return false;
+        });
+
+        if (Boolean.TRUE.equals(cancelled)) {
+            log.info("Payment for order {} timed out, cancelling it", orderId);
+            eventPublisher.publishOrderCancelled(OrderCancelledEvent.builder()
+                    .orderId(orderId)
+                    .userId(saga.getUserId())
+                    .reason("Payment not received in time")
+                    .cancelledAt(Instant.now())
+                    .build());
+        }
+        sagaRepository.findById(saga.getId())
+                .filter(current -> current.getStatus() == CheckoutSagaStatus.COMPENSATING)
+                .ifPresent(this::compensate);
+    }
+
+    private void compensate(CheckoutSaga saga) {
+        try {
+            productClient.releaseReservation(saga.getId().toString());
+        } catch (RuntimeException e) {
+            log.warn("Could not release stock for checkout {}, will retry: {}", saga.getId(), e.getMessage());
+            return;
+        }
+        if (transition(saga.getId(), CheckoutSagaStatus.COMPENSATING, CheckoutSagaStatus.COMPENSATED, null)) {
+            log.info("Released stock for checkout {} (order {})", saga.getId(), saga.getOrderId());
+        }
+    }
+
+    /**
+     * Ends a saga that never produced an order. If the release fails the saga stays
+     * where it is and the sweeper tries again once it is stale.
+     */
+    private void abandon(UUID sagaId, CheckoutSagaStatus from, String reason) {
+        try {
+            productClient.releaseReservation(sagaId.toString());
+        } catch (RuntimeException e) {
+            log.warn("Could not release stock for checkout {}, will retry: {}", sagaId, e.getMessage());
+            return;
+        }
+        transition(sagaId, from, CheckoutSagaStatus.FAILED, reason);
+    }
+
+    private boolean transition(UUID sagaId, CheckoutSagaStatus from, CheckoutSagaStatus to, String reason) {
+        boolean moved = sagaRepository.transition(sagaId, from, to, reason, Instant.now()) == 1;
+        if (!moved) {
+            log.debug("Checkout {} was no longer {} when moving to {}", sagaId, from, to);
+        }
+        return moved;
+    }
+
+    private Order buildOrder(UUID userId, CheckoutRequest request, Cart cart) {
+        Order order = Order.builder()
+                .userId(userId)
+                .shippingAddress(request.getShippingAddress())
+                .shippingCity(request.getShippingCity())
+                .shippingState(request.getShippingState())
+                .shippingZip(request.getShippingZip())
+                .shippingCountry(request.getShippingCountry())
+                .notes(request.getNotes())
+                .status(OrderStatus.PENDING)
+                .totalAmount(BigDecimal.ZERO)
+                .build();
+
+        for (CartItem cartItem : cart.getItems()) {
+            OrderItem orderItem = OrderItem.builder()
+                    .productId(cartItem.getProductId())
+                    .productName(cartItem.getProductName())
+                    .quantity(cartItem.getQuantity())
+                    .unitPrice(cartItem.getUnitPrice())
+                    .build();
+            orderItem.calculateTotalPrice();
+            order.addItem(orderItem);
+        }
+
+        order.calculateTotal();
+        return order;
+    }
+}
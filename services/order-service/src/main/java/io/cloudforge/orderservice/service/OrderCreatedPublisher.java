@@ -0,0 +1,52 @@
+package io.cloudforge.orderservice.service;
+
+import io.cloudforge.events.OrderCreatedEvent;
+import io.cloudforge.events.OrderItemEvent;
+import io.cloudforge.orderservice.client.CoalescingUserClient;
+import io.cloudforge.orderservice.client.UserResponse;
+import io.cloudforge.orderservice.event.EventPublisher;
+import io.cloudforge.orderservice.model.Order;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Announces new orders, enriched with the customer's name and email from the user
+ * service. Callers invoke it once the order has committed and outside any
+ * transaction, so the event never describes an order that is later rolled back and
+ * no database connection is held across the user lookup or the send.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderCreatedPublisher {
+
+    private final CoalescingUserClient userClient;
+    private final EventPublisher eventPublisher;
+
+    public void publish(Order order) {
+        List<OrderItemEvent> itemEvents = order.getItems().stream()
+                .map(item -> OrderItemEvent.builder()
+                        .productId(item.getProductId())
+                        .productName(item.getProductName())
+                        .quantity(item.getQuantity())
+                        .unitPrice(item.getUnitPrice())
+                        .totalPrice(item.getTotalPrice())
+                        .build())
+                .toList();
+
+        UserResponse user = userClient.getUser(order.getUserId()).orElse(null);
+
+        eventPublisher.publishOrderCreated(OrderCreatedEvent.builder()
+                .orderId(order.getId())
+                .userId(order.getUserId())
+                .userEmail(user != null ? user.getEmail() : null)
+                .customerName(user != null ? user.fullName() : null)
+                .totalAmount(order.getTotalAmount())
+                .shippingAddress(order.getShippingAddress())
+                .items(itemEvents)
+                .createdAt(order.getCreatedAt() != null ? order.getCreatedAt() : Instant.now())
+                .build());
+    }
+}
@@ -0,0 +1,53 @@
+package io.cloudforge.orderservice.service;
+
+import io.cloudforge.orderservice.client.CoalescingUserClient;
+import io.cloudforge.orderservice.client.UserResponse;
+import io.cloudforge.orderservice.dto.OrderSummaryResponse;
+import io.cloudforge.orderservice.model.OrderStatus;
+import io.cloudforge.orderservice.repository.OrderSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Read side for order listings, served from the order_summary table so history and
+ * dashboard traffic never touches orders/order_items. The projection is eventually
+ * consistent: a freshly placed order shows up once its event has been consumed.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class OrderQueryService {
+
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final CoalescingUserClient userClient;
+
+    public Page<OrderSummaryResponse> getUserOrders(UUID userId, Pageable pageable) {
+        return orderSummaryRepository.findByUserId(userId, pageable)
+                .map(OrderSummaryResponse::fromSummary);
+    }
+
+    public Page<OrderSummaryResponse> getOrdersByStatus(OrderStatus status, Pageable pageable) {
+        Page<OrderSummaryResponse> orders = orderSummaryRepository.findByStatus(status, pageable)
+                .map(OrderSummaryResponse::fromSummary);
+
+        // Customer details normally come from the created event; fill any gaps with one batched lookup
+        Map<UUID, UserResponse> users = userClient.getUsers(orders.stream()
+                .filter(order -> order.getCustomerEmail() == null)
+                .map(OrderSummaryResponse::getUserId)
+                .toList());
+        orders.forEach(order -> {
+            UserResponse user = users.get(order.getUserId());
+            if (user != null) {
+                order.setCustomerName(user.fullName());
+                order.setCustomerEmail(user.getEmail());
+            }
+        });
+        return orders;
+    }
+}
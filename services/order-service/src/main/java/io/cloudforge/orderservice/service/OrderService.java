@@ -1,29 +1,29 @@
 package io.cloudforge.orderservice.service;
 
-import io.cloudforge.orderservice.client.ProductClient;
+import io.cloudforge.orderservice.client.CachingProductClient;
 import io.cloudforge.orderservice.client.ProductResponse;
-import io.cloudforge.orderservice.client.StockRequest;
 import io.cloudforge.orderservice.dto.*;
 import io.cloudforge.orderservice.event.EventPublisher;
-import io.cloudforge.orderservice.event.OrderCreatedEvent;
 import io.cloudforge.orderservice.event.OrderCancelledEvent;
-import io.cloudforge.orderservice.event.OrderItemEvent;
-import io.cloudforge.orderservice.exception.CartEmptyException;
+import io.cloudforge.orderservice.event.OrderStatusChangedEvent;
 import io.cloudforge.orderservice.exception.OrderCreationException;
 import io.cloudforge.orderservice.exception.OrderNotFoundException;
 import io.cloudforge.orderservice.model.*;
+import io.cloudforge.orderservice.repository.CheckoutSagaRepository;
 import io.cloudforge.orderservice.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -32,16 +32,35 @@ import java.util.UUID;
 public class OrderService {
 
     private final OrderRepository orderRepository;
-    private final CartService cartService;
-    private final ProductClient productClient;
+    private final CheckoutSagaRepository checkoutSagaRepository;
+    private final CachingProductClient productClient;
     private final EventPublisher eventPublisher;
-
+    private final OrderCreatedPublisher orderCreatedPublisher;
+
+    /**
+     * Places an order at current prices. Runs outside a transaction: the product
+     * lookup and the event are remote calls, and only the save, in its own
+     * transaction, touches the database. The event goes out once the order has
+     * committed.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public OrderResponse createOrder(UUID userId, OrderRequest request) {
         log.info("Creating order for user: {}", userId);
 
-        // Validate and get products
+        // Validate and get products, fresh and in one call, since the order is placed at these prices
+        Map<String, ProductResponse> productsById = productClient.getProductsFresh(request.getItems().stream()
+                        .map(OrderItemRequest::getProductId)
+                        .toList())
+                .stream()
+                .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
         List<ProductResponse> products = request.getItems().stream()
-                .map(item -> productClient.getProduct(item.getProductId()))
+                .map(item -> {
+                    ProductResponse product = productsById.get(item.getProductId());
+                    if (product == null) {
+                        throw new OrderCreationException("Product not found: " + item.getProductId());
+                    }
+                    return product;
+                })
                 .toList();
 
         // Create order
@@ -75,60 +94,12 @@ public class OrderService {
         order.calculateTotal();
         Order saved = orderRepository.save(order);
 
-        // Publish event
-        publishOrderCreatedEvent(saved);
+        orderCreatedPublisher.publish(saved);
 
         log.info("Order created successfully: {}", saved.getId());
         return OrderResponse.fromOrder(saved);
     }
 
-    public OrderResponse checkoutCart(UUID userId, CheckoutRequest request) {
-        log.info("Checking out cart for user: {}", userId);
-
-        Cart cart = cartService.getCartEntity(userId);
-
-        if (cart.getItems().isEmpty()) {
-            throw new CartEmptyException();
-        }
-
-        // Create order from cart
-        Order order = Order.builder()
-                .userId(userId)
-                .shippingAddress(request.getShippingAddress())
-                .shippingCity(request.getShippingCity())
-                .shippingState(request.getShippingState())
-                .shippingZip(request.getShippingZip())
-                .shippingCountry(request.getShippingCountry())
-                .notes(request.getNotes())
-                .status(OrderStatus.PENDING)
-                .totalAmount(BigDecimal.ZERO)
-                .build();
-
-        // Convert cart items to order items
-        for (CartItem cartItem : cart.getItems()) {
-            OrderItem orderItem = OrderItem.builder()
-                    .productId(cartItem.getProductId())
-                    .productName(cartItem.getProductName())
-                    .quantity(cartItem.getQuantity())
-                    .unitPrice(cartItem.getUnitPrice())
-                    .build();
-            orderItem.calculateTotalPrice();
-            order.addItem(orderItem);
-        }
-
-        order.calculateTotal();
-        Order saved = orderRepository.save(order);
-
-        // Clear the cart
-        cartService.clearCart(userId);
-
-        // Publish event
-        publishOrderCreatedEvent(saved);
-
-        log.info("Checkout completed. Order ID: {}", saved.getId());
-        return OrderResponse.fromOrder(saved);
-    }
-
     @Transactional(readOnly = true)
     public OrderResponse getOrder(UUID orderId) {
         Order order = orderRepository.findById(orderId)
@@ -136,6 +107,15 @@ public class OrderService {
         return OrderResponse.fromOrder(order);
     }
 
+    /**
+     * When the user's order last changed, or null if there is no such order. Lets
+     * status polls be answered without loading the order and its items.
+     */
+    @Transactional(readOnly = true)
+    public Instant getOrderUpdatedAt(UUID orderId, UUID userId) {
+        return orderRepository.findUpdatedAtByIdAndUserId(orderId, userId).orElse(null);
+    }
+
     @Transactional(readOnly = true)
     public OrderResponse getOrderForUser(UUID orderId, UUID userId) {
         Order order = orderRepository.findByIdAndUserId(orderId, userId)
@@ -143,18 +123,6 @@ public class OrderService {
         return OrderResponse.fromOrder(order);
     }
 
-    @Transactional(readOnly = true)
-    public Page<OrderResponse> getUserOrders(UUID userId, Pageable pageable) {
-        return orderRepository.findByUserId(userId, pageable)
-                .map(OrderResponse::fromOrder);
-    }
-
-    @Transactional(readOnly = true)
-    public Page<OrderResponse> getOrdersByStatus(OrderStatus status, Pageable pageable) {
-        return orderRepository.findByStatus(status, pageable)
-                .map(OrderResponse::fromOrder);
-    }
-
     public OrderResponse cancelOrder(UUID orderId, UUID userId, String reason) {
         log.info("Cancelling order {} for user {}", orderId, userId);
 
@@ -168,6 +136,11 @@ public class OrderService {
         order.setStatus(OrderStatus.CANCELLED);
         Order saved = orderRepository.save(order);
 
+        // Stock held by the checkout is handed back by the saga sweeper once this commits
+        checkoutSagaRepository.transitionByOrderIds(List.of(orderId),
+                List.of(CheckoutSagaStatus.PAYMENT_PENDING, CheckoutSagaStatus.COMPLETED),
+                CheckoutSagaStatus.COMPENSATING, Instant.now());
+
         // Publish cancellation event
         eventPublisher.publishOrderCancelled(OrderCancelledEvent.builder()
                 .orderId(order.getId())
@@ -186,32 +159,20 @@ public class OrderService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new OrderNotFoundException(orderId));
 
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(newStatus);
         Order saved = orderRepository.save(order);
 
-        return OrderResponse.fromOrder(saved);
-    }
-
-    private void publishOrderCreatedEvent(Order order) {
-        List<OrderItemEvent> itemEvents = order.getItems().stream()
-                .map(item -> OrderItemEvent.builder()
-                        .productId(item.getProductId())
-                        .productName(item.getProductName())
-                        .quantity(item.getQuantity())
-                        .unitPrice(item.getUnitPrice())
-                        .totalPrice(item.getTotalPrice())
-                        .build())
-                .toList();
-
-        OrderCreatedEvent event = OrderCreatedEvent.builder()
-                .orderId(order.getId())
-                .userId(order.getUserId())
-                .totalAmount(order.getTotalAmount())
-                .shippingAddress(order.getShippingAddress())
-                .items(itemEvents)
-                .createdAt(Instant.now())
-                .build();
+        if (previousStatus != newStatus) {
+            eventPublisher.publishOrderStatusChanged(OrderStatusChangedEvent.builder()
+                    .orderId(saved.getId())
+                    .userId(saved.getUserId())
+                    .previousStatus(previousStatus)
+                    .status(newStatus)
+                    .changedAt(Instant.now())
+                    .build());
+        }
 
-        eventPublisher.publishOrderCreated(event);
+        return OrderResponse.fromOrder(saved);
     }
 }
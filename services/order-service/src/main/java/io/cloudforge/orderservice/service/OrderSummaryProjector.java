@@ -0,0 +1,89 @@
+package io.cloudforge.orderservice.service;
+
+import io.cloudforge.events.OrderCreatedEvent;
+import io.cloudforge.events.OrderItemEvent;
+import io.cloudforge.orderservice.event.OrderCancelledEvent;
+import io.cloudforge.orderservice.event.OrderStatusChangedEvent;
+import io.cloudforge.orderservice.model.OrderStatus;
+import io.cloudforge.orderservice.repository.OrderSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Maintains the order_summary read model from the order topics.
+ *
+ * Runs in its own consumer group so it can lag, replay or be scaled without
+ * touching the write path. Every handler is an idempotent upsert, so redeliveries
+ * are harmless and the table can be rebuilt by resetting the group's offsets.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderSummaryProjector {
+
+    private final OrderSummaryRepository orderSummaryRepository;
+
+    @KafkaListener(topics = "${kafka.topics.order-created}", groupId = "${order-summary.consumer-group}",
+            containerFactory = "orderCreatedSummaryListenerFactory")
+    @Transactional
+    public void onOrderCreated(OrderCreatedEvent event) {
+        int itemCount = itemCount(event);
+
+        orderSummaryRepository.upsertCreated(
+                event.getOrderId(),
+                event.getUserId(),
+                OrderStatus.PENDING.name(),
+                event.getTotalAmount(),
+                itemCount,
+                event.getCustomerName(),
+                event.getUserEmail(),
+                event.getCreatedAt() != null ? event.getCreatedAt() : Instant.now());
+        log.debug("Order summary recorded for order {}", event.getOrderId());
+    }
+
+    @KafkaListener(topics = "${kafka.topics.order-cancelled}", groupId = "${order-summary.consumer-group}",
+            containerFactory = "orderCancelledSummaryListenerFactory")
+    @Transactional
+    public void onOrderCancelled(OrderCancelledEvent event) {
+        applyStatus(event.getOrderId(), event.getUserId(), OrderStatus.CANCELLED, event.getCancelledAt());
+    }
+
+    @KafkaListener(topics = "${kafka.topics.order-updated}", groupId = "${order-summary.consumer-group}",
+            containerFactory = "orderStatusSummaryListenerFactory")
+    @Transactional
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        applyStatus(event.getOrderId(), event.getUserId(), event.getStatus(), event.getChangedAt());
+    }
+
+    /**
+     * Lines without a quantity count as zero; the summary is still recorded.
+     */
+    private static int itemCount(OrderCreatedEvent event) {
+        if (event.getItems() == null) {
+            return 0;
+        }
+        int count = 0;
+        for (OrderItemEvent item : event.getItems()) {
+            if (item == null || item.getQuantity() == null) {
+                log.warn("Order {} has a line without a quantity, counting it as 0", event.getOrderId());
+                continue;
+            }
+            count += item.getQuantity();
+        }
+        return count;
+    }
+
+    private void applyStatus(UUID orderId, UUID userId, OrderStatus status, Instant changedAt) {
+        int updated = orderSummaryRepository.applyStatus(orderId, userId, status.name(),
+                changedAt != null ? changedAt : Instant.now());
+        if (updated == 0) {
+            log.debug("Ignored stale {} status for order {}", status, orderId);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.cloudforge.orderservice.service;
+
+import io.cloudforge.orderservice.event.OrderStatusChangedEvent;
+import io.cloudforge.orderservice.model.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Applies payment outcomes to orders in bulk: one UPDATE per target status for a
+ * whole batch of events instead of a load-and-save per order.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentOutcomeService {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Moves PENDING orders to their target status.
+     *
+     * Orders already in the target status are returned as well, with their original
+     * transition time, so a redelivered batch republishes the same events instead of
+     * losing them. Orders that have moved on (cancelled by the user, shipped, ...) are
+     * left untouched and not returned; {@link #findCancelled} picks out the cancelled
+     * ones among those whose payment went through.
+     *
+     * @return one status change per order now in its target status
+     */
+    @Transactional
+    public List<OrderStatusChangedEvent> apply(Map<UUID, OrderStatus> outcomes) {
+        Map<OrderStatus, List<UUID>> byTarget = new EnumMap<>(OrderStatus.class);
+        outcomes.forEach((orderId, target) -> byTarget.computeIfAbsent(target, t -> new ArrayList<>()).add(orderId));
+
+        List<OrderStatusChangedEvent> changes = new ArrayList<>();
+        byTarget.forEach((target, orderIds) -> changes.addAll(transition(orderIds, target)));
+
+        log.debug("Applied {} payment outcomes, {} orders in their target status", outcomes.size(), changes.size());
+        return changes;
+    }
+
+    /**
+     * The orders among {@code orderIds} that are cancelled. A payment completing for
+     * one of them charged the customer for an order that will not ship.
+     */
+    @Transactional(readOnly = true)
+    public List<UUID> findCancelled(Collection<UUID> orderIds) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList("SELECT id FROM orders WHERE id IN (:ids) AND status = :cancelled",
+                new MapSqlParameterSource()
+                        .addValue("ids", orderIds)
+                        .addValue("cancelled", OrderStatus.CANCELLED.name()),
+                UUID.class);
+    }
+
+    private List<OrderStatusChangedEvent> transition(List<UUID> orderIds, OrderStatus target) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", orderIds)
+                .addValue("target", target.name())
+                .addValue("pending", OrderStatus.PENDING.name())
+                .addValue("now", Timestamp.from(Instant.now()));
+
+        return jdbcTemplate.query("""
+                UPDATE orders
+                SET status = :target,
+                    updated_at = CASE WHEN status = :target AND updated_at IS NOT NULL
+                                      THEN updated_at ELSE :now END
+                WHERE id IN (:ids) AND status IN (:pending, :target)
+                RETURNING id, user_id, updated_at
+                """, params, (rs, rowNum) -> OrderStatusChangedEvent.builder()
+                .orderId(rs.getObject("id", UUID.class))
+                .userId(rs.getObject("user_id", UUID.class))
+                .previousStatus(OrderStatus.PENDING)
+                .status(target)
+                .changedAt(rs.getTimestamp("updated_at").toInstant())
+                .build());
+    }
+}
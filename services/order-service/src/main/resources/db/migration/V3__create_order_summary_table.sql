@@ -0,0 +1,26 @@
+-- V3__create_order_summary_table.sql
+-- Denormalized read model for order history and admin dashboards.
+-- Maintained from the order events, never written by the checkout path directly.
+CREATE TABLE order_summary (
+    order_id UUID PRIMARY KEY,
+    user_id UUID NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    -- Null only while a status event has overtaken the created event
+    total_amount DECIMAL(10,2),
+    item_count INTEGER NOT NULL DEFAULT 0,
+    customer_name VARCHAR(255),
+    customer_email VARCHAR(255),
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_order_summary_user_created ON order_summary(user_id, created_at DESC);
+CREATE INDEX idx_order_summary_status_created ON order_summary(status, created_at DESC);
+
+-- Backfill existing orders
+INSERT INTO order_summary (order_id, user_id, status, total_amount, item_count, created_at, updated_at)
+SELECT o.id, o.user_id, COALESCE(o.status, 'PENDING'), o.total_amount, COALESCE(SUM(i.quantity), 0),
+       o.created_at, COALESCE(o.updated_at, o.created_at, CURRENT_TIMESTAMP)
+FROM orders o
+LEFT JOIN order_items i ON i.order_id = o.id
+GROUP BY o.id;
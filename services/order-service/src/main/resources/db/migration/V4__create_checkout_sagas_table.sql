@@ -0,0 +1,15 @@
+-- V4__create_checkout_sagas_table.sql
+-- Persisted state of in-flight checkouts so they can be resumed or compensated after a restart.
+CREATE TABLE checkout_sagas (
+    id UUID PRIMARY KEY,
+    user_id UUID NOT NULL,
+    order_id UUID,
+    status VARCHAR(30) NOT NULL,
+    failure_reason TEXT,
+    payment_deadline TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE UNIQUE INDEX idx_checkout_sagas_order_id ON checkout_sagas(order_id);
+CREATE INDEX idx_checkout_sagas_status_updated ON checkout_sagas(status, updated_at);
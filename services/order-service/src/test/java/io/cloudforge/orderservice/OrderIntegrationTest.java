@@ -2,22 +2,27 @@ package io.cloudforge.orderservice;
 
 import io.cloudforge.orderservice.client.ProductClient;
 import io.cloudforge.orderservice.client.ProductResponse;
+import io.cloudforge.orderservice.client.UserClient;
 import io.cloudforge.orderservice.dto.OrderItemRequest;
 import io.cloudforge.orderservice.dto.OrderRequest;
 import io.cloudforge.orderservice.model.Order;
 import io.cloudforge.orderservice.model.OrderStatus;
 import io.cloudforge.orderservice.repository.OrderRepository;
+import io.cloudforge.orderservice.service.OrderCreatedPublisher;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.testcontainers.containers.KafkaContainer;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
@@ -28,8 +33,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -55,9 +64,17 @@ class OrderIntegrationTest {
         @Autowired
         private ObjectMapper objectMapper;
 
+        // Mocks the remote client behind the near-cache, which stays real
         @MockBean
+        @Qualifier("productFeignClient")
         private ProductClient productClient;
 
+        @MockBean
+        private UserClient userClient;
+
+        @SpyBean
+        private OrderCreatedPublisher orderCreatedPublisher;
+
         @DynamicPropertySource
         static void configureProperties(DynamicPropertyRegistry registry) {
                 registry.add("spring.datasource.url", postgres::getJdbcUrl);
@@ -90,7 +107,13 @@ class OrderIntegrationTest {
                                 .price(BigDecimal.valueOf(100.00))
                                 .build();
 
-                when(productClient.getProduct(productId)).thenReturn(productResponse);
+                when(productClient.getProducts(any())).thenReturn(List.of(productResponse));
+                // The event must only go out once the order has committed
+                AtomicBoolean publishedInTransaction = new AtomicBoolean();
+                doAnswer(invocation -> {
+                        publishedInTransaction.set(TransactionSynchronizationManager.isActualTransactionActive());
+                        return invocation.callRealMethod();
+                }).when(orderCreatedPublisher).publish(any());
 
                 mockMvc.perform(post("/api/orders")
                                 .header("X-User-Id", userId.toString())
@@ -104,5 +127,6 @@ class OrderIntegrationTest {
                 List<Order> orders = orderRepository.findAll();
                 assertEquals(1, orders.size());
                 assertEquals(OrderStatus.PENDING, orders.get(0).getStatus());
+                assertFalse(publishedInTransaction.get());
         }
 }
@@ -0,0 +1,81 @@
+package io.cloudforge.orderservice.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingProductClientTest {
+
+    private final ProductClient delegate = mock(ProductClient.class);
+    private CachingProductClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = new CachingProductClient(delegate, 1);
+        ReflectionTestUtils.setField(client, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(client, "maxStaleMs", 120_000L);
+        ReflectionTestUtils.setField(client, "maxEntries", 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+    }
+
+    @Test
+    void unknownSingleIdIsLeftOutOfBatchLookup() {
+        when(delegate.getProducts(any())).thenReturn(List.of());
+
+        List<ProductResponse> products = client.getProducts(ProductBatchRequest.builder()
+                .ids(List.of("missing"))
+                .build());
+
+        assertTrue(products.isEmpty());
+        verify(delegate, never()).getProduct(anyString());
+    }
+
+    @Test
+    void singleLookupUsesBatchEndpointAndCaches() {
+        when(delegate.getProducts(any())).thenReturn(List.of(product("p1")));
+
+        assertEquals("p1", client.getProduct("p1").getId());
+        assertEquals("p1", client.getProduct("p1").getId());
+
+        verify(delegate, times(1)).getProducts(any());
+        verify(delegate, never()).getProduct(anyString());
+    }
+
+    @Test
+    void freshLookupBypassesCache() {
+        when(delegate.getProducts(any())).thenReturn(List.of(product("p1")));
+
+        client.getProduct("p1");
+        client.getProductsFresh(List.of("p1"));
+
+        verify(delegate, times(2)).getProducts(any());
+    }
+
+    private static ProductResponse product(String id) {
+        return ProductResponse.builder()
+                .id(id)
+                .name("Product " + id)
+                .price(BigDecimal.TEN)
+                .stock(5)
+                .active(true)
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package io.cloudforge.orderservice.client;
+
+import feign.FeignException;
+import feign.Request;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CoalescingUserClientTest {
+
+    private final UserClient userClient = mock(UserClient.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CoalescingUserClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = new CoalescingUserClient(userClient, meterRegistry);
+        ReflectionTestUtils.setField(client, "batchWindowMs", 1L);
+        ReflectionTestUtils.setField(client, "maxBatchSize", 200);
+        ReflectionTestUtils.setField(client, "timeoutMs", 2000L);
+        ReflectionTestUtils.setField(client, "cacheTtlMs", 60_000L);
+        ReflectionTestUtils.setField(client, "cacheMaxEntries", 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+    }
+
+    @Test
+    void rejectedServiceCredentialsAreCountedAndNotCached() {
+        UUID id = UUID.randomUUID();
+        when(userClient.getUsers(any())).thenThrow(new FeignException.Forbidden("Forbidden",
+                Request.create(Request.HttpMethod.POST, "/api/users/batch", Map.of(), null,
+                        StandardCharsets.UTF_8, null), null, Map.of()));
+
+        assertTrue(client.getUser(id).isEmpty());
+        assertTrue(client.getUser(id).isEmpty());
+
+        // Not cached as "user not found": the second call went to user-service again
+        verify(userClient, times(2)).getUsers(any());
+        assertEquals(2.0, meterRegistry.get("user.lookup.failures").tag("reason", "auth").counter().count());
+    }
+
+    @Test
+    void resolvedUsersAreCached() {
+        UUID id = UUID.randomUUID();
+        UserResponse user = new UserResponse();
+        user.setId(id);
+        when(userClient.getUsers(any())).thenReturn(List.of(user));
+
+        assertEquals(id, client.getUser(id).orElseThrow().getId());
+        assertEquals(id, client.getUser(id).orElseThrow().getId());
+
+        verify(userClient, times(1)).getUsers(any());
+    }
+}
@@ -0,0 +1,70 @@
+package io.cloudforge.orderservice.controller;
+
+import io.cloudforge.orderservice.dto.OrderResponse;
+import io.cloudforge.orderservice.service.OrderQueryService;
+import io.cloudforge.orderservice.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class OrderControllerTest {
+
+    private final OrderService orderService = mock(OrderService.class);
+    private final OrderQueryService orderQueryService = mock(OrderQueryService.class);
+    private final MockMvc mockMvc = MockMvcBuilders
+            .standaloneSetup(new OrderController(orderService, orderQueryService))
+            .build();
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID orderId = UUID.randomUUID();
+    private final Instant updatedAt = Instant.parse("2026-10-01T10:15:30.123Z");
+
+    @Test
+    void unchangedOrderIsNotModifiedWithoutBeingLoaded() throws Exception {
+        when(orderService.getOrderUpdatedAt(orderId, userId)).thenReturn(updatedAt);
+        when(orderService.getOrderForUser(orderId, userId))
+                .thenReturn(OrderResponse.builder().id(orderId).updatedAt(updatedAt).build());
+
+        String etag = mockMvc.perform(get("/api/orders/{id}", orderId).header("X-User-Id", userId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/orders/{id}", orderId)
+                        .header("X-User-Id", userId.toString())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(orderService, times(1)).getOrderForUser(orderId, userId);
+    }
+
+    @Test
+    void changedOrderIsSentAgain() throws Exception {
+        when(orderService.getOrderUpdatedAt(orderId, userId)).thenReturn(updatedAt);
+        when(orderService.getOrderForUser(orderId, userId))
+                .thenReturn(OrderResponse.builder().id(orderId).updatedAt(updatedAt).build());
+        String etag = mockMvc.perform(get("/api/orders/{id}", orderId).header("X-User-Id", userId.toString()))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        when(orderService.getOrderUpdatedAt(orderId, userId)).thenReturn(updatedAt.plusMillis(1));
+
+        mockMvc.perform(get("/api/orders/{id}", orderId)
+                        .header("X-User-Id", userId.toString())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,100 @@
+package io.cloudforge.orderservice.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.cloudforge.events.PaymentCompletedEvent;
+import io.cloudforge.events.codec.EventCodec;
+import io.cloudforge.orderservice.model.OrderStatus;
+import io.cloudforge.orderservice.service.CheckoutSagaService;
+import io.cloudforge.orderservice.service.PaymentOutcomeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentEventConsumerTest {
+
+    private static final String COMPLETED_TOPIC = "cloudforge.payments.completed";
+
+    private final PaymentOutcomeService paymentOutcomeService = mock(PaymentOutcomeService.class);
+    private final CheckoutSagaService checkoutSagaService = mock(CheckoutSagaService.class);
+    private final EventPublisher eventPublisher = mock(EventPublisher.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PaymentEventConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new PaymentEventConsumer(paymentOutcomeService, checkoutSagaService, eventPublisher,
+                new ObjectMapper().findAndRegisterModules(), meterRegistry);
+        ReflectionTestUtils.setField(consumer, "paymentCompletedTopic", COMPLETED_TOPIC);
+        ReflectionTestUtils.setField(consumer, "publishTimeoutMs", 1_000L);
+        when(eventPublisher.publishOrderStatusChanged(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(eventPublisher.publishPaymentReconciliation(any())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @Test
+    void paymentForCancelledOrderIsReportedForRefund() {
+        UUID orderId = UUID.randomUUID();
+        PaymentCompletedEvent payment = completed(orderId);
+        when(paymentOutcomeService.apply(Map.of(orderId, OrderStatus.CONFIRMED))).thenReturn(List.of());
+        when(paymentOutcomeService.findCancelled(List.of(orderId))).thenReturn(List.of(orderId));
+
+        consumer.onPaymentEvents(List.of(record(payment)));
+
+        ArgumentCaptor<PaymentReconciliationEvent> captor = ArgumentCaptor.forClass(PaymentReconciliationEvent.class);
+        verify(eventPublisher).publishPaymentReconciliation(captor.capture());
+        assertEquals(orderId, captor.getValue().getOrderId());
+        assertEquals(payment.getPaymentId(), captor.getValue().getPaymentId());
+        assertEquals(0, payment.getAmount().compareTo(captor.getValue().getAmount()));
+        assertEquals(1, meterRegistry.get("orders.payment.after-cancel").counter().count());
+    }
+
+    @Test
+    void appliedPaymentNeedsNoReconciliation() {
+        UUID orderId = UUID.randomUUID();
+        OrderStatusChangedEvent change = OrderStatusChangedEvent.builder()
+                .orderId(orderId)
+                .userId(UUID.randomUUID())
+                .previousStatus(OrderStatus.PENDING)
+                .status(OrderStatus.CONFIRMED)
+                .changedAt(Instant.now())
+                .build();
+        when(paymentOutcomeService.apply(Map.of(orderId, OrderStatus.CONFIRMED))).thenReturn(List.of(change));
+
+        consumer.onPaymentEvents(List.of(record(completed(orderId))));
+
+        verify(eventPublisher).publishOrderStatusChanged(change);
+        verify(eventPublisher, never()).publishPaymentReconciliation(any());
+        verify(checkoutSagaService).onPaymentOutcomes(List.of(change));
+    }
+
+    private static PaymentCompletedEvent completed(UUID orderId) {
+        return PaymentCompletedEvent.builder()
+                .paymentId(UUID.randomUUID())
+                .orderId(orderId)
+                .userId(UUID.randomUUID())
+                .amount(new BigDecimal("499.00"))
+                .currency("INR")
+                .completedAt(Instant.now())
+                .build();
+    }
+
+    private static ConsumerRecord<String, byte[]> record(PaymentCompletedEvent event) {
+        return new ConsumerRecord<>(COMPLETED_TOPIC, 0, 0, event.getOrderId().toString(), EventCodec.encode(event));
+    }
+}
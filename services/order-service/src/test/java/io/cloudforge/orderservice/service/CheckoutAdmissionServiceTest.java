@@ -0,0 +1,130 @@
+package io.cloudforge.orderservice.service;
+
+import io.cloudforge.orderservice.dto.CheckoutTicketResponse;
+import io.cloudforge.orderservice.exception.CheckoutNotAdmittedException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Testcontainers
+class CheckoutAdmissionServiceTest {
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private StringRedisTemplate redisTemplate;
+    private CheckoutAdmissionService admissionService;
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+
+        admissionService = new CheckoutAdmissionService(redisTemplate);
+        ReflectionTestUtils.setField(admissionService, "enabled", true);
+        ReflectionTestUtils.setField(admissionService, "ratePerSecond", 50L);
+        ReflectionTestUtils.setField(admissionService, "admissionWindowMs", 120_000L);
+        ReflectionTestUtils.setField(admissionService, "ticketTtlMs", 3_600_000L);
+    }
+
+    @Test
+    void ticketWaitsUntilTheWatermarkPassesIt() {
+        CheckoutTicketResponse joined = admissionService.join(userId);
+        assertFalse(joined.isAdmitted());
+        assertEquals(1, joined.getPosition());
+        assertThrows(CheckoutNotAdmittedException.class,
+                () -> admissionService.checkout(userId, joined.getTicket(), () -> "order"));
+
+        admissionService.advance();
+
+        assertTrue(admissionService.getStatus(userId, joined.getTicket()).isAdmitted());
+        assertEquals(1, redisTemplate.opsForZSet().size("checkout:{queue}:admissions"));
+    }
+
+    @Test
+    void joiningTwiceKeepsTheTicket() {
+        String ticket = admissionService.join(userId).getTicket();
+
+        assertEquals(ticket, admissionService.join(userId).getTicket());
+        assertEquals(2, admissionService.join(UUID.randomUUID()).getPosition());
+    }
+
+    @Test
+    void failedCheckoutKeepsTheTicket() {
+        String ticket = admittedTicket();
+
+        assertThrows(IllegalStateException.class, () -> admissionService.checkout(userId, ticket, () -> {
+            throw new IllegalStateException("Out of stock");
+        }));
+
+        assertEquals("order", admissionService.checkout(userId, ticket, () -> "order"));
+        assertThrows(CheckoutNotAdmittedException.class,
+                () -> admissionService.checkout(userId, ticket, () -> "order"));
+    }
+
+    @Test
+    void ticketHoldsOneCheckoutAtATime() {
+        String ticket = admittedTicket();
+
+        CheckoutNotAdmittedException inner = assertThrows(CheckoutNotAdmittedException.class,
+                () -> admissionService.checkout(userId, ticket,
+                        () -> admissionService.checkout(userId, ticket, () -> "second")));
+
+        assertTrue(inner.getMessage().contains("already in progress"));
+        assertEquals("order", admissionService.checkout(userId, ticket, () -> "order"));
+    }
+
+    @Test
+    void windowCountsFromAdmissionNotFromFirstPoll() throws InterruptedException {
+        ReflectionTestUtils.setField(admissionService, "admissionWindowMs", 50L);
+        String ticket = admissionService.join(userId).getTicket();
+        admissionService.advance();
+
+        // Never polled while admitted
+        Thread.sleep(200);
+
+        assertThrows(CheckoutNotAdmittedException.class,
+                () -> admissionService.checkout(userId, ticket, () -> "order"));
+    }
+
+    @Test
+    void checkoutRunsDirectlyWhenDisabled() {
+        ReflectionTestUtils.setField(admissionService, "enabled", false);
+
+        assertEquals("order", admissionService.checkout(userId, null, () -> "order"));
+    }
+
+    private String admittedTicket() {
+        String ticket = admissionService.join(userId).getTicket();
+        admissionService.advance();
+        return ticket;
+    }
+}
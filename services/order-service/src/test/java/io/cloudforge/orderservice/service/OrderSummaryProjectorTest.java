@@ -0,0 +1,107 @@
+package io.cloudforge.orderservice.service;
+
+import io.cloudforge.events.OrderCreatedEvent;
+import io.cloudforge.events.OrderItemEvent;
+import io.cloudforge.events.kafka.EventDeserializer;
+import io.cloudforge.orderservice.config.KafkaConfig;
+import io.cloudforge.orderservice.event.OrderCancelledEvent;
+import io.cloudforge.orderservice.event.OrderStatusChangedEvent;
+import io.cloudforge.orderservice.model.OrderStatus;
+import io.cloudforge.orderservice.repository.OrderSummaryRepository;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class OrderSummaryProjectorTest {
+
+    private final OrderSummaryRepository orderSummaryRepository = mock(OrderSummaryRepository.class);
+    private final OrderSummaryProjector projector = new OrderSummaryProjector(orderSummaryRepository);
+    private final KafkaConfig kafkaConfig = new KafkaConfig();
+
+    @Test
+    void headerlessJsonStatusChangeReachesReadModel() {
+        OrderStatusChangedEvent event = OrderStatusChangedEvent.builder()
+                .orderId(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .previousStatus(OrderStatus.PENDING)
+                .status(OrderStatus.SHIPPED)
+                .changedAt(Instant.parse("2024-03-01T10:15:30Z"))
+                .build();
+
+        Object received = roundTrip(kafkaConfig.orderStatusSummaryListenerFactory(kafkaProperties()), event);
+        projector.onOrderStatusChanged((OrderStatusChangedEvent) received);
+
+        verify(orderSummaryRepository).applyStatus(event.getOrderId(), event.getUserId(), "SHIPPED",
+                event.getChangedAt());
+    }
+
+    @Test
+    void headerlessJsonCancellationReachesReadModel() {
+        OrderCancelledEvent event = OrderCancelledEvent.builder()
+                .orderId(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .reason("Changed my mind")
+                .cancelledAt(Instant.parse("2024-03-01T11:00:00Z"))
+                .build();
+
+        Object received = roundTrip(kafkaConfig.orderCancelledSummaryListenerFactory(kafkaProperties()), event);
+        projector.onOrderCancelled((OrderCancelledEvent) received);
+
+        verify(orderSummaryRepository).applyStatus(event.getOrderId(), event.getUserId(), "CANCELLED",
+                event.getCancelledAt());
+    }
+
+    @Test
+    void linesWithoutQuantityCountAsZero() {
+        List<OrderItemEvent> items = new ArrayList<>();
+        items.add(OrderItemEvent.builder().productId("p-1").quantity(2).build());
+        items.add(OrderItemEvent.builder().productId("p-2").build());
+        items.add(null);
+        OrderCreatedEvent event = OrderCreatedEvent.builder()
+                .orderId(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .totalAmount(BigDecimal.TEN)
+                .items(items)
+                .createdAt(Instant.parse("2024-03-01T09:00:00Z"))
+                .build();
+
+        projector.onOrderCreated(event);
+
+        verify(orderSummaryRepository).upsertCreated(event.getOrderId(), event.getUserId(), "PENDING",
+                BigDecimal.TEN, 2, null, null, event.getCreatedAt());
+    }
+
+    private static KafkaProperties kafkaProperties() {
+        KafkaProperties properties = new KafkaProperties();
+        properties.getConsumer().setValueDeserializer(EventDeserializer.class);
+        return properties;
+    }
+
+    /**
+     * Serializes like the producers (JSON, no type headers) and deserializes with the
+     * consumer configuration of the listener's container factory.
+     */
+    private static Object roundTrip(ConcurrentKafkaListenerContainerFactory<String, Object> factory, Object event) {
+        RecordHeaders headers = new RecordHeaders();
+        byte[] payload;
+        try (JsonSerializer<Object> serializer = new JsonSerializer<>()) {
+            serializer.setAddTypeInfo(false);
+            payload = serializer.serialize("orders", headers, event);
+        }
+        try (EventDeserializer deserializer = new EventDeserializer()) {
+            deserializer.configure(factory.getConsumerFactory().getConfigurationProperties(), false);
+            return deserializer.deserialize("orders", headers, payload);
+        }
+    }
+}
@@ -1,10 +1,19 @@
 package io.cloudforge.paymentservice.config;
 
+import io.cloudforge.events.kafka.EventSender;
+import io.cloudforge.events.kafka.KeyOrderedDispatcher;
+import io.cloudforge.events.kafka.ProducerProfile;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
 
 @Configuration
 public class KafkaConfig {
@@ -15,6 +24,50 @@ public class KafkaConfig {
     @Value("${kafka.topics.payment-failed}")
     private String paymentFailedTopic;
 
+    /**
+     * Applies the producer profile ({@code kafka.producer.profile}) to the template's
+     * producer factory.
+     */
+    @Bean
+    public DefaultKafkaProducerFactoryCustomizer producerProfileCustomizer(
+            @Value("${kafka.producer.profile:low-latency}") String profile) {
+        ProducerProfile producerProfile = ProducerProfile.of(profile);
+        return producerProfile::applyTo;
+    }
+
+    @Bean
+    public EventSender eventSender(KafkaTemplate<String, Object> kafkaTemplate, MeterRegistry meterRegistry,
+            @Value("${kafka.producer.buffer.capacity:10000}") int capacity,
+            @Value("${kafka.producer.buffer.block-timeout-ms:5000}") long blockTimeoutMs) {
+        return new EventSender(kafkaTemplate, meterRegistry, capacity, blockTimeoutMs);
+    }
+
+    @Bean
+    public KeyOrderedDispatcher keyOrderedDispatcher(MeterRegistry meterRegistry,
+            @Value("${kafka.consumer.ordered-parallel.lanes:16}") int lanes,
+            @Value("${kafka.consumer.ordered-parallel.lane-capacity:50}") int laneCapacity,
+            @Value("${kafka.consumer.ordered-parallel.max-attempts:3}") int maxAttempts,
+            @Value("${kafka.consumer.ordered-parallel.retry-backoff-ms:1000}") long retryBackoffMs) {
+        return new KeyOrderedDispatcher("payment-events", lanes, laneCapacity, maxAttempts, retryBackoffMs,
+                meterRegistry);
+    }
+
+    /**
+     * Listener factory for key-ordered parallel consumption: listeners hand records to
+     * the {@link KeyOrderedDispatcher} and offsets are committed as they complete.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> keyOrderedListenerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            KeyOrderedDispatcher keyOrderedDispatcher,
+            @Value("${kafka.consumer.ordered-parallel.revoke-timeout-ms:30000}") long revokeTimeoutMs) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        keyOrderedDispatcher.configure(factory, revokeTimeoutMs);
+        return factory;
+    }
+
     @Bean
     public NewTopic paymentCompletedTopic() {
         return TopicBuilder.name(paymentCompletedTopic)
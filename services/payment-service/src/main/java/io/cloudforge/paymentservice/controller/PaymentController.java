@@ -5,6 +5,7 @@ import io.cloudforge.paymentservice.dto.PaymentResponse;
 import io.cloudforge.paymentservice.dto.PaymentVerificationRequest;
 import io.cloudforge.paymentservice.dto.RefundRequest;
 import io.cloudforge.paymentservice.service.PaymentService;
+import io.cloudforge.web.ConditionalResponses;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -14,6 +15,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.UUID;
 
@@ -46,16 +48,20 @@ public class PaymentController {
 
     @Operation(summary = "Get payment by ID")
     @GetMapping("/{id}")
-    public ResponseEntity<PaymentResponse> getPayment(@PathVariable UUID id) {
-        PaymentResponse response = paymentService.getPaymentById(id);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<PaymentResponse> getPayment(@PathVariable UUID id, WebRequest request) {
+        if (ConditionalResponses.notModified(request, paymentService.getPaymentUpdatedAt(id))) {
+            return null;
+        }
+        return ConditionalResponses.revalidate(paymentService.getPaymentById(id));
     }
 
     @Operation(summary = "Get payment by order ID")
     @GetMapping("/order/{orderId}")
-    public ResponseEntity<PaymentResponse> getPaymentByOrderId(@PathVariable UUID orderId) {
-        PaymentResponse response = paymentService.getPaymentByOrderId(orderId);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<PaymentResponse> getPaymentByOrderId(@PathVariable UUID orderId, WebRequest request) {
+        if (ConditionalResponses.notModified(request, paymentService.getPaymentUpdatedAtByOrderId(orderId))) {
+            return null;
+        }
+        return ConditionalResponses.revalidate(paymentService.getPaymentByOrderId(orderId));
     }
 
     @Operation(summary = "Get payments for user")
@@ -64,7 +70,7 @@ public class PaymentController {
             @PathVariable UUID userId,
             Pageable pageable) {
         Page<PaymentResponse> payments = paymentService.getPaymentsByUserId(userId, pageable);
-        return ResponseEntity.ok(payments);
+        return ConditionalResponses.page(payments, PaymentResponse::getId, PaymentResponse::getUpdatedAt);
     }
 
     @Operation(summary = "Refund a payment")
@@ -1,17 +1,23 @@
 package io.cloudforge.paymentservice.event;
 
+import io.cloudforge.events.PaymentCompletedEvent;
+import io.cloudforge.events.PaymentFailedEvent;
+import io.cloudforge.events.kafka.EventSender;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+/**
+ * Publishes payment outcomes. Sends go through {@link EventSender}, which bounds how
+ * many may await the broker and records per-topic latency and errors.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EventPublisher {
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final EventSender eventSender;
 
     @Value("${kafka.topics.payment-completed}")
     private String paymentCompletedTopic;
@@ -21,11 +27,11 @@ public class EventPublisher {
 
     public void publishPaymentCompleted(PaymentCompletedEvent event) {
         log.info("Publishing payment completed event for order: {}", event.getOrderId());
-        kafkaTemplate.send(paymentCompletedTopic, event.getOrderId().toString(), event);
+        eventSender.send(paymentCompletedTopic, event.getOrderId().toString(), event);
     }
 
     public void publishPaymentFailed(PaymentFailedEvent event) {
         log.info("Publishing payment failed event for order: {}", event.getOrderId());
-        kafkaTemplate.send(paymentFailedTopic, event.getOrderId().toString(), event);
+        eventSender.send(paymentFailedTopic, event.getOrderId().toString(), event);
     }
 }
@@ -1,11 +1,17 @@
 package io.cloudforge.paymentservice.event;
 
+import io.cloudforge.events.OrderCreatedEvent;
+import io.cloudforge.events.kafka.KeyOrderedDispatcher;
 import io.cloudforge.paymentservice.dto.PaymentRequest;
 import io.cloudforge.paymentservice.model.PaymentMethod;
 import io.cloudforge.paymentservice.service.PaymentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -14,9 +20,19 @@ import org.springframework.stereotype.Service;
 public class OrderCreatedEventConsumer {
 
     private final PaymentService paymentService;
+    private final KeyOrderedDispatcher keyOrderedDispatcher;
 
-    @KafkaListener(topics = "${kafka.topics.order-created}", groupId = "${spring.kafka.consumer.group-id}")
-    public void handleOrderCreated(OrderCreatedEvent event) {
+    // Orders are handled in parallel; events for the same order stay in order
+    @KafkaListener(topics = "${kafka.topics.order-created}", groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "keyOrderedListenerFactory")
+    public void handleOrderCreated(OrderCreatedEvent event, Acknowledgment acknowledgment,
+            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition) {
+        keyOrderedDispatcher.dispatch(new TopicPartition(topic, partition), event.getOrderId(), acknowledgment,
+                () -> initiatePayment(event));
+    }
+
+    private void initiatePayment(OrderCreatedEvent event) {
         log.info("Received order created event: {}", event.getOrderId());
 
         try {
@@ -35,7 +51,7 @@ public class OrderCreatedEventConsumer {
 
         } catch (Exception e) {
             log.error("Failed to initiate payment for order: {}", event.getOrderId(), e);
-            // Let Kafka retry or send to DLQ
+            // Retried on the order's lane by the dispatcher
             throw e;
         }
     }
@@ -5,8 +5,11 @@ import io.cloudforge.paymentservice.model.PaymentStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -15,6 +18,12 @@ public interface PaymentRepository extends JpaRepository<Payment, UUID> {
 
     Optional<Payment> findByOrderId(UUID orderId);
 
+    @Query("SELECT p.updatedAt FROM Payment p WHERE p.id = :id")
+    Optional<Instant> findUpdatedAtById(@Param("id") UUID id);
+
+    @Query("SELECT p.updatedAt FROM Payment p WHERE p.orderId = :orderId")
+    Optional<Instant> findUpdatedAtByOrderId(@Param("orderId") UUID orderId);
+
     Optional<Payment> findByIdempotencyKey(String idempotencyKey);
 
     Optional<Payment> findByRazorpayOrderId(String razorpayOrderId);
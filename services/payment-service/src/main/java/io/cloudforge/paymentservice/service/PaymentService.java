@@ -2,13 +2,13 @@ package io.cloudforge.paymentservice.service;
 
 import com.razorpay.Order;
 import com.razorpay.RazorpayException;
+import io.cloudforge.events.PaymentCompletedEvent;
+import io.cloudforge.events.PaymentFailedEvent;
 import io.cloudforge.paymentservice.dto.PaymentRequest;
 import io.cloudforge.paymentservice.dto.PaymentResponse;
 import io.cloudforge.paymentservice.dto.PaymentVerificationRequest;
 import io.cloudforge.paymentservice.dto.RefundRequest;
 import io.cloudforge.paymentservice.event.EventPublisher;
-import io.cloudforge.paymentservice.event.PaymentCompletedEvent;
-import io.cloudforge.paymentservice.event.PaymentFailedEvent;
 import io.cloudforge.paymentservice.exception.DuplicatePaymentException;
 import io.cloudforge.paymentservice.exception.PaymentNotFoundException;
 import io.cloudforge.paymentservice.exception.PaymentProcessingException;
@@ -137,7 +137,7 @@ public class PaymentService {
                     .amount(payment.getAmount())
                     .currency(payment.getCurrency())
                     .status("COMPLETED")
-                    .stripePaymentIntentId(payment.getRazorpayPaymentId())
+                    .providerPaymentId(payment.getRazorpayPaymentId())
                     .completedAt(Instant.now())
                     .build());
 
@@ -154,6 +154,20 @@ public class PaymentService {
         return PaymentResponse.fromPayment(paymentRepository.save(payment), razorpayService.getKeyId());
     }
 
+    /**
+     * When the payment last changed, or null if there is no such payment. Lets status
+     * polls be answered without loading the payment.
+     */
+    @Transactional(readOnly = true)
+    public Instant getPaymentUpdatedAt(UUID paymentId) {
+        return paymentRepository.findUpdatedAtById(paymentId).orElse(null);
+    }
+
+    @Transactional(readOnly = true)
+    public Instant getPaymentUpdatedAtByOrderId(UUID orderId) {
+        return paymentRepository.findUpdatedAtByOrderId(orderId).orElse(null);
+    }
+
     /**
      * Get payment by ID.
      */
@@ -0,0 +1,48 @@
+package io.cloudforge.paymentservice.controller;
+
+import io.cloudforge.paymentservice.dto.PaymentResponse;
+import io.cloudforge.paymentservice.service.PaymentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PaymentControllerTest {
+
+    private final PaymentService paymentService = mock(PaymentService.class);
+    private final MockMvc mockMvc = MockMvcBuilders
+            .standaloneSetup(new PaymentController(paymentService))
+            .build();
+
+    @Test
+    void unchangedPaymentIsNotModifiedWithoutBeingLoaded() throws Exception {
+        UUID orderId = UUID.randomUUID();
+        Instant updatedAt = Instant.parse("2026-10-01T10:15:30Z");
+        when(paymentService.getPaymentUpdatedAtByOrderId(orderId)).thenReturn(updatedAt);
+        when(paymentService.getPaymentByOrderId(orderId))
+                .thenReturn(PaymentResponse.builder().orderId(orderId).updatedAt(updatedAt).build());
+
+        String lastModified = mockMvc.perform(get("/api/payments/order/{orderId}", orderId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        mockMvc.perform(get("/api/payments/order/{orderId}", orderId)
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+
+        verify(paymentService, times(1)).getPaymentByOrderId(orderId);
+    }
+}
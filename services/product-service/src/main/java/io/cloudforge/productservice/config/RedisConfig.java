@@ -3,6 +3,7 @@ package io.cloudforge.productservice.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -19,8 +20,12 @@ import java.time.Duration;
 @EnableCaching
 public class RedisConfig {
 
+    // Entries only need a long TTL as a safety net once the change stream evicts them on every write
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+            @Value("${spring.cache.redis.time-to-live:10m}") Duration timeToLive,
+            @Value("${product.change-stream.enabled:false}") boolean changeStreamEnabled,
+            @Value("${product.change-stream.cache-time-to-live:6h}") Duration changeStreamTimeToLive) {
         // Configure ObjectMapper with JavaTimeModule for LocalDateTime support
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
@@ -31,7 +36,7 @@ public class RedisConfig {
 
         // Configure Redis cache
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(10)) // Cache TTL: 10 minutes
+                .entryTtl(changeStreamEnabled ? changeStreamTimeToLive : timeToLive)
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer))
                 .disableCachingNullValues();
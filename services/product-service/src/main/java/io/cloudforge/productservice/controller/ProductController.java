@@ -1,7 +1,17 @@
 package io.cloudforge.productservice.controller;
 
+import io.cloudforge.productservice.dto.CatalogBrowseResponse;
+import io.cloudforge.productservice.dto.ProductBatchRequest;
 import io.cloudforge.productservice.dto.ProductDTO;
+import io.cloudforge.productservice.dto.ProductImportResult;
+import io.cloudforge.productservice.dto.StockReservationRequest;
+import io.cloudforge.productservice.dto.SuggestionDTO;
+import io.cloudforge.productservice.service.CatalogBrowseService;
+import io.cloudforge.productservice.service.ProductImportService;
 import io.cloudforge.productservice.service.ProductService;
+import io.cloudforge.productservice.service.StockReservationService;
+import io.cloudforge.productservice.service.StockShardService;
+import io.cloudforge.web.ConditionalResponses;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -9,10 +19,20 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.util.List;
 
 @RestController
@@ -22,6 +42,10 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final StockReservationService stockReservationService;
+    private final CatalogBrowseService catalogBrowseService;
+    private final ProductImportService productImportService;
+    private final StockShardService stockShardService;
 
     @GetMapping
     @Operation(summary = "Get all products with pagination")
@@ -33,9 +57,45 @@ public class ProductController {
 
     @GetMapping("/{id}")
     @Operation(summary = "Get product by ID")
-    public ResponseEntity<ProductDTO> getProductById(@PathVariable String id) {
+    public ResponseEntity<ProductDTO> getProductById(@PathVariable String id, WebRequest request) {
         ProductDTO product = productService.getProductById(id);
-        return ResponseEntity.ok(product);
+        if (notModified(request, product)) {
+            return null;
+        }
+        return ConditionalResponses.revalidate(product);
+    }
+
+    /**
+     * Stock is part of the ETag because the shards of sharded stock change without
+     * touching the product; its {@code updatedAt} only moves at the next rebalance. Live
+     * stock is only known once the product is loaded, so unlike orders and payments
+     * this runs after the lookup, which the product cache usually serves.
+     */
+    private static boolean notModified(WebRequest request, ProductDTO product) {
+        if (product.getUpdatedAt() == null) {
+            return false;
+        }
+        // Spring Data reads stored dates into the system time zone
+        Instant modified = product.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant();
+        return ConditionalResponses.notModified(request, modified,
+                product.getStock() != null ? product.getStock() : -1);
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Look up many products by ID in one call")
+    public ResponseEntity<List<ProductDTO>> getProductsByIds(@Valid @RequestBody ProductBatchRequest request) {
+        return ResponseEntity.ok(productService.getProductsByIds(request.getIds()));
+    }
+
+    @GetMapping("/browse")
+    @Operation(summary = "Browse products by category, tags and price with facet counts")
+    public ResponseEntity<CatalogBrowseResponse> browse(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) List<String> tags,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(catalogBrowseService.browse(category, tags, minPrice, maxPrice, pageable));
     }
 
     @GetMapping("/category/{category}")
@@ -56,6 +116,14 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    @GetMapping("/suggest")
+    @Operation(summary = "Autocomplete product names, categories and tags")
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productService.suggest(q, Math.max(1, Math.min(limit, 20))));
+    }
+
     @GetMapping("/latest")
     @Operation(summary = "Get latest products")
     public ResponseEntity<List<ProductDTO>> getLatestProducts() {
@@ -86,6 +154,47 @@ public class ProductController {
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping(value = "/import", consumes = { MediaType.APPLICATION_NDJSON_VALUE, "text/csv" })
+    @Operation(summary = "Create or replace many products from NDJSON or CSV, reporting bad records")
+    public ResponseEntity<ProductImportResult> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) throws IOException {
+        ProductImportService.Format format = contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? ProductImportService.Format.NDJSON
+                : ProductImportService.Format.CSV;
+        return ResponseEntity.ok(productImportService.importProducts(body, format));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Stream the whole catalog as NDJSON or CSV")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(defaultValue = "ndjson") String format) {
+        ProductImportService.Format exportFormat = "csv".equalsIgnoreCase(format)
+                ? ProductImportService.Format.CSV
+                : ProductImportService.Format.NDJSON;
+        String extension = exportFormat == ProductImportService.Format.CSV ? "csv" : "ndjson";
+        return ResponseEntity.ok()
+                .contentType(exportFormat == ProductImportService.Format.CSV
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products." + extension + "\"")
+                .body(out -> productImportService.exportProducts(out, exportFormat));
+    }
+
+    @PostMapping("/reservations")
+    @Operation(summary = "Reserve stock for several products at once, all or nothing")
+    public ResponseEntity<Void> reserveStock(@Valid @RequestBody StockReservationRequest request) {
+        stockReservationService.reserve(request);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/reservations/{reservationId}")
+    @Operation(summary = "Release a stock reservation")
+    public ResponseEntity<Void> releaseReservation(@PathVariable String reservationId) {
+        stockReservationService.release(reservationId);
+        return ResponseEntity.noContent().build();
+    }
+
     @PatchMapping("/{id}/stock")
     @Operation(summary = "Update product stock (positive to add, negative to subtract)")
     public ResponseEntity<ProductDTO> updateStock(
@@ -94,4 +203,18 @@ public class ProductController {
         ProductDTO updated = productService.updateStock(id, quantity);
         return ResponseEntity.ok(updated);
     }
+
+    @PutMapping("/{id}/stock-shards")
+    @Operation(summary = "Split a hot product's stock across several counters")
+    public ResponseEntity<ProductDTO> enableStockShards(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "8") int count) {
+        return ResponseEntity.ok(stockShardService.enable(id, count));
+    }
+
+    @DeleteMapping("/{id}/stock-shards")
+    @Operation(summary = "Merge a product's stock counters back into one")
+    public ResponseEntity<ProductDTO> disableStockShards(@PathVariable String id) {
+        return ResponseEntity.ok(stockShardService.disable(id));
+    }
 }
@@ -0,0 +1,53 @@
+package io.cloudforge.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of products together with the facet counts for the current filters. Each
+ * facet is counted with every filter applied except its own, so the counts show what
+ * choosing another value would return.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogBrowseResponse {
+
+    private List<ProductDTO> products;
+
+    private int page;
+
+    private int size;
+
+    private long totalElements;
+
+    private int totalPages;
+
+    // Value -> number of matching products, most common first
+    private Map<String, Long> categories;
+
+    private Map<String, Long> tags;
+
+    private List<PriceBucket> priceBuckets;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceBucket {
+
+        private BigDecimal min;
+
+        // Exclusive; null for the open-ended top bucket
+        private BigDecimal max;
+
+        private long count;
+    }
+}
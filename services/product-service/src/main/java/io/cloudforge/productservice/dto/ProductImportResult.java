@@ -0,0 +1,44 @@
+package io.cloudforge.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportResult {
+
+    private long received;
+
+    private long created;
+
+    private long updated;
+
+    private long failed;
+
+    private List<RecordError> errors;
+
+    // More records failed than are listed in errors
+    private boolean errorsTruncated;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RecordError {
+
+        // 1-based position of the record in the upload
+        private long record;
+
+        private String id;
+
+        private String sku;
+
+        private String message;
+    }
+}
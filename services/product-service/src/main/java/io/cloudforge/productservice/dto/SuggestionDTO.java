@@ -0,0 +1,24 @@
+package io.cloudforge.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDTO {
+
+    public enum Type {
+        PRODUCT, CATEGORY, TAG
+    }
+
+    private String text;
+
+    private Type type;
+
+    // Set for product suggestions only
+    private String productId;
+}
@@ -0,0 +1,276 @@
+package io.cloudforge.productservice.event;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import io.cloudforge.productservice.model.Product;
+import io.cloudforge.productservice.search.ProductSearchIndex;
+import io.cloudforge.productservice.service.CatalogBrowseService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows the products collection's change stream and invalidates everything derived
+ * from it: the Redis product cache, the in-memory search index and the facet cache.
+ *
+ * This catches changes made outside the service (seed scripts, fixes in the shell,
+ * bulk imports) and on other instances. The stream resumes from the last processed
+ * position, stored in Mongo, so changes made while every instance was down are still
+ * seen. If that position has aged out of the oplog, or there is none, all caches are
+ * dropped and the search index is rebuilt instead.
+ *
+ * Change streams need a replica set; the listener is off unless
+ * {@code product.change-stream.enabled} is set.
+ */
+@Component
+@ConditionalOnProperty(name = "product.change-stream.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ProductChangeStreamListener {
+
+    private static final String TOKENS_COLLECTION = "change_stream_tokens";
+    private static final String STREAM_ID = "products";
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final int CHANGE_STREAM_FATAL = 280;
+
+    // Updates touching only these leave names, categories, tags and the latest list as they were
+    private static final Set<String> STOCK_FIELDS = Set.of("stock", "stockShards", "updatedAt");
+
+    private final MongoTemplate mongoTemplate;
+    private final CacheManager cacheManager;
+    private final ProductSearchIndex productSearchIndex;
+    private final CatalogBrowseService catalogBrowseService;
+
+    @Value("${product.change-stream.token-save-interval-ms:1000}")
+    private long tokenSaveIntervalMs;
+
+    @Value("${product.change-stream.retry-delay-ms:5000}")
+    private long retryDelayMs;
+
+    private volatile boolean running;
+    private volatile MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+    private Thread worker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "product-change-stream");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> current = cursor;
+        if (current != null) {
+            current.close();
+        }
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            BsonDocument resumeToken = loadToken();
+            if (resumeToken == null) {
+                invalidateEverything("no stored change stream position");
+            }
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> opened = open(resumeToken)) {
+                cursor = opened;
+                log.info("Following product changes {}", resumeToken != null ? "from the stored position" : "from now");
+                follow(opened);
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                if (e instanceof MongoException mongoException && (mongoException.getCode() == CHANGE_STREAM_HISTORY_LOST
+                        || mongoException.getCode() == CHANGE_STREAM_FATAL)) {
+                    log.warn("Stored change stream position is no longer usable: {}", e.getMessage());
+                    deleteToken();
+                } else {
+                    log.warn("Product change stream failed, retrying in {} ms: {}", retryDelayMs, e.getMessage());
+                    sleep(retryDelayMs);
+                }
+            } finally {
+                cursor = null;
+            }
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open(BsonDocument resumeToken) {
+        ChangeStreamIterable<Document> stream = products().watch()
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        return (resumeToken != null ? stream.resumeAfter(resumeToken) : stream).cursor();
+    }
+
+    private void follow(MongoChangeStreamCursor<ChangeStreamDocument<Document>> stream) {
+        long savedAt = 0;
+        while (running) {
+            ChangeStreamDocument<Document> change = stream.tryNext();
+            if (change != null && change.getOperationType() == OperationType.INVALIDATE) {
+                // The collection was dropped or renamed; start over, rebuilding everything
+                deleteToken();
+                return;
+            }
+            if (change != null) {
+                apply(change);
+            }
+            // Advances with every batch, events or not, so an idle stream keeps its place in the oplog
+            BsonDocument token = stream.getResumeToken();
+            long now = System.currentTimeMillis();
+            if (token != null && now - savedAt >= tokenSaveIntervalMs) {
+                saveToken(token);
+                savedAt = now;
+            }
+        }
+    }
+
+    private void apply(ChangeStreamDocument<Document> change) {
+        switch (change.getOperationType()) {
+            case INSERT, REPLACE, UPDATE -> {
+                String productId = productId(change.getDocumentKey());
+                evictProduct(productId);
+                boolean stockOnly = stockOnly(change);
+                Document document = change.getFullDocument();
+                if (document == null) {
+                    // Deleted again before the lookup
+                    productSearchIndex.remove(productId);
+                } else if (stockOnly) {
+                    productSearchIndex.updateStock(mongoTemplate.getConverter().read(Product.class, document));
+                } else {
+                    productSearchIndex.index(mongoTemplate.getConverter().read(Product.class, document));
+                }
+                if (!stockOnly) {
+                    evictAll("latestProducts");
+                    catalogBrowseService.invalidate();
+                }
+            }
+            case DELETE -> {
+                String productId = productId(change.getDocumentKey());
+                evictProduct(productId);
+                productSearchIndex.remove(productId);
+                evictAll("latestProducts");
+                catalogBrowseService.invalidate();
+            }
+            case DROP, RENAME, DROP_DATABASE -> invalidateEverything(change.getOperationType().getValue());
+            default -> log.debug("Ignoring {} on products", change.getOperationType());
+        }
+    }
+
+    private boolean stockOnly(ChangeStreamDocument<Document> change) {
+        if (change.getOperationType() != OperationType.UPDATE || change.getUpdateDescription() == null) {
+            return false;
+        }
+        BsonDocument updated = change.getUpdateDescription().getUpdatedFields();
+        List<String> removed = change.getUpdateDescription().getRemovedFields();
+        return (removed == null || removed.isEmpty())
+                && updated != null && STOCK_FIELDS.containsAll(updated.keySet());
+    }
+
+    private void invalidateEverything(String reason) {
+        log.info("Dropping all product caches and rebuilding the search index: {}", reason);
+        evictAll("product");
+        evictAll("latestProducts");
+        catalogBrowseService.invalidate();
+        productSearchIndex.rebuild();
+    }
+
+    private void evictProduct(String productId) {
+        Cache cache = cacheManager.getCache("product");
+        if (cache != null && productId != null) {
+            cache.evict(productId);
+        }
+    }
+
+    private void evictAll(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private static String productId(BsonDocument documentKey) {
+        BsonValue id = documentKey != null ? documentKey.get("_id") : null;
+        if (id == null) {
+            return null;
+        }
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString()
+                : id.isString() ? id.asString().getValue()
+                : id.toString();
+    }
+
+    private MongoCollection<Document> products() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class));
+    }
+
+    private MongoCollection<BsonDocument> tokens() {
+        return mongoTemplate.getCollection(TOKENS_COLLECTION).withDocumentClass(BsonDocument.class);
+    }
+
+    private BsonDocument loadToken() {
+        try {
+            BsonDocument stored = tokens().find(Filters.eq("_id", STREAM_ID)).first();
+            return stored != null && stored.isDocument("token") ? stored.getDocument("token") : null;
+        } catch (MongoException e) {
+            log.warn("Could not read the stored change stream position: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // Every instance saves its position; whichever is last, a restart replays at most a little
+    private void saveToken(BsonDocument token) {
+        try {
+            tokens().replaceOne(Filters.eq("_id", STREAM_ID),
+                    new BsonDocument("_id", new BsonString(STREAM_ID))
+                            .append("token", token)
+                            .append("savedAt", new BsonDateTime(System.currentTimeMillis())),
+                    new ReplaceOptions().upsert(true));
+        } catch (MongoException e) {
+            log.debug("Could not save change stream position: {}", e.getMessage());
+        }
+    }
+
+    private void deleteToken() {
+        try {
+            tokens().deleteOne(Filters.eq("_id", STREAM_ID));
+        } catch (MongoException e) {
+            log.debug("Could not delete change stream position: {}", e.getMessage());
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -39,10 +39,14 @@ public class Product implements Serializable {
 
     private Integer stock;
 
+    // Set while stock is split across stock_shards; stock then holds their last summed total
+    private Integer stockShards;
+
     private String sku;
 
     private List<String> images;
 
+    @TextIndexed(weight = 2)
     private List<String> tags;
 
     private boolean active = true;
@@ -0,0 +1,62 @@
+package io.cloudforge.productservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stock held for one checkout. The id is chosen by the caller, which makes reserve
+ * and release idempotent. {@code applied} lists only the decrements that actually
+ * happened, so a release never gives back more than was taken. {@code pending} holds
+ * the products a reserve is taking right now; both lists only change while the
+ * reservation is {@code RESERVING}.
+ */
+@Document(collection = "stock_reservations")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+
+    public enum Status {
+        RESERVING,
+        RESERVED,
+        RELEASED
+    }
+
+    @Id
+    private String id;
+
+    private Status status;
+
+    @Builder.Default
+    private List<String> pending = new ArrayList<>();
+
+    @Builder.Default
+    private List<Line> applied = new ArrayList<>();
+
+    private Instant createdAt;
+
+    private Instant releasedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private String productId;
+        private int quantity;
+        // The stock shard the quantity came from, for products with sharded stock
+        private Integer shard;
+
+        public Line(String productId, int quantity) {
+            this(productId, quantity, null);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package io.cloudforge.productservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * One of the sub-counters holding the stock of a product with sharded stock. The id
+ * is {@code <productId>:<shard>}, so a shard is addressed without a lookup.
+ */
+@Document(collection = "stock_shards")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockShard {
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String productId;
+
+    private int shard;
+
+    private int stock;
+
+    public static String id(String productId, int shard) {
+        return productId + ":" + shard;
+    }
+}
@@ -0,0 +1,333 @@
+package io.cloudforge.productservice.search;
+
+import io.cloudforge.productservice.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Term dictionary and posting lists for the active products.
+ *
+ * Every indexed product gets a dense document number; a posting list is a pair of
+ * parallel arrays (document numbers in ascending order and field-weighted term
+ * frequencies), grown in place as products are added. Re-indexing a product
+ * tombstones its old document and appends a new one, so posting lists never have to
+ * be reordered; once tombstones outnumber live documents the index is rebuilt from
+ * the live ones.
+ *
+ * Not thread-safe; {@link ProductSearchIndex} serializes writers against readers.
+ */
+final class InvertedIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int MAX_PREFIX_EXPANSIONS = 32;
+    private static final float PREFIX_BOOST = 0.8f;
+    private static final float FUZZY_BOOST = 0.5f;
+    private static final int MIN_FUZZY_LENGTH = 4;
+
+    private final FieldWeights weights;
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, Integer> docByProductId = new HashMap<>();
+    private final List<Product> products = new ArrayList<>();
+    private final List<String[]> docTerms = new ArrayList<>();
+    private float[] docLengths = new float[64];
+    private double totalLength;
+    private int liveDocs;
+
+    InvertedIndex(FieldWeights weights) {
+        this.weights = weights;
+    }
+
+    int size() {
+        return liveDocs;
+    }
+
+    /**
+     * Adds or replaces a product. Inactive products are removed instead, so every
+     * document in the index is searchable.
+     */
+    void put(Product product) {
+        remove(product.getId());
+        if (!product.isActive()) {
+            return;
+        }
+
+        Map<String, Float> frequencies = new HashMap<>();
+        addField(frequencies, product.getName(), weights.name());
+        addField(frequencies, product.getDescription(), weights.description());
+        if (product.getTags() != null) {
+            product.getTags().forEach(tag -> addField(frequencies, tag, weights.tags()));
+        }
+
+        int doc = products.size();
+        products.add(product);
+        docTerms.add(frequencies.keySet().toArray(String[]::new));
+        docByProductId.put(product.getId(), doc);
+        if (doc == docLengths.length) {
+            docLengths = Arrays.copyOf(docLengths, doc * 2);
+        }
+
+        float length = 0;
+        for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+            terms.computeIfAbsent(entry.getKey(), term -> new Postings()).append(doc, entry.getValue());
+            length += entry.getValue();
+        }
+        docLengths[doc] = length;
+        totalLength += length;
+        liveDocs++;
+    }
+
+    void remove(String productId) {
+        Integer doc = docByProductId.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        for (String term : docTerms.get(doc)) {
+            Postings postings = terms.get(term);
+            if (--postings.live == 0) {
+                terms.remove(term);
+            }
+        }
+        products.set(doc, null);
+        docTerms.set(doc, null);
+        totalLength -= docLengths[doc];
+        liveDocs--;
+
+        if (products.size() - liveDocs > Math.max(1024, liveDocs)) {
+            compact();
+        }
+    }
+
+    Product get(String productId) {
+        Integer doc = docByProductId.get(productId);
+        return doc != null ? products.get(doc) : null;
+    }
+
+    /**
+     * Swaps the stored copy of an indexed product whose text is unchanged, such as after
+     * a stock update, keeping its document and postings.
+     */
+    void replaceStored(Product product) {
+        Integer doc = docByProductId.get(product.getId());
+        if (doc != null) {
+            products.set(doc, product);
+        }
+    }
+
+    /**
+     * Ranks the products matching any query term with BM25 and returns the requested
+     * slice. The last query term also matches as a prefix, so results keep up with
+     * the user's typing, and a term that is not in the index at all is matched
+     * against indexed terms one edit away.
+     */
+    SearchHits search(String query, int offset, int limit) {
+        List<String> queryTerms = TextAnalyzer.analyze(query);
+        boolean lastIsPrefix = !query.isEmpty() && Character.isLetterOrDigit(query.charAt(query.length() - 1));
+        if (queryTerms.isEmpty() || liveDocs == 0) {
+            return new SearchHits(0, List.of());
+        }
+
+        float[] scores = new float[products.size()];
+        float averageLength = (float) (totalLength / liveDocs);
+        for (int i = 0; i < queryTerms.size(); i++) {
+            String term = queryTerms.get(i);
+            Postings exact = terms.get(term);
+            if (exact != null) {
+                score(exact, 1f, scores, averageLength);
+            }
+            boolean expanded = i == queryTerms.size() - 1 && lastIsPrefix
+                    && expandPrefix(term, scores, averageLength);
+            if (exact == null && !expanded && term.length() >= MIN_FUZZY_LENGTH) {
+                expandFuzzy(term, scores, averageLength);
+            }
+        }
+        return topDocuments(scores, offset, limit);
+    }
+
+    private boolean expandPrefix(String prefix, float[] scores, float averageLength) {
+        int expansions = 0;
+        for (Map.Entry<String, Postings> entry
+                : terms.subMap(prefix, false, prefix + Character.MAX_VALUE, false).entrySet()) {
+            if (++expansions > MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            score(entry.getValue(), PREFIX_BOOST, scores, averageLength);
+        }
+        return expansions > 0;
+    }
+
+    private void expandFuzzy(String term, float[] scores, float averageLength) {
+        for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+            String candidate = entry.getKey();
+            if (Math.abs(candidate.length() - term.length()) <= 1 && withinOneEdit(term, candidate)) {
+                score(entry.getValue(), FUZZY_BOOST, scores, averageLength);
+            }
+        }
+    }
+
+    private void score(Postings postings, float boost, float[] scores, float averageLength) {
+        double idf = Math.log(1 + (liveDocs - postings.live + 0.5) / (postings.live + 0.5));
+        for (int i = 0; i < postings.size; i++) {
+            int doc = postings.docs[i];
+            if (products.get(doc) == null) {
+                continue;
+            }
+            float tf = postings.frequencies[i];
+            float norm = K1 * (1 - B + B * docLengths[doc] / averageLength);
+            scores[doc] += (float) (boost * idf * tf * (K1 + 1) / (tf + norm));
+        }
+    }
+
+    /**
+     * Counts the matches and selects the slice with a bounded min-heap of the best
+     * {@code offset + limit} documents, so a broad query does not sort every match.
+     */
+    private SearchHits topDocuments(float[] scores, int offset, int limit) {
+        int wanted = (int) Math.min((long) offset + limit, scores.length);
+        int[] heap = new int[Math.max(wanted, 0)];
+        int heapSize = 0;
+        int matches = 0;
+        for (int doc = 0; doc < scores.length; doc++) {
+            if (scores[doc] <= 0) {
+                continue;
+            }
+            matches++;
+            if (heapSize < wanted) {
+                heap[heapSize] = doc;
+                siftUp(heap, heapSize++, scores);
+            } else if (wanted > 0 && ranksBefore(doc, heap[0], scores)) {
+                heap[0] = doc;
+                siftDown(heap, heapSize, scores);
+            }
+        }
+
+        // Drain worst-first into the tail of the ranking
+        int[] ranked = new int[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            ranked[i] = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, scores);
+        }
+        List<Product> page = new ArrayList<>(Math.max(0, ranked.length - offset));
+        for (int i = offset; i < ranked.length; i++) {
+            page.add(products.get(ranked[i]));
+        }
+        return new SearchHits(matches, page);
+    }
+
+    // Higher score first; ties go to the product indexed most recently
+    private static boolean ranksBefore(int a, int b, float[] scores) {
+        return scores[a] != scores[b] ? scores[a] > scores[b] : a > b;
+    }
+
+    private static void siftUp(int[] heap, int i, float[] scores) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!ranksBefore(heap[parent], heap[i], scores)) {
+                break;
+            }
+            swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, float[] scores) {
+        int i = 0;
+        while (true) {
+            int worst = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && ranksBefore(heap[worst], heap[left], scores)) {
+                worst = left;
+            }
+            if (right < size && ranksBefore(heap[worst], heap[right], scores)) {
+                worst = right;
+            }
+            if (worst == i) {
+                return;
+            }
+            swap(heap, i, worst);
+            i = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+
+    private void compact() {
+        Collection<Product> live = new ArrayList<>(docByProductId.size());
+        products.forEach(product -> {
+            if (product != null) {
+                live.add(product);
+            }
+        });
+        terms.clear();
+        docByProductId.clear();
+        products.clear();
+        docTerms.clear();
+        docLengths = new float[Math.max(64, live.size())];
+        totalLength = 0;
+        liveDocs = 0;
+        live.forEach(this::put);
+    }
+
+    private static void addField(Map<String, Float> frequencies, String text, float weight) {
+        for (String term : TextAnalyzer.analyze(text)) {
+            frequencies.merge(term, weight, Float::sum);
+        }
+    }
+
+    static boolean withinOneEdit(String a, String b) {
+        if (a.length() > b.length()) {
+            String swap = a;
+            a = b;
+            b = swap;
+        }
+        int i = 0;
+        while (i < a.length() && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        if (a.length() == b.length()) {
+            return a.regionMatches(i + 1, b, i + 1, a.length() - i - 1)
+                    || (i + 1 < a.length() && a.charAt(i) == b.charAt(i + 1) && a.charAt(i + 1) == b.charAt(i)
+                            && a.regionMatches(i + 2, b, i + 2, a.length() - i - 2));
+        }
+        return a.regionMatches(i, b, i + 1, a.length() - i);
+    }
+
+    /** Weight of each searchable field's terms in a document's term frequencies. */
+    record FieldWeights(float name, float description, float tags) {
+    }
+
+    record SearchHits(long total, List<Product> products) {
+    }
+
+    private static final class Postings {
+
+        private int[] docs = new int[4];
+        private float[] frequencies = new float[4];
+        private int size;
+        private int live;
+
+        void append(int doc, float frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size] = frequency;
+            size++;
+            live++;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package io.cloudforge.productservice.search;
+
+import io.cloudforge.productservice.dto.SuggestionDTO;
+import io.cloudforge.productservice.model.Product;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.TextIndexed;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * In-memory full-text and prefix indexes over the active products, so neither search
+ * nor autocomplete queries Mongo.
+ *
+ * Name, description and tags are weighted as declared by {@link TextIndexed} on
+ * {@link Product}. Suggestions are ranked by recent demand, counted from stock
+ * reservations and halved at every rebuild, and by stock. The index is built from
+ * Mongo once the application is ready and kept current by the product write paths;
+ * a periodic rebuild picks up changes made by other instances or outside the
+ * service. Writes that arrive while a rebuild is reading Mongo are replayed onto the
+ * new index before it is swapped in.
+ *
+ * Until the first build completes {@link #search} returns empty and callers fall back
+ * to Mongo's text search; {@link #suggest} returns no suggestions.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final InvertedIndex.FieldWeights WEIGHTS = new InvertedIndex.FieldWeights(
+            fieldWeight("name"), fieldWeight("description"), fieldWeight("tags"));
+
+    private final MongoTemplate mongoTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Double> demand = new ConcurrentHashMap<>();
+
+    private Indexes indexes;
+    private List<Consumer<Indexes>> pendingWrites;
+
+    /**
+     * Ranks active products by relevance to the query.
+     *
+     * @return the requested page, or empty while the index is not built yet or when
+     *         the caller asked for an explicit sort order, which relevance ranking
+     *         does not honour
+     */
+    public Optional<Page<Product>> search(String query, Pageable pageable) {
+        if (pageable.getSort().isSorted()) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            if (indexes == null) {
+                return Optional.empty();
+            }
+            int offset = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE) : 0;
+            int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+            InvertedIndex.SearchHits hits = indexes.text().search(query, offset, limit);
+            return Optional.of(new PageImpl<>(hits.products(), pageable, hits.total()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Completes the prefix to product names, categories and tags with a word starting
+     * with it, best first.
+     */
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return indexes != null ? indexes.suggestions().suggest(prefix, limit) : List.of();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void index(Product product) {
+        write(target -> target.put(product));
+    }
+
+    /**
+     * Records a change to the product's stock alone. Its document is kept and only the
+     * stored copy swapped, so this costs no tombstone or compaction; its suggestion
+     * weight is updated only when it sells out or comes back into stock. Cheap enough to
+     * run for every reservation.
+     */
+    public void updateStock(Product product) {
+        write(target -> target.updateStock(product));
+    }
+
+    /**
+     * Indexes many products under one write lock, merging their suggestions once.
+     */
+    public void indexAll(Collection<Product> products) {
+        write(target -> products.forEach(target::put));
+    }
+
+    public void remove(String productId) {
+        write(target -> target.remove(productId));
+    }
+
+    /**
+     * Counts units of a product just reserved at checkout towards its demand. Takes
+     * effect the next time the product is indexed or reweighted, at the latest at the
+     * next rebuild.
+     */
+    public void recordDemand(String productId, int units) {
+        demand.merge(productId, (double) units, Double::sum);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${search.rebuild-interval-ms:300000}",
+            fixedDelayString = "${search.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (pendingWrites != null) {
+                return;
+            }
+            pendingWrites = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long started = System.currentTimeMillis();
+        demand.replaceAll((productId, units) -> units / 2);
+        demand.values().removeIf(units -> units < 0.5);
+
+        Indexes rebuilt = new Indexes(new InvertedIndex(WEIGHTS),
+                new SuggestionIndex(productId -> demand.getOrDefault(productId, 0d)));
+        try (Stream<Product> products = mongoTemplate.stream(
+                Query.query(Criteria.where("active").is(true)), Product.class)) {
+            products.forEach(rebuilt::put);
+            rebuilt.suggestions().flush();
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild the product search index: {}", e.getMessage());
+            lock.writeLock().lock();
+            try {
+                pendingWrites = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingWrites.forEach(write -> write.accept(rebuilt));
+            rebuilt.suggestions().flush();
+            pendingWrites = null;
+            indexes = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Built product search index over {} products in {} ms",
+                rebuilt.text().size(), System.currentTimeMillis() - started);
+    }
+
+    private void write(Consumer<Indexes> write) {
+        lock.writeLock().lock();
+        try {
+            if (indexes != null) {
+                write.accept(indexes);
+                indexes.suggestions().flush();
+            }
+            if (pendingWrites != null) {
+                pendingWrites.add(write);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static float fieldWeight(String field) {
+        try {
+            TextIndexed textIndexed = Product.class.getDeclaredField(field).getAnnotation(TextIndexed.class);
+            return textIndexed != null ? textIndexed.weight() : 0f;
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("Product has no field " + field, e);
+        }
+    }
+
+    private record Indexes(InvertedIndex text, SuggestionIndex suggestions) {
+
+        void put(Product product) {
+            text.put(product);
+            suggestions.put(product);
+        }
+
+        void remove(String productId) {
+            text.remove(productId);
+            suggestions.remove(productId);
+        }
+
+        void updateStock(Product product) {
+            Product indexed = text.get(product.getId());
+            if (indexed == null || !product.isActive()) {
+                put(product);
+                return;
+            }
+            text.replaceStored(product);
+            if (inStock(indexed) != inStock(product)) {
+                suggestions.put(product);
+            }
+        }
+
+        private static boolean inStock(Product product) {
+            return product.getStock() != null && product.getStock() > 0;
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package io.cloudforge.productservice.search;
+
+import io.cloudforge.productservice.dto.SuggestionDTO;
+import io.cloudforge.productservice.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Prefix completions for product names, categories and tags, ranked by demand and
+ * stock.
+ *
+ * The keys form a flattened trie: a sorted table in which each row is a completion
+ * plus the offset of one of its words, so "trail running shoe" is found from "tr",
+ * "ru" and "sh" without copying the text. Every key under a prefix is one contiguous
+ * range of the table, and a max segment tree over the completion weights yields the
+ * best completions of a range without visiting the rest. A row costs two array
+ * slots, about 8 bytes, which keeps 100k products with a handful of words each to a
+ * few megabytes.
+ *
+ * Changes are buffered and merged into the table by {@link #flush()}; a change that
+ * only moves weights, such as a stock update, just updates the tree. Not thread-safe;
+ * {@link ProductSearchIndex} serializes writers against readers.
+ */
+final class SuggestionIndex {
+
+    private static final int MAX_WORDS_PER_NAME = 8;
+    private static final int MAX_STOCK_BOOST = 100;
+
+    private final ToDoubleFunction<String> demand;
+    private final Map<String, ProductEntry> productEntries = new HashMap<>();
+    private final Map<String, Completion> groups = new HashMap<>();
+
+    private Completion[] keyCompletions = new Completion[0];
+    private int[] keyOffsets = new int[0];
+    private int keyCount;
+    private float[] tree = new float[2];
+    private int leaves = 1;
+
+    private final List<Completion> added = new ArrayList<>();
+    private final List<Completion> removed = new ArrayList<>();
+    private final Set<Completion> reweighted = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * @param demand recent units sold of a product, by product id
+     */
+    SuggestionIndex(ToDoubleFunction<String> demand) {
+        this.demand = demand;
+    }
+
+    void put(Product product) {
+        ProductEntry previous = productEntries.get(product.getId());
+        if (previous != null && product.isActive() && previous.sameKeys(product)) {
+            float weight = weight(product);
+            previous.groups.forEach(group -> group.adjust(weight - previous.completion.weight));
+            previous.completion.weight = weight;
+            reweighted.add(previous.completion);
+            reweighted.addAll(previous.groups);
+            return;
+        }
+
+        remove(product.getId());
+        if (!product.isActive() || product.getName() == null) {
+            return;
+        }
+
+        float weight = weight(product);
+        Completion completion = new Completion(SuggestionDTO.Type.PRODUCT, product.getName(),
+                TextAnalyzer.normalize(product.getName()), product.getId());
+        completion.weight = weight;
+        added.add(completion);
+
+        List<Completion> memberOf = new ArrayList<>();
+        addToGroup(memberOf, SuggestionDTO.Type.CATEGORY, product.getCategory(), weight);
+        if (product.getTags() != null) {
+            new LinkedHashSet<>(product.getTags())
+                    .forEach(tag -> addToGroup(memberOf, SuggestionDTO.Type.TAG, tag, weight));
+        }
+        productEntries.put(product.getId(), new ProductEntry(completion, memberOf,
+                product.getName(), product.getCategory(), product.getTags()));
+    }
+
+    void remove(String productId) {
+        ProductEntry entry = productEntries.remove(productId);
+        if (entry == null) {
+            return;
+        }
+        entry.completion.removed = true;
+        removed.add(entry.completion);
+        for (Completion group : entry.groups) {
+            group.adjust(-entry.completion.weight);
+            if (--group.members == 0) {
+                group.removed = true;
+                removed.add(group);
+                groups.remove(groupKey(group.type, group.key));
+            } else {
+                reweighted.add(group);
+            }
+        }
+    }
+
+    /**
+     * Merges buffered changes into the key table and the weight tree.
+     */
+    void flush() {
+        if (!added.isEmpty() || !removed.isEmpty()) {
+            rebuildTable();
+        }
+        reweighted.forEach(this::updateWeight);
+        added.clear();
+        removed.clear();
+        reweighted.clear();
+    }
+
+    /**
+     * Returns the heaviest completions with a word starting with the given prefix.
+     */
+    List<SuggestionDTO> suggest(String prefix, int limit) {
+        String normalized = TextAnalyzer.normalize(prefix);
+        if (normalized.isEmpty() || keyCount == 0) {
+            return List.of();
+        }
+        // Keys starting with the prefix sort right after it, in one run
+        int from = lowerBound(normalized);
+        int to = from;
+        int high = keyCount;
+        while (to < high) {
+            int mid = (to + high) >>> 1;
+            if (keyCompletions[mid].key.startsWith(normalized, keyOffsets[mid])) {
+                to = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return best(from, to, limit);
+    }
+
+    private List<SuggestionDTO> best(int from, int to, int limit) {
+        PriorityQueue<Integer> queue = new PriorityQueue<>((a, b) -> Float.compare(tree[b], tree[a]));
+        for (int l = from + leaves, r = to + leaves; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                queue.add(l++);
+            }
+            if ((r & 1) == 1) {
+                queue.add(--r);
+            }
+        }
+
+        Set<Completion> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<SuggestionDTO> suggestions = new ArrayList<>(limit);
+        while (!queue.isEmpty() && suggestions.size() < limit) {
+            int node = queue.poll();
+            if (tree[node] == Float.NEGATIVE_INFINITY) {
+                break;
+            }
+            if (node < leaves) {
+                queue.add(2 * node);
+                queue.add(2 * node + 1);
+                continue;
+            }
+            Completion completion = keyCompletions[node - leaves];
+            if (!completion.removed && seen.add(completion)) {
+                suggestions.add(SuggestionDTO.builder()
+                        .text(completion.text)
+                        .type(completion.type)
+                        .productId(completion.productId)
+                        .build());
+            }
+        }
+        return suggestions;
+    }
+
+    private void addToGroup(List<Completion> memberOf, SuggestionDTO.Type type, String text, float weight) {
+        String key = TextAnalyzer.normalize(text);
+        if (key.isEmpty()) {
+            return;
+        }
+        Completion group = groups.computeIfAbsent(groupKey(type, key), k -> {
+            Completion created = new Completion(type, text.trim(), key, null);
+            added.add(created);
+            return created;
+        });
+        if (memberOf.contains(group)) {
+            return;
+        }
+        group.members++;
+        group.adjust(weight);
+        reweighted.add(group);
+        memberOf.add(group);
+    }
+
+    /**
+     * Merges the new keys into the table and drops the rows of removed completions.
+     * Rows that stay are copied by position, together with their weights, without
+     * touching their completions.
+     */
+    private void rebuildTable() {
+        BitSet dead = new BitSet(keyCount);
+        for (Completion completion : removed) {
+            for (int offset : wordOffsets(completion)) {
+                int row = rowOf(completion, offset);
+                if (row >= 0) {
+                    dead.set(row);
+                }
+            }
+        }
+        List<Key> fresh = new ArrayList<>();
+        for (Completion completion : added) {
+            if (!completion.removed) {
+                wordOffsets(completion).forEach(offset -> fresh.add(new Key(completion, offset)));
+            }
+        }
+        fresh.sort(SuggestionIndex::compare);
+
+        int size = keyCount - dead.cardinality() + fresh.size();
+        Completion[] completions = new Completion[size];
+        int[] offsets = new int[size];
+        int newLeaves = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        float[] newTree = new float[2 * newLeaves];
+        Arrays.fill(newTree, Float.NEGATIVE_INFINITY);
+
+        int n = 0;
+        int copied = 0;
+        for (Key key : fresh) {
+            int position = lowerBound(key.completion.key, key.offset);
+            for (; copied < position; copied++) {
+                if (!dead.get(copied)) {
+                    completions[n] = keyCompletions[copied];
+                    offsets[n] = keyOffsets[copied];
+                    newTree[newLeaves + n++] = tree[leaves + copied];
+                }
+            }
+            completions[n] = key.completion;
+            offsets[n] = key.offset;
+            newTree[newLeaves + n++] = key.completion.weight;
+        }
+        for (; copied < keyCount; copied++) {
+            if (!dead.get(copied)) {
+                completions[n] = keyCompletions[copied];
+                offsets[n] = keyOffsets[copied];
+                newTree[newLeaves + n++] = tree[leaves + copied];
+            }
+        }
+        for (int node = newLeaves - 1; node > 0; node--) {
+            newTree[node] = Math.max(newTree[2 * node], newTree[2 * node + 1]);
+        }
+
+        keyCompletions = completions;
+        keyOffsets = offsets;
+        keyCount = size;
+        leaves = newLeaves;
+        tree = newTree;
+    }
+
+    private void updateWeight(Completion completion) {
+        if (completion.removed) {
+            return;
+        }
+        for (int offset : wordOffsets(completion)) {
+            int row = rowOf(completion, offset);
+            if (row >= 0 && tree[leaves + row] != completion.weight) {
+                int node = leaves + row;
+                tree[node] = completion.weight;
+                for (node >>= 1; node > 0; node >>= 1) {
+                    tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+                }
+            }
+        }
+    }
+
+    private int rowOf(Completion completion, int offset) {
+        for (int row = lowerBound(completion.key, offset); row < keyCount
+                && compare(keyCompletions[row].key, keyOffsets[row], completion.key, offset) == 0; row++) {
+            if (keyCompletions[row] == completion && keyOffsets[row] == offset) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private int lowerBound(String value) {
+        return lowerBound(value, 0);
+    }
+
+    private int lowerBound(String value, int valueOffset) {
+        int low = 0;
+        int high = keyCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(keyCompletions[mid].key, keyOffsets[mid], value, valueOffset) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private float weight(Product product) {
+        int stock = product.getStock() != null ? product.getStock() : 0;
+        double availability = stock > 0 ? 1 + (double) Math.min(stock, MAX_STOCK_BOOST) / MAX_STOCK_BOOST : 0.1;
+        return (float) ((1 + Math.log1p(demand.applyAsDouble(product.getId()))) * availability);
+    }
+
+    private static List<Integer> wordOffsets(Completion completion) {
+        List<Integer> offsets = new ArrayList<>();
+        if (completion.type != SuggestionDTO.Type.PRODUCT) {
+            offsets.add(0);
+            return offsets;
+        }
+        String key = completion.key;
+        for (int i = 0; i < key.length() && offsets.size() < MAX_WORDS_PER_NAME; i++) {
+            if (i == 0 || key.charAt(i - 1) == ' ') {
+                offsets.add(i);
+            }
+        }
+        return offsets;
+    }
+
+    private static int compare(Key a, Key b) {
+        return compare(a.completion.key, a.offset, b.completion.key, b.offset);
+    }
+
+    // Compares the suffixes of two strings without copying them
+    private static int compare(String a, int aOffset, String b, int bOffset) {
+        int aLength = a.length() - aOffset;
+        int bLength = b.length() - bOffset;
+        for (int i = 0; i < Math.min(aLength, bLength); i++) {
+            int diff = a.charAt(aOffset + i) - b.charAt(bOffset + i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return aLength - bLength;
+    }
+
+    private static String groupKey(SuggestionDTO.Type type, String key) {
+        return type.name() + ':' + key;
+    }
+
+    private static final class Completion {
+
+        private final SuggestionDTO.Type type;
+        private final String text;
+        private final String key;
+        private final String productId;
+        private float weight;
+        private int members;
+        private boolean removed;
+
+        Completion(SuggestionDTO.Type type, String text, String key, String productId) {
+            this.type = type;
+            this.text = text;
+            this.key = key;
+            this.productId = productId;
+        }
+
+        // Groups weigh as much as their products together
+        void adjust(float delta) {
+            if (type != SuggestionDTO.Type.PRODUCT) {
+                weight += delta;
+            }
+        }
+    }
+
+    private record Key(Completion completion, int offset) {
+    }
+
+    private record ProductEntry(Completion completion, List<Completion> groups,
+            String name, String category, List<String> tags) {
+
+        boolean sameKeys(Product product) {
+            return Objects.equals(name, product.getName())
+                    && Objects.equals(category, product.getCategory())
+                    && Objects.equals(tags, product.getTags());
+        }
+    }
+}
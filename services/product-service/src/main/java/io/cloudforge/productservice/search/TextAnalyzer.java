@@ -0,0 +1,75 @@
+package io.cloudforge.productservice.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Turns catalog text and queries into index terms: accents folded, lower-cased,
+ * split on anything that is not a letter or digit, stop words dropped and plural
+ * "s" stripped so "shoes" finds "shoe".
+ */
+final class TextAnalyzer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "the", "to", "with");
+
+    private TextAnalyzer() {
+    }
+
+    static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        String folded = fold(text);
+
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = folded.substring(start, i);
+                if (!STOP_WORDS.contains(token)) {
+                    terms.add(stem(token));
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Folds text for prefix matching: accents removed, lower-cased, and every run of
+     * other characters collapsed to a single space. Words are kept as typed.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return SEPARATORS.matcher(fold(text)).replaceAll(" ").trim();
+    }
+
+    private static String fold(String text) {
+        return DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private static String stem(String token) {
+        if (token.length() > 3 && token.endsWith("s") && !token.endsWith("ss")
+                && !Character.isDigit(token.charAt(token.length() - 2))) {
+            return token.endsWith("ies") && token.length() > 4
+                    ? token.substring(0, token.length() - 3) + "y"
+                    : token.substring(0, token.length() - 1);
+        }
+        return token;
+    }
+}
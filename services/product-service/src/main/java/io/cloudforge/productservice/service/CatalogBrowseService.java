@@ -0,0 +1,239 @@
+package io.cloudforge.productservice.service;
+
+import io.cloudforge.productservice.dto.CatalogBrowseResponse;
+import io.cloudforge.productservice.dto.ProductDTO;
+import io.cloudforge.productservice.model.Product;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Faceted catalog browsing: one {@code $facet} aggregation returns the page of
+ * products, the total, and the counts per category, tag and price bucket.
+ *
+ * Prices are stored as strings, so the pipeline converts them to decimals once up
+ * front for filtering, sorting and bucketing. Results are kept per filter combination
+ * for a short time; product writes on this instance clear them at once.
+ */
+@Service
+public class CatalogBrowseService {
+
+    private static final String PRICE = "priceValue";
+
+    private final MongoTemplate mongoTemplate;
+    private final List<BigDecimal> priceBounds;
+    private final Map<BrowseKey, CachedBrowse> cache = new ConcurrentHashMap<>();
+
+    @Value("${catalog.facets.max-values:50}")
+    private int maxFacetValues;
+
+    @Value("${catalog.facets.cache-ttl-ms:30000}")
+    private long cacheTtlMs;
+
+    @Value("${catalog.facets.cache-max-entries:1000}")
+    private int cacheMaxEntries;
+
+    public CatalogBrowseService(MongoTemplate mongoTemplate,
+            @Value("${catalog.facets.price-bounds:0,25,50,100,250,500,1000}") BigDecimal[] priceBounds) {
+        this.mongoTemplate = mongoTemplate;
+        this.priceBounds = Arrays.stream(priceBounds).sorted().distinct().toList();
+    }
+
+    public CatalogBrowseResponse browse(String category, Collection<String> tags,
+            BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        BrowseKey key = new BrowseKey(blankToNull(category),
+                tags != null ? new TreeSet<>(tags) : Set.of(),
+                minPrice != null ? minPrice.stripTrailingZeros() : null,
+                maxPrice != null ? maxPrice.stripTrailingZeros() : null,
+                pageable);
+
+        long now = System.currentTimeMillis();
+        CachedBrowse cached = cache.get(key);
+        if (cached != null && now - cached.loadedAt < cacheTtlMs) {
+            return cached.response;
+        }
+
+        CatalogBrowseResponse response = aggregate(key);
+        if (cache.size() >= cacheMaxEntries && !cache.containsKey(key)) {
+            makeRoom();
+        }
+        cache.put(key, new CachedBrowse(response, now));
+        return response;
+    }
+
+    /**
+     * Drops every cached result, after a product was created, changed or deleted.
+     */
+    public void invalidate() {
+        cache.clear();
+    }
+
+    private CatalogBrowseResponse aggregate(BrowseKey key) {
+        Pageable pageable = key.pageable();
+        List<AggregationOperation> productPipeline = new ArrayList<>();
+        productPipeline.add(Aggregation.match(filters(key, true, true, true)));
+        productPipeline.add(Aggregation.sort(sort(pageable.getSort())));
+        if (pageable.isPaged()) {
+            productPipeline.add(Aggregation.skip(pageable.getOffset()));
+            productPipeline.add(Aggregation.limit(pageable.getPageSize()));
+        }
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("active").is(true)),
+                Aggregation.addFields().addField(PRICE)
+                        .withValueOf(ConvertOperators.valueOf("price").convertToDecimal()).build(),
+                Aggregation.facet(productPipeline.toArray(AggregationOperation[]::new)).as("products")
+                        .and(Aggregation.match(filters(key, true, true, true)),
+                                Aggregation.count().as("total")).as("total")
+                        .and(Aggregation.match(filters(key, false, true, true)),
+                                Aggregation.group("category").count().as("count"),
+                                Aggregation.sort(Sort.by(Sort.Direction.DESC, "count").and(Sort.by("_id"))),
+                                Aggregation.limit(maxFacetValues)).as("categories")
+                        .and(Aggregation.match(filters(key, true, false, true)),
+                                Aggregation.unwind("tags"),
+                                Aggregation.group("tags").count().as("count"),
+                                Aggregation.sort(Sort.by(Sort.Direction.DESC, "count").and(Sort.by("_id"))),
+                                Aggregation.limit(maxFacetValues)).as("tags")
+                        .and(Aggregation.match(filters(key, true, true, false)),
+                                Aggregation.bucket(PRICE)
+                                        .withBoundaries(priceBounds.stream().map(Decimal128::new).toArray())
+                                        .withDefaultBucket("other")
+                                        .andOutputCount().as("count")).as("prices"));
+
+        Document result = mongoTemplate.aggregate(aggregation,
+                mongoTemplate.getCollectionName(Product.class), Document.class).getUniqueMappedResult();
+        if (result == null) {
+            result = new Document();
+        }
+
+        List<ProductDTO> products = result.getList("products", Document.class, List.of()).stream()
+                .map(document -> ProductDTO.fromEntity(mongoTemplate.getConverter().read(Product.class, document)))
+                .toList();
+        List<Document> total = result.getList("total", Document.class, List.of());
+        long totalElements = total.isEmpty() ? 0 : ((Number) total.get(0).get("total")).longValue();
+        int size = pageable.isPaged() ? pageable.getPageSize() : Math.max(products.size(), 1);
+
+        return CatalogBrowseResponse.builder()
+                .products(products)
+                .page(pageable.isPaged() ? pageable.getPageNumber() : 0)
+                .size(size)
+                .totalElements(totalElements)
+                .totalPages((int) ((totalElements + size - 1) / size))
+                .categories(counts(result.getList("categories", Document.class, List.of())))
+                .tags(counts(result.getList("tags", Document.class, List.of())))
+                .priceBuckets(priceBuckets(result.getList("prices", Document.class, List.of())))
+                .build();
+    }
+
+    /**
+     * The filters of the request, leaving out the dimensions a facet counts over.
+     */
+    private Criteria filters(BrowseKey key, boolean byCategory, boolean byTags, boolean byPrice) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (byCategory && key.category() != null) {
+            criteria.add(Criteria.where("category").is(key.category()));
+        }
+        if (byTags && !key.tags().isEmpty()) {
+            criteria.add(Criteria.where("tags").all(key.tags()));
+        }
+        if (byPrice && key.minPrice() != null) {
+            criteria.add(Criteria.where(PRICE).gte(new Decimal128(key.minPrice())));
+        }
+        if (byPrice && key.maxPrice() != null) {
+            criteria.add(Criteria.where(PRICE).lte(new Decimal128(key.maxPrice())));
+        }
+        return criteria.isEmpty() ? new Criteria() : new Criteria().andOperator(criteria);
+    }
+
+    // Newest first unless asked otherwise; price sorts by its numeric value
+    private static Sort sort(Sort requested) {
+        if (requested.isUnsorted()) {
+            return Sort.by(Sort.Direction.DESC, "createdAt", "_id");
+        }
+        List<Sort.Order> orders = new ArrayList<>();
+        requested.forEach(order -> orders.add(order.getProperty().equals("price")
+                ? new Sort.Order(order.getDirection(), PRICE)
+                : order));
+        orders.add(Sort.Order.asc("_id"));
+        return Sort.by(orders);
+    }
+
+    private static Map<String, Long> counts(List<Document> groups) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Document group : groups) {
+            Object value = group.get("_id");
+            if (value != null) {
+                counts.put(value.toString(), ((Number) group.get("count")).longValue());
+            }
+        }
+        return counts;
+    }
+
+    // Every bucket is listed, empty ones included, so the UI can render a stable range
+    private List<CatalogBrowseResponse.PriceBucket> priceBuckets(List<Document> buckets) {
+        Map<BigDecimal, Long> byLowerBound = new LinkedHashMap<>();
+        long above = 0;
+        for (Document bucket : buckets) {
+            long count = ((Number) bucket.get("count")).longValue();
+            if (bucket.get("_id") instanceof Decimal128 lowerBound) {
+                byLowerBound.put(lowerBound.bigDecimalValue().stripTrailingZeros(), count);
+            } else {
+                above += count;
+            }
+        }
+
+        List<CatalogBrowseResponse.PriceBucket> result = new ArrayList<>();
+        for (int i = 0; i < priceBounds.size() - 1; i++) {
+            BigDecimal min = priceBounds.get(i);
+            result.add(CatalogBrowseResponse.PriceBucket.builder()
+                    .min(min)
+                    .max(priceBounds.get(i + 1))
+                    .count(byLowerBound.getOrDefault(min.stripTrailingZeros(), 0L))
+                    .build());
+        }
+        // Beyond the last bound (and anything priced below the first) lands in "other"
+        result.add(CatalogBrowseResponse.PriceBucket.builder()
+                .min(priceBounds.get(priceBounds.size() - 1))
+                .count(above)
+                .build());
+        return result;
+    }
+
+    private void makeRoom() {
+        long now = System.currentTimeMillis();
+        cache.values().removeIf(c -> now - c.loadedAt >= cacheTtlMs);
+        if (cache.size() >= cacheMaxEntries) {
+            cache.clear();
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private record BrowseKey(String category, Set<String> tags, BigDecimal minPrice, BigDecimal maxPrice,
+            Pageable pageable) {
+    }
+
+    private record CachedBrowse(CatalogBrowseResponse response, long loadedAt) {
+    }
+}
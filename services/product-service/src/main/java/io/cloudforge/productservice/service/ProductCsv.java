@@ -0,0 +1,166 @@
+package io.cloudforge.productservice.service;
+
+import io.cloudforge.productservice.dto.ProductDTO;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * CSV form of a product for bulk import and export: one header row naming the
+ * columns, RFC 4180 quoting, and list fields (images, tags) joined with {@code |}.
+ */
+final class ProductCsv {
+
+    static final List<String> COLUMNS = List.of(
+            "id", "name", "description", "category", "price", "stock", "sku", "images", "tags", "active");
+
+    private static final String LIST_SEPARATOR = "|";
+
+    private ProductCsv() {
+    }
+
+    static String header() {
+        return String.join(",", COLUMNS);
+    }
+
+    static String row(ProductDTO product) {
+        return String.join(",",
+                escape(product.getId()),
+                escape(product.getName()),
+                escape(product.getDescription()),
+                escape(product.getCategory()),
+                escape(product.getPrice() != null ? product.getPrice().toPlainString() : null),
+                escape(product.getStock() != null ? product.getStock().toString() : null),
+                escape(product.getSku()),
+                escape(product.getImages() != null ? String.join(LIST_SEPARATOR, product.getImages()) : null),
+                escape(product.getTags() != null ? String.join(LIST_SEPARATOR, product.getTags()) : null),
+                Boolean.toString(product.isActive()));
+    }
+
+    /**
+     * Maps column names, case-insensitively, to their position in the header row.
+     */
+    static Map<String, Integer> columns(List<String> header) {
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            positions.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        return positions;
+    }
+
+    /**
+     * @throws IllegalArgumentException naming the column that does not parse
+     */
+    static ProductDTO toProduct(List<String> fields, Map<String, Integer> columns) {
+        ProductDTO product = new ProductDTO();
+        product.setId(field(fields, columns, "id"));
+        product.setName(field(fields, columns, "name"));
+        product.setDescription(field(fields, columns, "description"));
+        product.setCategory(field(fields, columns, "category"));
+        product.setSku(field(fields, columns, "sku"));
+        product.setImages(list(field(fields, columns, "images")));
+        product.setTags(list(field(fields, columns, "tags")));
+
+        String price = field(fields, columns, "price");
+        String stock = field(fields, columns, "stock");
+        String active = field(fields, columns, "active");
+        try {
+            product.setPrice(price != null ? new BigDecimal(price) : null);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid price: " + price);
+        }
+        try {
+            product.setStock(stock != null ? Integer.valueOf(stock) : null);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid stock: " + stock);
+        }
+        product.setActive(active == null || Boolean.parseBoolean(active));
+        return product;
+    }
+
+    /**
+     * Reads the next record, which may span lines inside quotes.
+     *
+     * @return the fields, or null at the end of the input
+     */
+    static List<String> read(BufferedReader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c != '"') {
+                    field.append((char) c);
+                    continue;
+                }
+                reader.mark(1);
+                int next = reader.read();
+                if (next == '"') {
+                    field.append('"');
+                } else {
+                    quoted = false;
+                    if (next != -1) {
+                        reader.reset();
+                    }
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!any) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    static boolean isBlank(List<String> fields) {
+        return fields.size() == 1 && fields.get(0).isBlank();
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer position = columns.get(column);
+        if (position == null || position >= fields.size() || fields.get(position).isBlank()) {
+            return null;
+        }
+        return fields.get(position).trim();
+    }
+
+    private static List<String> list(String value) {
+        if (value == null) {
+            return null;
+        }
+        return Arrays.stream(value.split("\\|"))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .toList();
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
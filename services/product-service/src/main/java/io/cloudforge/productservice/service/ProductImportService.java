@@ -0,0 +1,341 @@
+package io.cloudforge.productservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.cloudforge.productservice.dto.ProductDTO;
+import io.cloudforge.productservice.dto.ProductImportResult;
+import io.cloudforge.productservice.model.Product;
+import io.cloudforge.productservice.search.ProductSearchIndex;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Bulk catalog import and export.
+ *
+ * Imports are read one record at a time, validated like the create endpoint, and
+ * written in unordered bulk writes of {@code catalog.import.batch-size} records.
+ * Records with an id or SKU replace the product they identify, or create it; others
+ * are inserted. Caches and the search index are refreshed once per batch, and bad
+ * records are reported by position without stopping the import. Exports stream from
+ * a cursor. Either way only one batch is held in memory, however large the catalog.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductImportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final CacheManager cacheManager;
+    private final ProductSearchIndex productSearchIndex;
+    private final CatalogBrowseService catalogBrowseService;
+
+    @Value("${catalog.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${catalog.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public ProductImportResult importProducts(InputStream body, Format format) throws IOException {
+        ImportRun run = new ImportRun();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+
+        if (format == Format.NDJSON) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                long record = ++run.received;
+                try {
+                    run.accept(record, objectMapper.readValue(line, ProductDTO.class));
+                } catch (JsonProcessingException e) {
+                    run.fail(record, null, null, "Malformed JSON: " + e.getOriginalMessage());
+                }
+            }
+        } else {
+            List<String> header = ProductCsv.read(reader);
+            Map<String, Integer> columns = header != null ? ProductCsv.columns(header) : Map.of();
+            List<String> fields;
+            while ((fields = ProductCsv.read(reader)) != null) {
+                if (ProductCsv.isBlank(fields)) {
+                    continue;
+                }
+                long record = ++run.received;
+                try {
+                    run.accept(record, ProductCsv.toProduct(fields, columns));
+                } catch (IllegalArgumentException e) {
+                    run.fail(record, null, null, e.getMessage());
+                }
+            }
+        }
+        run.flush();
+
+        log.info("Imported products: {} received, {} created, {} updated, {} failed",
+                run.received, run.created, run.updated, run.failed);
+        return ProductImportResult.builder()
+                .received(run.received)
+                .created(run.created)
+                .updated(run.updated)
+                .failed(run.failed)
+                .errors(run.errors)
+                .errorsTruncated(run.failed > run.errors.size())
+                .build();
+    }
+
+    /**
+     * Writes every product, active or not, in id order.
+     */
+    public void exportProducts(OutputStream out, Format format) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        if (format == Format.CSV) {
+            writer.write(ProductCsv.header());
+            writer.write('\n');
+        }
+        long exported = 0;
+        try (Stream<Product> products = mongoTemplate.stream(
+                new Query().with(Sort.by("_id")), Product.class)) {
+            for (Product product : (Iterable<Product>) products::iterator) {
+                ProductDTO dto = ProductDTO.fromEntity(product);
+                writer.write(format == Format.CSV ? ProductCsv.row(dto) : objectMapper.writeValueAsString(dto));
+                writer.write('\n');
+                exported++;
+            }
+        }
+        writer.flush();
+        log.info("Exported {} products as {}", exported, format);
+    }
+
+    private BulkWriteResult write(List<PendingRecord> batch, ImportRun run) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        LocalDateTime now = LocalDateTime.now();
+        ShardedProducts sharded = shardedProducts(batch);
+        for (PendingRecord pending : batch) {
+            ProductDTO dto = pending.product();
+            if (pending.id() != null && dto.getId() == null) {
+                Product product = dto.toEntity();
+                product.setId(pending.id());
+                product.setCreatedAt(now);
+                product.setUpdatedAt(now);
+                bulk.insert(product);
+            } else {
+                Criteria key = dto.getId() != null
+                        ? Criteria.where("_id").is(dto.getId())
+                        : Criteria.where("sku").is(dto.getSku());
+                Update update = new Update()
+                        .set("name", dto.getName())
+                        .set("description", dto.getDescription())
+                        .set("category", dto.getCategory())
+                        .set("price", dto.getPrice())
+                        .set("sku", dto.getSku())
+                        .set("images", dto.getImages())
+                        .set("tags", dto.getTags())
+                        .set("active", dto.isActive())
+                        .set("updatedAt", now)
+                        .setOnInsert("createdAt", now);
+                if (sharded.contains(dto)) {
+                    // Sharded stock only changes through updateStock and reservations, as in updateProduct
+                    log.debug("Keeping sharded stock of product {} on import", dto.getId() != null ? dto.getId() : dto.getSku());
+                } else {
+                    update.set("stock", dto.getStock());
+                }
+                bulk.upsert(Query.query(key), update);
+            }
+        }
+
+        try {
+            return bulk.execute();
+        } catch (BulkOperationException e) {
+            Set<Integer> failedAt = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (failedAt.add(error.getIndex())) {
+                    PendingRecord pending = batch.get(error.getIndex());
+                    run.fail(pending.record(), pending.product().getId(), pending.product().getSku(), error.getMessage());
+                }
+            }
+            failedAt.stream().sorted(Comparator.reverseOrder()).forEach(index -> batch.remove((int) index));
+            return e.getResult();
+        }
+    }
+
+    /**
+     * Finds the products of the batch whose stock is sharded, in one query. A product
+     * sharded after this read has its stored total overwritten by the import, which the
+     * next rebalance corrects; the shards themselves are never touched.
+     */
+    private ShardedProducts shardedProducts(List<PendingRecord> batch) {
+        List<String> ids = new ArrayList<>();
+        List<String> skus = new ArrayList<>();
+        for (PendingRecord pending : batch) {
+            if (pending.product().getId() != null) {
+                ids.add(pending.product().getId());
+            } else if (pending.id() == null) {
+                skus.add(pending.product().getSku());
+            }
+        }
+        List<Criteria> keys = new ArrayList<>();
+        if (!ids.isEmpty()) {
+            keys.add(Criteria.where("_id").in(ids));
+        }
+        if (!skus.isEmpty()) {
+            keys.add(Criteria.where("sku").in(skus));
+        }
+        if (keys.isEmpty()) {
+            return new ShardedProducts(Set.of(), Set.of());
+        }
+
+        Query query = Query.query(new Criteria().andOperator(
+                Criteria.where("stockShards").ne(null), new Criteria().orOperator(keys)));
+        query.fields().include("_id", "sku");
+        Set<String> shardedIds = new HashSet<>();
+        Set<String> shardedSkus = new HashSet<>();
+        for (Product product : mongoTemplate.find(query, Product.class)) {
+            shardedIds.add(product.getId());
+            if (product.getSku() != null) {
+                shardedSkus.add(product.getSku());
+            }
+        }
+        return new ShardedProducts(shardedIds, shardedSkus);
+    }
+
+    /**
+     * Reads the batch back once and brings caches and the search index up to date.
+     */
+    private void refresh(List<PendingRecord> written) {
+        List<Object> ids = new ArrayList<>();
+        List<String> skus = new ArrayList<>();
+        for (PendingRecord pending : written) {
+            if (pending.product().getId() != null || pending.id() != null) {
+                ids.add(pending.product().getId() != null ? pending.product().getId() : pending.id());
+            } else {
+                skus.add(pending.product().getSku());
+            }
+        }
+        List<Criteria> keys = new ArrayList<>();
+        if (!ids.isEmpty()) {
+            keys.add(Criteria.where("_id").in(ids));
+        }
+        if (!skus.isEmpty()) {
+            keys.add(Criteria.where("sku").in(skus));
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        List<Product> products = mongoTemplate.find(
+                Query.query(new Criteria().orOperator(keys)), Product.class);
+        productSearchIndex.indexAll(products);
+
+        Cache productCache = cacheManager.getCache("product");
+        if (productCache != null) {
+            products.forEach(product -> productCache.evict(product.getId()));
+        }
+        Cache latest = cacheManager.getCache("latestProducts");
+        if (latest != null) {
+            latest.clear();
+        }
+        catalogBrowseService.invalidate();
+    }
+
+    private record PendingRecord(long record, ProductDTO product, String id) {
+    }
+
+    private record ShardedProducts(Set<String> ids, Set<String> skus) {
+
+        boolean contains(ProductDTO product) {
+            return product.getId() != null ? ids.contains(product.getId()) : skus.contains(product.getSku());
+        }
+    }
+
+    /** Counters, reported errors and the batch being filled for one import. */
+    private final class ImportRun {
+
+        private final List<PendingRecord> batch = new ArrayList<>();
+        private final List<ProductImportResult.RecordError> errors = new ArrayList<>();
+        private long received;
+        private long created;
+        private long updated;
+        private long failed;
+
+        void accept(long record, ProductDTO product) {
+            Set<ConstraintViolation<ProductDTO>> violations = validator.validate(product);
+            if (!violations.isEmpty()) {
+                fail(record, product.getId(), product.getSku(), violations.stream()
+                        .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            // Without an id or SKU there is nothing to match on; the product is new
+            String newId = product.getId() == null && product.getSku() == null ? new ObjectId().toHexString() : null;
+            batch.add(new PendingRecord(record, product, newId));
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void fail(long record, String id, String sku, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(ProductImportResult.RecordError.builder()
+                        .record(record)
+                        .id(id)
+                        .sku(sku)
+                        .message(message)
+                        .build());
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            BulkWriteResult result = write(batch, this);
+            if (result != null) {
+                created += result.getInsertedCount() + result.getUpserts().size();
+                updated += result.getMatchedCount();
+            }
+            refresh(batch);
+            batch.clear();
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package io.cloudforge.productservice.service;
 
 import io.cloudforge.productservice.dto.ProductDTO;
+import io.cloudforge.productservice.dto.SuggestionDTO;
 import io.cloudforge.productservice.model.Product;
 import io.cloudforge.productservice.repository.ProductRepository;
+import io.cloudforge.productservice.search.ProductSearchIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
@@ -11,6 +13,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -20,6 +25,9 @@ import java.util.stream.Collectors;
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final CatalogBrowseService catalogBrowseService;
+    private final StockShardService stockShardService;
 
     // Note: Page objects cannot be cached in Redis due to serialization issues
     // Caching disabled for paginated results to avoid ClassCastException
@@ -32,7 +40,20 @@ public class ProductService {
     public ProductDTO getProductById(String id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found: " + id));
-        return ProductDTO.fromEntity(product);
+        return ProductDTO.fromEntity(stockShardService.withLiveStock(product));
+    }
+
+    /**
+     * Looks up many products with one {@code $in} query. Inactive products are
+     * included so callers can tell "no longer sold" from "unknown"; unknown ids are
+     * left out.
+     */
+    public List<ProductDTO> getProductsByIds(Collection<String> ids) {
+        List<Product> products = new ArrayList<>();
+        productRepository.findAllById(new LinkedHashSet<>(ids)).forEach(products::add);
+        return stockShardService.withLiveStock(products).stream()
+                .map(ProductDTO::fromEntity)
+                .toList();
     }
 
     // Note: Page objects cannot be cached in Redis due to serialization issues
@@ -41,12 +62,17 @@ public class ProductService {
                 .map(ProductDTO::fromEntity);
     }
 
-    // Note: Page objects cannot be cached in Redis due to serialization issues
+    // Served from the in-memory index; Mongo's text search only until it is built
     public Page<ProductDTO> searchProducts(String query, Pageable pageable) {
-        return productRepository.searchByText(query, pageable)
+        return productSearchIndex.search(query, pageable)
+                .orElseGet(() -> productRepository.searchByText(query, pageable))
                 .map(ProductDTO::fromEntity);
     }
 
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        return productSearchIndex.suggest(prefix, limit);
+    }
+
     @Cacheable(value = "latestProducts")
     public List<ProductDTO> getLatestProducts() {
         return productRepository.findTop10ByActiveTrueOrderByCreatedAtDesc()
@@ -59,6 +85,8 @@ public class ProductService {
     public ProductDTO createProduct(ProductDTO productDTO) {
         Product product = productDTO.toEntity();
         Product savedProduct = productRepository.save(product);
+        productSearchIndex.index(savedProduct);
+        catalogBrowseService.invalidate();
         log.info("Created product: {}", savedProduct.getId());
         return ProductDTO.fromEntity(savedProduct);
     }
@@ -72,13 +100,18 @@ public class ProductService {
         existingProduct.setDescription(productDTO.getDescription());
         existingProduct.setCategory(productDTO.getCategory());
         existingProduct.setPrice(productDTO.getPrice());
-        existingProduct.setStock(productDTO.getStock());
+        if (existingProduct.getStockShards() == null) {
+            // Sharded stock only changes through updateStock and reservations
+            existingProduct.setStock(productDTO.getStock());
+        }
         existingProduct.setSku(productDTO.getSku());
         existingProduct.setImages(productDTO.getImages());
         existingProduct.setTags(productDTO.getTags());
         existingProduct.setActive(productDTO.isActive());
 
         Product savedProduct = productRepository.save(existingProduct);
+        productSearchIndex.index(savedProduct);
+        catalogBrowseService.invalidate();
         log.info("Updated product: {}", savedProduct.getId());
         return ProductDTO.fromEntity(savedProduct);
     }
@@ -89,6 +122,8 @@ public class ProductService {
             throw new RuntimeException("Product not found: " + id);
         }
         productRepository.deleteById(id);
+        productSearchIndex.remove(id);
+        catalogBrowseService.invalidate();
         log.info("Deleted product: {}", id);
     }
 
@@ -96,6 +131,11 @@ public class ProductService {
     public ProductDTO updateStock(String id, Integer quantity) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found: " + id));
+        if (product.getStockShards() != null) {
+            Product adjusted = stockShardService.adjust(product, quantity);
+            log.info("Updated sharded stock for product {} by {}", id, quantity);
+            return ProductDTO.fromEntity(adjusted != null ? adjusted : product);
+        }
 
         int newStock = product.getStock() + quantity;
         if (newStock < 0) {
@@ -104,6 +144,7 @@ public class ProductService {
 
         product.setStock(newStock);
         Product savedProduct = productRepository.save(product);
+        productSearchIndex.index(savedProduct);
         log.info("Updated stock for product {}: {} -> {}", id, product.getStock() - quantity, newStock);
 
         return ProductDTO.fromEntity(savedProduct);
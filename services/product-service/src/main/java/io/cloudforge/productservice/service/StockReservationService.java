@@ -0,0 +1,205 @@
+package io.cloudforge.productservice.service;
+
+import io.cloudforge.productservice.dto.StockReservationRequest;
+import io.cloudforge.productservice.exception.InsufficientStockException;
+import io.cloudforge.productservice.model.Product;
+import io.cloudforge.productservice.model.StockReservation;
+import io.cloudforge.productservice.search.ProductSearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * All-or-nothing stock reservations for checkout.
+ *
+ * Each line is taken with a conditional {@code $inc} that only matches while enough
+ * stock is left, so concurrent checkouts can never oversell. If any line cannot be
+ * taken, the lines already taken are given back before the conflict is reported.
+ * A line is only recorded while the reservation is still {@code RESERVING}, so a
+ * release that overtakes a reserve either sees the line and gives it back, or the
+ * reserve finds the reservation released and gives the line back itself.
+ * Products with sharded stock are taken from their shards by {@link StockShardService}.
+ * Both operations are idempotent on the reservation id.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockReservationService {
+
+    private final MongoTemplate mongoTemplate;
+    private final CacheManager cacheManager;
+    private final ProductSearchIndex productSearchIndex;
+    private final StockShardService stockShardService;
+
+    public void reserve(StockReservationRequest request) {
+        String reservationId = request.getReservationId();
+
+        try {
+            mongoTemplate.insert(StockReservation.builder()
+                    .id(reservationId)
+                    .status(StockReservation.Status.RESERVING)
+                    .createdAt(Instant.now())
+                    .build());
+        } catch (DuplicateKeyException e) {
+            StockReservation existing = mongoTemplate.findById(reservationId, StockReservation.class);
+            if (existing != null && existing.getStatus() == StockReservation.Status.RESERVED) {
+                log.debug("Reservation {} already in place", reservationId);
+                return;
+            }
+            throw new InsufficientStockException("Reservation " + reservationId + " is no longer available");
+        }
+
+        // Merge repeated products and take them in a fixed order
+        Map<String, Integer> lines = new TreeMap<>();
+        request.getItems().forEach(item -> lines.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+
+        for (Map.Entry<String, Integer> line : lines.entrySet()) {
+            String productId = line.getKey();
+            if (!whileReserving(reservationId, new Update().addToSet("pending", productId))) {
+                throw releasedWhileReserving(reservationId);
+            }
+            List<StockReservation.Line> taken = take(productId, line.getValue());
+            if (taken == null) {
+                whileReserving(reservationId, new Update().pull("pending", productId));
+                release(reservationId);
+                throw new InsufficientStockException("Insufficient stock for product: " + productId);
+            }
+            if (!whileReserving(reservationId,
+                    new Update().pull("pending", productId).push("applied").each(taken.toArray()))) {
+                // Released between the take and now, so the release could not see these lines
+                giveBack(taken);
+                throw releasedWhileReserving(reservationId);
+            }
+        }
+
+        if (!whileReserving(reservationId, Update.update("status", StockReservation.Status.RESERVED))) {
+            // Released after the last line was recorded; the release gave every line back
+            throw releasedWhileReserving(reservationId);
+        }
+        log.info("Reserved {} products for reservation {}", lines.size(), reservationId);
+    }
+
+    /**
+     * Gives back everything the reservation took. Releasing twice, or releasing an
+     * unknown reservation, is a no-op; an unknown id is recorded as released so a late
+     * reserve with the same id cannot take stock afterwards.
+     */
+    public void release(String reservationId) {
+        StockReservation previous;
+        try {
+            previous = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(reservationId)
+                            .and("status").ne(StockReservation.Status.RELEASED)),
+                    new Update()
+                            .set("status", StockReservation.Status.RELEASED)
+                            .set("releasedAt", Instant.now())
+                            .setOnInsert("createdAt", Instant.now()),
+                    FindAndModifyOptions.options().upsert(true).returnNew(false),
+                    StockReservation.class);
+        } catch (DuplicateKeyException e) {
+            // The upsert collided with a reservation that is already released
+            previous = null;
+        }
+
+        if (previous == null) {
+            log.debug("Reservation {} already released or never taken", reservationId);
+            return;
+        }
+
+        giveBack(previous.getApplied());
+        if (!previous.getPending().isEmpty()) {
+            // A live reserve gives these back itself; one that died mid-take leaves them for reconciliation
+            log.warn("Reservation {} released while taking products {}", reservationId, previous.getPending());
+        }
+        log.info("Released reservation {} ({} products)", reservationId, previous.getApplied().size());
+    }
+
+    /**
+     * Applies the update only while the reservation is still being taken.
+     *
+     * @return false if the reservation has been released in the meantime
+     */
+    private boolean whileReserving(String reservationId, Update update) {
+        return mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(reservationId).and("status").is(StockReservation.Status.RESERVING)),
+                update,
+                StockReservation.class).getMatchedCount() > 0;
+    }
+
+    private InsufficientStockException releasedWhileReserving(String reservationId) {
+        return new InsufficientStockException("Reservation " + reservationId + " was released while it was being taken");
+    }
+
+    private void giveBack(List<StockReservation.Line> lines) {
+        for (StockReservation.Line line : lines) {
+            Product product = stockShardService.restore(line.getProductId(), line.getQuantity(), line.getShard());
+            stockChanged(line.getProductId(), product);
+        }
+    }
+
+    /**
+     * Takes the quantity from the product, or from its shards if its stock is sharded.
+     *
+     * @return the lines to record, or null if there is not enough stock
+     */
+    private List<StockReservation.Line> take(String productId, int quantity) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            boolean sharded = stockShardService.isSharded(productId);
+            List<StockReservation.Line> taken = sharded
+                    ? stockShardService.take(productId, quantity)
+                    : takeFromProduct(productId, quantity);
+            if (taken != null) {
+                if (sharded) {
+                    // The stored total catches up at the next rebalance; lookups sum the shards
+                    stockChanged(productId, null);
+                }
+                productSearchIndex.recordDemand(productId, quantity);
+                return taken;
+            }
+            // Missed; try once more if another instance has sharded or unsharded the product
+            if (stockShardService.checkSharded(productId) == sharded) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private List<StockReservation.Line> takeFromProduct(String productId, int quantity) {
+        Product product = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(productId)
+                        .and("active").is(true)
+                        .and("stockShards").is(null)
+                        .and("stock").gte(quantity)),
+                new Update().inc("stock", -quantity).currentDate("updatedAt"),
+                FindAndModifyOptions.options().returnNew(true),
+                Product.class);
+        if (product == null) {
+            return null;
+        }
+        stockChanged(productId, product);
+        return List.of(new StockReservation.Line(productId, quantity));
+    }
+
+    private void stockChanged(String productId, Product product) {
+        Cache cache = cacheManager.getCache("product");
+        if (cache != null) {
+            cache.evict(productId);
+        }
+        if (product != null) {
+            productSearchIndex.updateStock(product);
+        }
+    }
+}
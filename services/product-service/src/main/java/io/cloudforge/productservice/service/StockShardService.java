@@ -0,0 +1,425 @@
+package io.cloudforge.productservice.service;
+
+import io.cloudforge.productservice.dto.ProductDTO;
+import io.cloudforge.productservice.model.Product;
+import io.cloudforge.productservice.model.StockReservation;
+import io.cloudforge.productservice.model.StockShard;
+import io.cloudforge.productservice.search.ProductSearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Sharded stock for products that sell faster than one document can be updated.
+ *
+ * A reservation normally decrements {@code Product.stock}, so every checkout of a
+ * product queues on the same document. For a product flagged with
+ * {@code stockShards}, the stock is split across that many documents in
+ * {@code stock_shards} instead. A reservation takes from a random shard, then from its
+ * neighbour, and only if neither holds enough gathers the quantity from several
+ * shards. Concurrent checkouts of a hot product are thus spread over all its shards.
+ *
+ * A background pass tops up shards that ran low from the fullest ones and writes the
+ * total back to {@code Product.stock}, which listings and search read. Lookups of
+ * single products and batches sum the shards instead.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockShardService {
+
+    private static final int NEIGHBOUR_ATTEMPTS = 2;
+    private static final int DRAIN_ATTEMPTS = 3;
+    private static final int RESTORE_ATTEMPTS = 3;
+
+    private final MongoTemplate mongoTemplate;
+    private final CacheManager cacheManager;
+    private final ProductSearchIndex productSearchIndex;
+
+    // Active products with sharded stock and their shard counts; refreshed by every rebalance
+    private final Map<String, Integer> shardCounts = new ConcurrentHashMap<>();
+
+    @Value("${product.stock-shards.max-count:64}")
+    private int maxShards;
+
+    public boolean isSharded(String productId) {
+        return shardCounts.containsKey(productId);
+    }
+
+    /**
+     * Reads whether the product is sharded from MongoDB, for when a take missed because
+     * another instance sharded or unsharded it since the last rebalance.
+     */
+    public boolean checkSharded(String productId) {
+        Product product = mongoTemplate.findById(productId, Product.class);
+        if (product != null && product.isActive() && product.getStockShards() != null) {
+            shardCounts.put(productId, product.getStockShards());
+            return true;
+        }
+        shardCounts.remove(productId);
+        return false;
+    }
+
+    /**
+     * Takes the quantity from the shards of an active sharded product.
+     *
+     * @return one line per shard taken from, or null if the shards hold too little together
+     */
+    public List<StockReservation.Line> take(String productId, int quantity) {
+        Integer count = shardCounts.get(productId);
+        return count != null ? take(productId, count, quantity) : null;
+    }
+
+    /**
+     * Gives stock back to the shard it came from. Without a shard, or once that shard is
+     * gone because the product was unsharded, it goes to the product, or to a random
+     * shard if the product has been sharded in the meantime.
+     *
+     * @return the product, if the stock went to the product document
+     */
+    public Product restore(String productId, int quantity, Integer shard) {
+        for (int attempt = 0; attempt < RESTORE_ATTEMPTS; attempt++) {
+            if (shard != null && addTo(productId, shard, quantity)) {
+                return null;
+            }
+            Product product = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(productId).and("stockShards").is(null)),
+                    new Update().inc("stock", quantity).currentDate("updatedAt"),
+                    FindAndModifyOptions.options().returnNew(true),
+                    Product.class);
+            if (product != null) {
+                return product;
+            }
+            Product current = mongoTemplate.findById(productId, Product.class);
+            if (current == null) {
+                log.debug("Product {} is gone, dropping {} returned units", productId, quantity);
+                return null;
+            }
+            shard = current.getStockShards() != null
+                    ? ThreadLocalRandom.current().nextInt(current.getStockShards())
+                    : null;
+        }
+        log.warn("Could not give back {} units of product {} while its sharding changed", quantity, productId);
+        return null;
+    }
+
+    /**
+     * Adds to or takes from the stock of a sharded product, for manual stock updates.
+     */
+    public Product adjust(Product product, int quantity) {
+        String productId = product.getId();
+        int count = product.getStockShards();
+        if (quantity > 0) {
+            restore(productId, quantity, ThreadLocalRandom.current().nextInt(count));
+        } else if (quantity < 0 && take(productId, count, -quantity) == null) {
+            throw new RuntimeException("Insufficient stock for product: " + productId);
+        }
+        evictProduct(productId);
+        Product updated = mongoTemplate.findById(productId, Product.class);
+        return updated != null ? withLiveStock(updated) : null;
+    }
+
+    /**
+     * Splits the product's stock across {@code count} shards, between 2 and
+     * {@code product.stock-shards.max-count}. A product that is already sharded is
+     * unsharded first if the count changes.
+     */
+    public ProductDTO enable(String productId, int count) {
+        int shards = Math.max(2, Math.min(count, maxShards));
+        Product current = mongoTemplate.findById(productId, Product.class);
+        if (current == null) {
+            throw new RuntimeException("Product not found: " + productId);
+        }
+        if (current.getStockShards() != null) {
+            if (current.getStockShards() == shards) {
+                return ProductDTO.fromEntity(withLiveStock(current));
+            }
+            disable(productId);
+        }
+
+        // Shards exist before the product points at them, so a concurrent release always finds its shard
+        BulkOperations create = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StockShard.class);
+        for (int shard = 0; shard < shards; shard++) {
+            create.upsert(Query.query(Criteria.where("_id").is(StockShard.id(productId, shard))),
+                    new Update().setOnInsert("productId", productId).setOnInsert("shard", shard).inc("stock", 0));
+        }
+        create.execute();
+
+        Product previous = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(productId).and("stockShards").is(null)),
+                new Update().set("stockShards", shards).set("stock", 0).currentDate("updatedAt"),
+                FindAndModifyOptions.options().returnNew(false),
+                Product.class);
+        if (previous == null) {
+            throw new RuntimeException("Stock of product " + productId + " is being resharded concurrently");
+        }
+
+        int stock = previous.getStock() != null ? previous.getStock() : 0;
+        BulkOperations split = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StockShard.class);
+        for (int shard = 0; shard < shards; shard++) {
+            split.updateOne(Query.query(Criteria.where("_id").is(StockShard.id(productId, shard))),
+                    new Update().inc("stock", stock / shards + (shard < stock % shards ? 1 : 0)));
+        }
+        split.execute();
+        if (previous.isActive()) {
+            shardCounts.put(productId, shards);
+        }
+
+        Product product = refreshTotal(mongoTemplate.findById(productId, Product.class));
+        log.info("Split stock of product {} ({} units) across {} shards", productId, stock, shards);
+        return ProductDTO.fromEntity(product);
+    }
+
+    /**
+     * Moves the stock of every shard back onto the product and removes the shards.
+     */
+    public ProductDTO disable(String productId) {
+        Product previous = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(productId).and("stockShards").ne(null)),
+                new Update().unset("stockShards").set("stock", 0).currentDate("updatedAt"),
+                FindAndModifyOptions.options().returnNew(false),
+                Product.class);
+        shardCounts.remove(productId);
+        if (previous == null) {
+            Product product = mongoTemplate.findById(productId, Product.class);
+            if (product == null) {
+                throw new RuntimeException("Product not found: " + productId);
+            }
+            return ProductDTO.fromEntity(product);
+        }
+
+        // Each shard's stock is read as it is removed, so takes racing with this are never counted twice
+        int stock = 0;
+        StockShard shard;
+        while ((shard = mongoTemplate.findAndRemove(
+                Query.query(Criteria.where("productId").is(productId)), StockShard.class)) != null) {
+            stock += shard.getStock();
+        }
+        Product product = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(productId)),
+                new Update().inc("stock", stock).currentDate("updatedAt"),
+                FindAndModifyOptions.options().returnNew(true),
+                Product.class);
+        evictProduct(productId);
+        if (product != null) {
+            productSearchIndex.index(product);
+        }
+        log.info("Merged {} units of product {} back from {} shards", stock, productId, previous.getStockShards());
+        return ProductDTO.fromEntity(product != null ? product : previous);
+    }
+
+    public Product withLiveStock(Product product) {
+        withLiveStock(List.of(product));
+        return product;
+    }
+
+    /**
+     * Replaces the stored total of each sharded product with the sum of its shards now,
+     * using one query for all of them.
+     */
+    public List<Product> withLiveStock(List<Product> products) {
+        List<String> sharded = products.stream()
+                .filter(product -> product.getStockShards() != null)
+                .map(Product::getId)
+                .toList();
+        if (sharded.isEmpty()) {
+            return products;
+        }
+        Map<String, List<StockShard>> shards = shardsOf(sharded);
+        for (Product product : products) {
+            if (product.getStockShards() != null) {
+                product.setStock(total(shards.getOrDefault(product.getId(), List.of())));
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Tops up shards holding less than half their share from the fullest ones, so takes
+     * rarely have to fall back to gathering, and stores every sharded product's total.
+     */
+    @Scheduled(fixedDelayString = "${product.stock-shards.rebalance-interval-ms:1000}")
+    public void rebalance() {
+        List<Product> products = mongoTemplate.find(
+                Query.query(Criteria.where("stockShards").ne(null)), Product.class);
+        Map<String, Integer> active = new HashMap<>();
+        products.stream()
+                .filter(Product::isActive)
+                .forEach(product -> active.put(product.getId(), product.getStockShards()));
+        shardCounts.keySet().retainAll(active.keySet());
+        shardCounts.putAll(active);
+        if (products.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<StockShard>> shards = shardsOf(products.stream().map(Product::getId).toList());
+        for (Product product : products) {
+            List<StockShard> productShards = shards.getOrDefault(product.getId(), List.of());
+            int total = total(productShards);
+            even(product.getId(), product.getStockShards(), total, productShards);
+            if (!Objects.equals(product.getStock(), total)) {
+                storeTotal(product, total);
+            }
+        }
+    }
+
+    private List<StockReservation.Line> take(String productId, int count, int quantity) {
+        int first = ThreadLocalRandom.current().nextInt(count);
+        for (int i = 0; i < Math.min(NEIGHBOUR_ATTEMPTS, count); i++) {
+            int shard = (first + i) % count;
+            if (takeFrom(productId, shard, quantity)) {
+                return List.of(new StockReservation.Line(productId, quantity, shard));
+            }
+        }
+
+        // Both were short: read every shard once, then gather from the fullest down
+        List<StockShard> shards = new ArrayList<>(shardsOf(List.of(productId)).getOrDefault(productId, List.of()));
+        if (total(shards) < quantity) {
+            return null;
+        }
+        shards.sort(Comparator.comparingInt(StockShard::getStock).reversed());
+        List<StockReservation.Line> taken = new ArrayList<>();
+        int remaining = quantity;
+        for (StockShard shard : shards) {
+            if (remaining == 0) {
+                break;
+            }
+            int got = drain(productId, shard.getShard(), shard.getStock(), remaining);
+            if (got > 0) {
+                taken.add(new StockReservation.Line(productId, got, shard.getShard()));
+                remaining -= got;
+            }
+        }
+        if (remaining > 0) {
+            taken.forEach(line -> restore(productId, line.getQuantity(), line.getShard()));
+            return null;
+        }
+        return taken;
+    }
+
+    // Takes as much of the wanted quantity as the shard holds, re-reading it if a concurrent take got there first
+    private int drain(String productId, int shard, int seen, int wanted) {
+        int available = seen;
+        for (int attempt = 0; attempt < DRAIN_ATTEMPTS && available > 0; attempt++) {
+            int amount = Math.min(available, wanted);
+            if (takeFrom(productId, shard, amount)) {
+                return amount;
+            }
+            StockShard current = mongoTemplate.findById(StockShard.id(productId, shard), StockShard.class);
+            available = current != null ? current.getStock() : 0;
+        }
+        return 0;
+    }
+
+    private void even(String productId, int count, int total, List<StockShard> shards) {
+        int share = total / count;
+        if (share == 0) {
+            return;
+        }
+        List<StockShard> sorted = shards.stream()
+                .filter(shard -> shard.getShard() < count)
+                .sorted(Comparator.comparingInt(StockShard::getStock))
+                .collect(Collectors.toCollection(ArrayList::new));
+        int low = 0;
+        int high = sorted.size() - 1;
+        while (low < high) {
+            StockShard poor = sorted.get(low);
+            StockShard rich = sorted.get(high);
+            if (poor.getStock() * 2 >= share) {
+                break;
+            }
+            int amount = Math.min(share - poor.getStock(), rich.getStock() - share);
+            if (amount <= 0) {
+                break;
+            }
+            if (!takeFrom(productId, rich.getShard(), amount)) {
+                // Sold down since it was read; try the next fullest
+                high--;
+                continue;
+            }
+            restore(productId, amount, poor.getShard());
+            poor.setStock(poor.getStock() + amount);
+            rich.setStock(rich.getStock() - amount);
+            if (poor.getStock() >= share) {
+                low++;
+            }
+            if (rich.getStock() <= share) {
+                high--;
+            }
+        }
+    }
+
+    private Product refreshTotal(Product product) {
+        if (product == null || product.getStockShards() == null) {
+            return product;
+        }
+        Integer stored = product.getStock();
+        withLiveStock(product);
+        if (!Objects.equals(stored, product.getStock())) {
+            storeTotal(product, product.getStock());
+        }
+        return product;
+    }
+
+    private void storeTotal(Product product, int total) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(product.getId()).and("stockShards").ne(null)),
+                Update.update("stock", total).currentDate("updatedAt"),
+                Product.class);
+        product.setStock(total);
+        evictProduct(product.getId());
+        productSearchIndex.updateStock(product);
+    }
+
+    private boolean takeFrom(String productId, int shard, int quantity) {
+        return mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(StockShard.id(productId, shard)).and("stock").gte(quantity)),
+                new Update().inc("stock", -quantity),
+                StockShard.class).getModifiedCount() > 0;
+    }
+
+    private boolean addTo(String productId, int shard, int quantity) {
+        return mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(StockShard.id(productId, shard))),
+                new Update().inc("stock", quantity),
+                StockShard.class).getMatchedCount() > 0;
+    }
+
+    private Map<String, List<StockShard>> shardsOf(Collection<String> productIds) {
+        return mongoTemplate.find(Query.query(Criteria.where("productId").in(productIds)), StockShard.class)
+                .stream()
+                .collect(Collectors.groupingBy(StockShard::getProductId));
+    }
+
+    private static int total(List<StockShard> shards) {
+        return shards.stream().mapToInt(StockShard::getStock).sum();
+    }
+
+    private void evictProduct(String productId) {
+        Cache cache = cacheManager.getCache("product");
+        if (cache != null) {
+            cache.evict(productId);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package io.cloudforge.productservice.search;
+
+import io.cloudforge.productservice.dto.SuggestionDTO;
+import io.cloudforge.productservice.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private ProductSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.stream(any(Query.class), eq(Product.class)))
+                .thenReturn(Stream.of(product("p1", "Red Shoe", 5), product("p2", "Red Shirt", 4)));
+        searchIndex = new ProductSearchIndex(mongoTemplate);
+        searchIndex.rebuild();
+    }
+
+    @Test
+    void stockUpdateShowsInSearchResults() {
+        searchIndex.updateStock(product("p1", "Red Shoe", 3));
+
+        Page<Product> page = searchIndex.search("red", PageRequest.of(0, 10)).orElseThrow();
+
+        assertEquals(2, page.getTotalElements());
+        assertEquals(3, stockOf(page.getContent(), "p1"));
+    }
+
+    @Test
+    void soldOutProductSinksInSuggestions() {
+        assertEquals("p1", firstProductSuggestion("red"));
+
+        searchIndex.updateStock(product("p1", "Red Shoe", 0));
+
+        assertEquals("p2", firstProductSuggestion("red"));
+        // Still found by search, just ranked lower in suggestions
+        assertEquals(2, searchIndex.search("red", PageRequest.of(0, 10)).orElseThrow().getTotalElements());
+    }
+
+    @Test
+    void stockUpdateOfDeactivatedProductRemovesIt() {
+        Product inactive = product("p1", "Red Shoe", 5);
+        inactive.setActive(false);
+
+        searchIndex.updateStock(inactive);
+
+        Page<Product> page = searchIndex.search("red", PageRequest.of(0, 10)).orElseThrow();
+        assertEquals(1, page.getTotalElements());
+        assertEquals("p2", page.getContent().get(0).getId());
+    }
+
+    private String firstProductSuggestion(String prefix) {
+        return searchIndex.suggest(prefix, 10).stream()
+                .filter(suggestion -> suggestion.getType() == SuggestionDTO.Type.PRODUCT)
+                .findFirst()
+                .orElseThrow()
+                .getProductId();
+    }
+
+    private static int stockOf(List<Product> products, String productId) {
+        return products.stream()
+                .filter(product -> product.getId().equals(productId))
+                .findFirst()
+                .orElseThrow()
+                .getStock();
+    }
+
+    private static Product product(String id, String name, int stock) {
+        return Product.builder()
+                .id(id)
+                .name(name)
+                .category("Apparel")
+                .price(BigDecimal.TEN)
+                .stock(stock)
+                .active(true)
+                .build();
+    }
+}
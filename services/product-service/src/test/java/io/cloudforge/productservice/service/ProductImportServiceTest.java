@@ -0,0 +1,117 @@
+package io.cloudforge.productservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.cloudforge.productservice.dto.ProductImportResult;
+import io.cloudforge.productservice.model.Product;
+import io.cloudforge.productservice.model.StockShard;
+import io.cloudforge.productservice.search.ProductSearchIndex;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+@Testcontainers
+class ProductImportServiceTest {
+
+    @Container
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7");
+
+    private static MongoClient client;
+
+    private MongoTemplate mongoTemplate;
+    private StockShardService stockShardService;
+    private ProductImportService importService;
+
+    @BeforeAll
+    static void connect() {
+        client = MongoClients.create(mongo.getConnectionString());
+    }
+
+    @AfterAll
+    static void disconnect() {
+        client.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = new MongoTemplate(client, "products");
+        mongoTemplate.dropCollection(Product.class);
+        mongoTemplate.dropCollection(StockShard.class);
+
+        CacheManager cacheManager = mock(CacheManager.class);
+        ProductSearchIndex searchIndex = mock(ProductSearchIndex.class);
+        stockShardService = new StockShardService(mongoTemplate, cacheManager, searchIndex);
+        ReflectionTestUtils.setField(stockShardService, "maxShards", 8);
+        importService = new ProductImportService(mongoTemplate, new ObjectMapper().findAndRegisterModules(),
+                Validation.buildDefaultValidatorFactory().getValidator(), cacheManager, searchIndex,
+                mock(CatalogBrowseService.class));
+        ReflectionTestUtils.setField(importService, "batchSize", 100);
+        ReflectionTestUtils.setField(importService, "maxReportedErrors", 100);
+    }
+
+    @Test
+    void importKeepsShardedStockAndUpdatesPlainStock() throws Exception {
+        saveProduct("sharded", "SKU-1", 10);
+        stockShardService.enable("sharded", 2);
+        saveProduct("plain", "SKU-2", 3);
+
+        ProductImportResult result = importNdjson("""
+                {"id":"sharded","name":"Renamed","category":"Shoes","price":5,"stock":99,"sku":"SKU-1","active":true}
+                {"id":"plain","name":"Plain","category":"Shoes","price":5,"stock":7,"sku":"SKU-2","active":true}
+                """);
+
+        assertEquals(2, result.getUpdated());
+        Product sharded = mongoTemplate.findById("sharded", Product.class);
+        assertEquals("Renamed", sharded.getName());
+        assertEquals(10, sharded.getStock());
+        assertEquals(10, stockShardService.withLiveStock(sharded).getStock());
+        assertEquals(7, mongoTemplate.findById("plain", Product.class).getStock());
+    }
+
+    @Test
+    void importBySkuKeepsShardedStock() throws Exception {
+        saveProduct("sharded", "SKU-1", 10);
+        stockShardService.enable("sharded", 2);
+
+        importNdjson("""
+                {"name":"By SKU","category":"Shoes","price":5,"stock":50,"sku":"SKU-1","active":true}
+                """);
+
+        Product sharded = mongoTemplate.findById("sharded", Product.class);
+        assertEquals("By SKU", sharded.getName());
+        assertEquals(10, stockShardService.withLiveStock(sharded).getStock());
+    }
+
+    private ProductImportResult importNdjson(String body) throws Exception {
+        return importService.importProducts(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), ProductImportService.Format.NDJSON);
+    }
+
+    private void saveProduct(String id, String sku, int stock) {
+        mongoTemplate.save(Product.builder()
+                .id(id)
+                .name(id)
+                .category("Shoes")
+                .sku(sku)
+                .price(BigDecimal.TEN)
+                .stock(stock)
+                .active(true)
+                .build());
+    }
+}
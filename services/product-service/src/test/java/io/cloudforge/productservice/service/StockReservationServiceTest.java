@@ -0,0 +1,213 @@
+package io.cloudforge.productservice.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.cloudforge.productservice.dto.StockReservationRequest;
+import io.cloudforge.productservice.exception.InsufficientStockException;
+import io.cloudforge.productservice.model.Product;
+import io.cloudforge.productservice.model.StockReservation;
+import io.cloudforge.productservice.model.StockShard;
+import io.cloudforge.productservice.search.ProductSearchIndex;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+@Testcontainers
+class StockReservationServiceTest {
+
+    @Container
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7");
+
+    private static MongoClient client;
+
+    private MongoTemplate mongoTemplate;
+    private StockShardService stockShardService;
+    private StockReservationService reservationService;
+    private ExecutorService executor;
+
+    @BeforeAll
+    static void connect() {
+        client = MongoClients.create(mongo.getConnectionString());
+    }
+
+    @AfterAll
+    static void disconnect() {
+        client.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = new MongoTemplate(client, "products");
+        mongoTemplate.dropCollection(Product.class);
+        mongoTemplate.dropCollection(StockShard.class);
+        mongoTemplate.dropCollection(StockReservation.class);
+
+        CacheManager cacheManager = mock(CacheManager.class);
+        ProductSearchIndex searchIndex = mock(ProductSearchIndex.class);
+        stockShardService = new StockShardService(mongoTemplate, cacheManager, searchIndex);
+        ReflectionTestUtils.setField(stockShardService, "maxShards", 64);
+        reservationService = new StockReservationService(mongoTemplate, cacheManager, searchIndex, stockShardService);
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentReservesNeverOversell() throws Exception {
+        saveProduct("p1", 50);
+        AtomicInteger reserved = new AtomicInteger();
+
+        List<Callable<Void>> reserves = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String reservationId = "r" + i;
+            reserves.add(() -> {
+                try {
+                    reservationService.reserve(request(reservationId, "p1", 5));
+                    reserved.incrementAndGet();
+                } catch (InsufficientStockException e) {
+                    // Sold out
+                }
+                return null;
+            });
+        }
+        runAll(reserves);
+
+        assertEquals(10, reserved.get());
+        assertEquals(0, stockOf("p1"));
+    }
+
+    @Test
+    void releaseRacingReserveGivesEverythingBack() throws Exception {
+        saveProduct("plain", 1_000);
+        saveProduct("hot", 1_000);
+        stockShardService.enable("hot", 4);
+
+        for (int i = 0; i < 200; i++) {
+            String reservationId = "race-" + i;
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?> reserve = executor.submit(() -> {
+                start.await();
+                try {
+                    reservationService.reserve(StockReservationRequest.builder()
+                            .reservationId(reservationId)
+                            .items(List.of(
+                                    new StockReservationRequest.Item("plain", 2),
+                                    new StockReservationRequest.Item("hot", 3)))
+                            .build());
+                } catch (InsufficientStockException e) {
+                    // Lost to the release
+                }
+                return null;
+            });
+            Future<?> release = executor.submit(() -> {
+                start.await();
+                reservationService.release(reservationId);
+                return null;
+            });
+            start.countDown();
+            reserve.get(10, TimeUnit.SECONDS);
+            release.get(10, TimeUnit.SECONDS);
+
+            // A reserve that won the race is released now; otherwise this is a no-op
+            reservationService.release(reservationId);
+            assertEquals(StockReservation.Status.RELEASED,
+                    mongoTemplate.findById(reservationId, StockReservation.class).getStatus());
+        }
+
+        assertEquals(1_000, stockOf("plain"));
+        assertEquals(1_000, stockOf("hot"));
+    }
+
+    @Test
+    void reserveAfterReleaseIsRejected() {
+        saveProduct("p1", 10);
+        reservationService.release("r1");
+
+        assertThrows(InsufficientStockException.class,
+                () -> reservationService.reserve(request("r1", "p1", 4)));
+        assertEquals(10, stockOf("p1"));
+    }
+
+    @Test
+    void shortLineGivesBackLinesAlreadyTaken() {
+        saveProduct("a", 10);
+        saveProduct("b", 0);
+
+        assertThrows(InsufficientStockException.class, () -> reservationService.reserve(
+                StockReservationRequest.builder()
+                        .reservationId("r1")
+                        .items(List.of(
+                                new StockReservationRequest.Item("a", 3),
+                                new StockReservationRequest.Item("b", 1)))
+                        .build()));
+
+        assertEquals(10, stockOf("a"));
+        StockReservation reservation = mongoTemplate.findById("r1", StockReservation.class);
+        assertEquals(StockReservation.Status.RELEASED, reservation.getStatus());
+        assertTrue(reservation.getPending().isEmpty());
+    }
+
+    @Test
+    void repeatedReserveTakesOnce() {
+        saveProduct("p1", 10);
+
+        reservationService.reserve(request("r1", "p1", 4));
+        reservationService.reserve(request("r1", "p1", 4));
+
+        assertEquals(6, stockOf("p1"));
+    }
+
+    private void runAll(List<Callable<Void>> tasks) throws Exception {
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+    }
+
+    private void saveProduct(String id, int stock) {
+        mongoTemplate.save(Product.builder()
+                .id(id)
+                .name(id)
+                .price(BigDecimal.TEN)
+                .stock(stock)
+                .active(true)
+                .build());
+    }
+
+    private int stockOf(String productId) {
+        return stockShardService.withLiveStock(mongoTemplate.findById(productId, Product.class)).getStock();
+    }
+
+    private static StockReservationRequest request(String reservationId, String productId, int quantity) {
+        return StockReservationRequest.builder()
+                .reservationId(reservationId)
+                .items(List.of(new StockReservationRequest.Item(productId, quantity)))
+                .build();
+    }
+}
@@ -0,0 +1,186 @@
+package io.cloudforge.productservice.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.cloudforge.productservice.model.Product;
+import io.cloudforge.productservice.model.StockReservation;
+import io.cloudforge.productservice.model.StockShard;
+import io.cloudforge.productservice.search.ProductSearchIndex;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+@Testcontainers
+class StockShardServiceTest {
+
+    @Container
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7");
+
+    private static MongoClient client;
+
+    private MongoTemplate mongoTemplate;
+    private StockShardService stockShardService;
+
+    @BeforeAll
+    static void connect() {
+        client = MongoClients.create(mongo.getConnectionString());
+    }
+
+    @AfterAll
+    static void disconnect() {
+        client.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = new MongoTemplate(client, "products");
+        mongoTemplate.dropCollection(Product.class);
+        mongoTemplate.dropCollection(StockShard.class);
+
+        stockShardService = new StockShardService(mongoTemplate, mock(CacheManager.class), mock(ProductSearchIndex.class));
+        ReflectionTestUtils.setField(stockShardService, "maxShards", 8);
+    }
+
+    @Test
+    void enableSplitsStockEvenly() {
+        saveProduct("p1", 10);
+
+        stockShardService.enable("p1", 4);
+
+        assertEquals(List.of(3, 3, 2, 2), shardStocks("p1"));
+        Product product = mongoTemplate.findById("p1", Product.class);
+        assertEquals(4, product.getStockShards());
+        assertEquals(10, product.getStock());
+        assertTrue(stockShardService.isSharded("p1"));
+    }
+
+    @Test
+    void enableClampsShardCount() {
+        saveProduct("p1", 100);
+
+        stockShardService.enable("p1", 1_000);
+
+        assertEquals(8, shardStocks("p1").size());
+    }
+
+    @Test
+    void takeGathersFromSeveralShardsWhenNeighboursAreShort() {
+        saveProduct("p1", 8);
+        stockShardService.enable("p1", 4);
+
+        List<StockReservation.Line> lines = stockShardService.take("p1", 7);
+
+        assertEquals(7, lines.stream().mapToInt(StockReservation.Line::getQuantity).sum());
+        assertTrue(lines.size() >= 4);
+        assertEquals(1, liveStock("p1"));
+    }
+
+    @Test
+    void takeLeavesShardsAloneWhenTheyHoldTooLittle() {
+        saveProduct("p1", 8);
+        stockShardService.enable("p1", 4);
+
+        assertNull(stockShardService.take("p1", 9));
+        assertEquals(8, liveStock("p1"));
+    }
+
+    @Test
+    void disableMergesShardsBack() {
+        saveProduct("p1", 12);
+        stockShardService.enable("p1", 3);
+        stockShardService.take("p1", 5);
+
+        stockShardService.disable("p1");
+
+        Product product = mongoTemplate.findById("p1", Product.class);
+        assertNull(product.getStockShards());
+        assertEquals(7, product.getStock());
+        assertTrue(shardStocks("p1").isEmpty());
+        assertFalse(stockShardService.isSharded("p1"));
+    }
+
+    @Test
+    void restoreAfterDisableGoesToProduct() {
+        saveProduct("p1", 12);
+        stockShardService.enable("p1", 3);
+        List<StockReservation.Line> lines = stockShardService.take("p1", 2);
+        stockShardService.disable("p1");
+
+        lines.forEach(line -> stockShardService.restore("p1", line.getQuantity(), line.getShard()));
+
+        assertEquals(12, mongoTemplate.findById("p1", Product.class).getStock());
+    }
+
+    @Test
+    void rebalanceTopsUpLowShardsAndStoresTotal() {
+        saveProduct("p1", 40);
+        stockShardService.enable("p1", 4);
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(StockShard.id("p1", 0))),
+                Update.update("stock", 0), StockShard.class);
+
+        stockShardService.rebalance();
+
+        List<Integer> stocks = shardStocks("p1");
+        assertEquals(30, stocks.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(stocks.stream().allMatch(stock -> stock * 2 >= 30 / 4), "shards after rebalance: " + stocks);
+        assertEquals(30, mongoTemplate.findById("p1", Product.class).getStock());
+    }
+
+    @Test
+    void adjustAddsToAndTakesFromShards() {
+        saveProduct("p1", 10);
+        stockShardService.enable("p1", 2);
+        Product product = mongoTemplate.findById("p1", Product.class);
+
+        stockShardService.adjust(product, 5);
+        assertEquals(15, liveStock("p1"));
+
+        stockShardService.adjust(product, -12);
+        assertEquals(3, liveStock("p1"));
+
+        assertThrows(RuntimeException.class, () -> stockShardService.adjust(product, -4));
+        assertEquals(3, liveStock("p1"));
+    }
+
+    private void saveProduct(String id, int stock) {
+        mongoTemplate.save(Product.builder()
+                .id(id)
+                .name(id)
+                .price(BigDecimal.TEN)
+                .stock(stock)
+                .active(true)
+                .build());
+    }
+
+    private int liveStock(String productId) {
+        return stockShardService.withLiveStock(mongoTemplate.findById(productId, Product.class)).getStock();
+    }
+
+    private List<Integer> shardStocks(String productId) {
+        return mongoTemplate.find(Query.query(Criteria.where("productId").is(productId)), StockShard.class)
+                .stream()
+                .sorted((a, b) -> Integer.compare(a.getShard(), b.getShard()))
+                .map(StockShard::getStock)
+                .toList();
+    }
+}
@@ -1,10 +1,15 @@
 package io.cloudforge.userservice.config;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.ldap.core.ContextSource;
 import org.springframework.ldap.core.LdapTemplate;
 import org.springframework.ldap.core.support.LdapContextSource;
+import org.springframework.ldap.pool2.factory.PoolConfig;
+import org.springframework.ldap.pool2.factory.PoolingContextSource;
+import org.springframework.ldap.pool2.validation.DefaultDirContextValidator;
 
 @Configuration
 public class LdapConfig {
@@ -21,6 +26,19 @@ public class LdapConfig {
     @Value("${spring.ldap.password}")
     private String ldapPassword;
 
+    @Value("${ldap.pool.max-total:16}")
+    private int poolMaxTotal;
+
+    @Value("${ldap.pool.max-idle:8}")
+    private int poolMaxIdle;
+
+    @Value("${ldap.pool.max-wait-ms:2000}")
+    private long poolMaxWaitMs;
+
+    /**
+     * Unpooled source. Used directly only for user binds, which must never be
+     * returned to a shared pool.
+     */
     @Bean
     public LdapContextSource contextSource() {
         LdapContextSource contextSource = new LdapContextSource();
@@ -31,8 +49,28 @@ public class LdapConfig {
         return contextSource;
     }
 
+    /**
+     * Pool of service-account connections for directory searches.
+     */
+    @Bean
+    public ContextSource pooledContextSource(LdapContextSource contextSource) {
+        PoolConfig poolConfig = new PoolConfig();
+        poolConfig.setMaxTotal(poolMaxTotal);
+        poolConfig.setMaxTotalPerKey(poolMaxTotal);
+        poolConfig.setMaxIdlePerKey(poolMaxIdle);
+        poolConfig.setMaxWaitMillis(poolMaxWaitMs);
+        poolConfig.setTestOnBorrow(true);
+        poolConfig.setTestWhileIdle(true);
+
+        PoolingContextSource pooledContextSource = new PoolingContextSource();
+        pooledContextSource.setContextSource(contextSource);
+        pooledContextSource.setDirContextValidator(new DefaultDirContextValidator());
+        pooledContextSource.setPoolConfig(poolConfig);
+        return pooledContextSource;
+    }
+
     @Bean
-    public LdapTemplate ldapTemplate() {
-        return new LdapTemplate(contextSource());
+    public LdapTemplate ldapTemplate(@Qualifier("pooledContextSource") ContextSource pooledContextSource) {
+        return new LdapTemplate(pooledContextSource);
     }
 }
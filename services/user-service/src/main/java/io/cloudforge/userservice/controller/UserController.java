@@ -1,16 +1,22 @@
 package io.cloudforge.userservice.controller;
 
+import io.cloudforge.userservice.dto.UserBatchRequest;
 import io.cloudforge.userservice.dto.UserDTO;
+import io.cloudforge.userservice.dto.UserPageResponse;
+import io.cloudforge.userservice.entity.User;
 import io.cloudforge.userservice.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.UUID;
@@ -43,9 +49,33 @@ public class UserController {
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Get all users (Admin only)")
-    public ResponseEntity<List<UserDTO>> getAllUsers() {
-        List<UserDTO> users = userService.getAllUsers();
+    @Operation(summary = "List users with keyset pagination (Admin only)")
+    public ResponseEntity<UserPageResponse> getUsers(
+            @RequestParam(required = false) UUID after,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) User.Role role,
+            @RequestParam(required = false) Boolean enabled) {
+        UserPageResponse page = userService.getUsers(after, size, role, enabled);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Stream all users as NDJSON (Admin only)")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(required = false) User.Role role,
+            @RequestParam(required = false) Boolean enabled) {
+        StreamingResponseBody body = out -> userService.exportUsers(role, enabled, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    @PostMapping("/batch")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SERVICE')")
+    @Operation(summary = "Look up many users by ID in one call (Admin or internal services)")
+    public ResponseEntity<List<UserDTO>> getUsersByIds(@Valid @RequestBody UserBatchRequest request) {
+        List<UserDTO> users = userService.getUsersByIds(request.getIds());
         return ResponseEntity.ok(users);
     }
 
@@ -11,13 +11,18 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class LoginResponse {
     private String token;
+    private String refreshToken;
     private String type;
+    // Access token lifetime in seconds
+    private long expiresIn;
     private UserDTO user;
 
-    public static LoginResponse of(String token, UserDTO user) {
+    public static LoginResponse of(String token, String refreshToken, long expiresIn, UserDTO user) {
         return LoginResponse.builder()
                 .token(token)
+                .refreshToken(refreshToken)
                 .type("Bearer")
+                .expiresIn(expiresIn)
                 .user(user)
                 .build();
     }
@@ -0,0 +1,20 @@
+package io.cloudforge.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPageResponse {
+    private List<UserDTO> users;
+    // Pass as "after" to fetch the next page; null on the last page
+    private UUID nextCursor;
+    private boolean hasMore;
+}
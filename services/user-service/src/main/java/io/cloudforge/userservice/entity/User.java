@@ -46,6 +46,10 @@ public class User {
     @Column(name = "ldap_dn")
     private String ldapDn;
 
+    // Whether the directory has been searched for this user; see AuthService
+    @Column(name = "directory_checked", nullable = false)
+    private boolean directoryChecked;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,16 @@
+package io.cloudforge.userservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when the LDAP directory cannot be reached or its connection pool is
+ * exhausted. The credentials were never checked, so clients should retry shortly.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class DirectoryUnavailableException extends RuntimeException {
+
+    public DirectoryUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
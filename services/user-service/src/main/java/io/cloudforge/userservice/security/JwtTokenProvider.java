@@ -10,16 +10,25 @@ import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtTokenProvider {
 
+    public static final String TOKEN_TYPE_CLAIM = "token_type";
+    public static final String ACCESS_TOKEN = "access";
+    public static final String REFRESH_TOKEN = "refresh";
+    public static final String USER_ID_CLAIM = "uid";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
+    @Value("${jwt.refresh-expiration:604800000}")
+    private long refreshExpiration;
+
     private SecretKey getSigningKey() {
         byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
         return Keys.hmacShaKeyFor(keyBytes);
@@ -31,17 +40,63 @@ public class JwtTokenProvider {
     }
 
     public String generateToken(String username) {
+        return buildToken(username, null, ACCESS_TOKEN, jwtExpiration);
+    }
+
+    /**
+     * Issues an access token that also carries the user's id, so other services can
+     * authorize per-user resources without a lookup.
+     */
+    public String generateToken(String username, UUID userId) {
+        return buildToken(username, userId, ACCESS_TOKEN, jwtExpiration);
+    }
+
+    public String generateRefreshToken(String username) {
+        return buildToken(username, null, REFRESH_TOKEN, refreshExpiration);
+    }
+
+    public long getAccessTokenValiditySeconds() {
+        return jwtExpiration / 1000;
+    }
+
+    private String buildToken(String username, UUID userId, String type, long validity) {
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + jwtExpiration);
+        Date expiryDate = new Date(now.getTime() + validity);
 
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
+                .claim(TOKEN_TYPE_CLAIM, type)
+                .claim(USER_ID_CLAIM, userId != null ? userId.toString() : null)
                 .issuedAt(now)
                 .expiration(expiryDate)
                 .signWith(getSigningKey())
                 .compact();
     }
 
+    /**
+     * Verifies an access token and returns its claims, or null if it is invalid,
+     * expired or a refresh token. Tokens issued before token types existed count as
+     * access tokens.
+     */
+    public Claims parseAccessToken(String token) {
+        Claims claims = parse(token);
+        if (claims == null) {
+            return null;
+        }
+        String type = claims.get(TOKEN_TYPE_CLAIM, String.class);
+        return type == null || ACCESS_TOKEN.equals(type) ? claims : null;
+    }
+
+    /**
+     * Verifies a refresh token and returns its claims, or null if it is invalid,
+     * expired or not a refresh token.
+     */
+    public Claims parseRefreshToken(String token) {
+        Claims claims = parse(token);
+        return claims != null && REFRESH_TOKEN.equals(claims.get(TOKEN_TYPE_CLAIM, String.class)) ? claims : null;
+    }
+
     public String getUsernameFromToken(String token) {
         Claims claims = Jwts.parser()
                 .verifyWith(getSigningKey())
@@ -53,14 +108,18 @@ public class JwtTokenProvider {
     }
 
     public boolean validateToken(String token) {
+        return parse(token) != null;
+    }
+
+    private Claims parse(String token) {
         try {
-            Jwts.parser()
+            return Jwts.parser()
                     .verifyWith(getSigningKey())
                     .build()
-                    .parseSignedClaims(token);
-            return true;
+                    .parseSignedClaims(token)
+                    .getPayload();
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return null;
         }
     }
 }
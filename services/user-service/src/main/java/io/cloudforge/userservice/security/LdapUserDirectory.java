@@ -0,0 +1,118 @@
+package io.cloudforge.userservice.security;
+
+import io.cloudforge.userservice.exception.DirectoryUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.ldap.AuthenticationException;
+import org.springframework.ldap.CommunicationException;
+import org.springframework.ldap.NamingException;
+import org.springframework.ldap.ServiceUnavailableException;
+import org.springframework.ldap.TimeLimitExceededException;
+import org.springframework.ldap.core.ContextMapper;
+import org.springframework.ldap.core.DirContextOperations;
+import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.core.support.AbstractContextMapper;
+import org.springframework.ldap.core.support.LdapContextSource;
+import org.springframework.ldap.query.LdapQueryBuilder;
+import org.springframework.ldap.support.LdapUtils;
+import org.springframework.stereotype.Component;
+
+import javax.naming.directory.DirContext;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * LDAP lookups for login.
+ *
+ * A first login is one search on a pooled service-account connection, which returns
+ * both the DN and the profile attributes, followed by one bind as that DN. The DN is
+ * then stored on the local user, so later logins only pay for the bind.
+ *
+ * A directory that cannot be reached, or a pool with no free connection, surfaces as
+ * {@link DirectoryUnavailableException} (503); any other bind failure is treated as
+ * invalid credentials.
+ */
+@Component
+@Slf4j
+public class LdapUserDirectory {
+
+    private static final String[] ATTRIBUTES = {"mail", "cn", "givenName", "sn"};
+
+    private static final ContextMapper<LdapUserEntry> ENTRY_MAPPER = new AbstractContextMapper<>() {
+        @Override
+        protected LdapUserEntry doMapFromContext(DirContextOperations ctx) {
+            return new LdapUserEntry(
+                    ctx.getNameInNamespace(),
+                    ctx.getStringAttribute("mail"),
+                    ctx.getStringAttribute("cn"),
+                    ctx.getStringAttribute("givenName"),
+                    ctx.getStringAttribute("sn"));
+        }
+    };
+
+    private final LdapTemplate ldapTemplate;
+    private final LdapContextSource contextSource;
+
+    public LdapUserDirectory(LdapTemplate ldapTemplate, LdapContextSource contextSource) {
+        this.ldapTemplate = ldapTemplate;
+        this.contextSource = contextSource;
+    }
+
+    /**
+     * Finds a user entry by uid.
+     */
+    public Optional<LdapUserEntry> findByUsername(String username) {
+        List<LdapUserEntry> results;
+        try {
+            results = ldapTemplate.search(
+                    LdapQueryBuilder.query()
+                            .base("ou=users")
+                            .attributes(ATTRIBUTES)
+                            .countLimit(1)
+                            .where("uid").is(username),
+                    ENTRY_MAPPER);
+        } catch (CommunicationException | ServiceUnavailableException | TimeLimitExceededException e) {
+            throw unavailable(e);
+        } catch (DataAccessResourceFailureException e) {
+            // No pooled connection became free within ldap.pool.max-wait-ms
+            throw unavailable(e);
+        }
+
+        return results.stream().findFirst();
+    }
+
+    /**
+     * Verifies a password by binding as the user on a dedicated, unpooled connection.
+     */
+    public boolean authenticate(String dn, String password) {
+        if (password == null || password.isEmpty()) {
+            // An empty password would be an anonymous bind and always succeed
+            return false;
+        }
+
+        DirContext ctx = null;
+        try {
+            ctx = contextSource.getContext(dn, password);
+            return true;
+        } catch (AuthenticationException e) {
+            log.debug("LDAP bind rejected for {}", dn);
+            return false;
+        } catch (CommunicationException | ServiceUnavailableException | TimeLimitExceededException e) {
+            throw unavailable(e);
+        } catch (NamingException e) {
+            // Locked or expired accounts, malformed DNs and the like
+            log.warn("LDAP bind failed for {}: {}", dn, e.getMessage());
+            return false;
+        } finally {
+            LdapUtils.closeContext(ctx);
+        }
+    }
+
+    private static DirectoryUnavailableException unavailable(RuntimeException e) {
+        log.warn("LDAP directory unavailable: {}", e.getMessage());
+        return new DirectoryUnavailableException("Directory is unavailable, please retry shortly", e);
+    }
+
+    public record LdapUserEntry(String dn, String email, String fullName, String givenName, String surname) {
+    }
+}
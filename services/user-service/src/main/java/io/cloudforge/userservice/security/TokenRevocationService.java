@@ -0,0 +1,258 @@
+package io.cloudforge.userservice.security;
+
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Revocation list for JWTs.
+ *
+ * Redis is the source of truth: one key per revoked token id, and one per user whose
+ * sessions were all ended, each expiring with the tokens it covers. Every instance
+ * mirrors those keys into an in-memory Bloom filter, fed by pub/sub and rebuilt from
+ * a key scan at startup and periodically. Authenticated requests only consult the
+ * filter; Redis is asked only when the filter reports a possible match.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService implements MessageListener {
+
+    private static final String KEY_PREFIX = "auth:revoked:";
+    private static final String TOKEN_KEY = "jti:";
+    private static final String USER_KEY = "user:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final int filterCapacity;
+    private volatile BloomFilter filter;
+    private volatile BloomFilter rebuilding;
+
+    @Value("${jwt.revocation.channel:auth:revocations}")
+    private String channel;
+
+    @Value("${jwt.refresh-expiration:604800000}")
+    private long refreshExpiration;
+
+    public TokenRevocationService(StringRedisTemplate redisTemplate,
+            @Value("${jwt.revocation.filter-capacity:100000}") int filterCapacity) {
+        this.redisTemplate = redisTemplate;
+        this.filterCapacity = filterCapacity;
+        this.filter = new BloomFilter(filterCapacity);
+    }
+
+    /**
+     * Revokes a single token until it would have expired anyway.
+     */
+    public void revoke(String tokenId, Instant expiresAt) {
+        if (tokenId == null) {
+            return;
+        }
+        Duration ttl = Duration.between(Instant.now(), expiresAt);
+        if (ttl.isNegative() || ttl.isZero()) {
+            return;
+        }
+        String entry = TOKEN_KEY + tokenId;
+        redisTemplate.opsForValue().set(KEY_PREFIX + entry, "1", ttl);
+        announce(entry);
+    }
+
+    /**
+     * Atomically revokes a single-use token, such as a refresh token being rotated.
+     * Only one caller can claim a token id, so concurrent uses of the same token cannot
+     * both succeed.
+     *
+     * @return true if this call revoked the token, false if it had already been used
+     */
+    public boolean claim(String tokenId, Instant expiresAt) {
+        if (tokenId == null) {
+            return false;
+        }
+        Duration ttl = Duration.between(Instant.now(), expiresAt);
+        if (ttl.isNegative() || ttl.isZero()) {
+            return false;
+        }
+        String entry = TOKEN_KEY + tokenId;
+        // SET NX with the token's remaining lifetime
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + entry, "1", ttl))) {
+            return false;
+        }
+        announce(entry);
+        return true;
+    }
+
+    /**
+     * Revokes every token issued to the user up to now, access and refresh alike.
+     */
+    public void revokeAllForUser(String username) {
+        String entry = USER_KEY + username;
+        long cutoff = Instant.now().getEpochSecond();
+        // No token issued before the cutoff outlives the refresh token lifetime
+        redisTemplate.opsForValue().set(KEY_PREFIX + entry, Long.toString(cutoff),
+                Duration.ofMillis(refreshExpiration));
+        announce(entry);
+        log.info("Revoked all tokens for user {}", username);
+    }
+
+    /**
+     * Checks a verified token against the revocation list. Fails closed if Redis
+     * cannot confirm a filter hit.
+     */
+    public boolean isRevoked(Claims claims) {
+        String tokenEntry = claims.getId() != null ? TOKEN_KEY + claims.getId() : null;
+        String userEntry = USER_KEY + claims.getSubject();
+
+        BloomFilter current = filter;
+        boolean tokenHit = tokenEntry != null && current.mightContain(tokenEntry);
+        boolean userHit = current.mightContain(userEntry);
+        if (!tokenHit && !userHit) {
+            return false;
+        }
+
+        try {
+            if (tokenHit && Boolean.TRUE.equals(redisTemplate.hasKey(KEY_PREFIX + tokenEntry))) {
+                return true;
+            }
+            if (userHit) {
+                String cutoff = redisTemplate.opsForValue().get(KEY_PREFIX + userEntry);
+                // iat has second precision, so a token from the cutoff second is treated as revoked
+                return cutoff != null && claims.getIssuedAt() != null
+                        && claims.getIssuedAt().toInstant().getEpochSecond() <= Long.parseLong(cutoff);
+            }
+            return false;
+        } catch (DataAccessException e) {
+            log.warn("Could not confirm revocation of token for {}, rejecting it: {}",
+                    claims.getSubject(), e.getMessage());
+            return true;
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String entry = new String(message.getBody(), StandardCharsets.UTF_8);
+        filter.put(entry);
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.put(entry);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        resync();
+    }
+
+    /**
+     * Rebuilds the filter from Redis. Picks up anything published while this instance
+     * was disconnected and lets expired revocations drop out of the filter.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.resync-ms:300000}",
+            initialDelayString = "${jwt.revocation.resync-ms:300000}")
+    public void resync() {
+        BloomFilter next = new BloomFilter(filterCapacity);
+        rebuilding = next;
+        try {
+            Long count = redisTemplate.execute((RedisConnection connection) -> {
+                long entries = 0;
+                ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build();
+                try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                    while (cursor.hasNext()) {
+                        String key = new String(cursor.next(), StandardCharsets.UTF_8);
+                        next.put(key.substring(KEY_PREFIX.length()));
+                        entries++;
+                    }
+                }
+                return entries;
+            });
+            filter = next;
+            log.debug("Token revocation filter rebuilt with {} entries", count);
+        } catch (DataAccessException e) {
+            log.warn("Could not rebuild token revocation filter, keeping the current one: {}", e.getMessage());
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    private void announce(String entry) {
+        filter.put(entry);
+        redisTemplate.convertAndSend(channel, entry);
+    }
+
+    /**
+     * Fixed-size Bloom filter over revocation entries. Sized for the number of live
+     * revocations, which is small because entries expire with their tokens.
+     */
+    static final class BloomFilter {
+
+        private static final int HASH_FUNCTIONS = 7;
+        private static final int BITS_PER_KEY = 10;
+
+        private final int bitCount;
+        private final AtomicLongArray bits;
+
+        BloomFilter(int capacity) {
+            this.bitCount = Math.max(capacity, 1024) * BITS_PER_KEY;
+            this.bits = new AtomicLongArray((bitCount >>> 6) + 1);
+        }
+
+        boolean mightContain(String key) {
+            long[] hashes = hash(key);
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                int bit = bitIndex(hashes, i);
+                if ((bits.get(bit >>> 6) & (1L << (bit & 63))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void put(String key) {
+            long[] hashes = hash(key);
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                int bit = bitIndex(hashes, i);
+                int word = bit >>> 6;
+                long mask = 1L << (bit & 63);
+                long current;
+                do {
+                    current = bits.get(word);
+                } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        private int bitIndex(long[] hashes, int i) {
+            // Kirsch-Mitzenmacher double hashing
+            return (int) Math.floorMod(hashes[0] + i * hashes[1], (long) bitCount);
+        }
+
+        private static long[] hash(String key) {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            long h1 = 0xcbf29ce484222325L;
+            long h2 = 0x9e3779b97f4a7c15L;
+            for (byte b : bytes) {
+                h1 = (h1 ^ b) * 0x100000001b3L;
+                h2 = Long.rotateLeft(h2 ^ b, 31) * 0xbf58476d1ce4e5b9L;
+            }
+            return new long[] {mix(h1), mix(h2) | 1L};
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -2,36 +2,39 @@ package io.cloudforge.userservice.service;
 
 import io.cloudforge.userservice.dto.LoginRequest;
 import io.cloudforge.userservice.dto.LoginResponse;
+import io.cloudforge.userservice.dto.RefreshTokenRequest;
 import io.cloudforge.userservice.dto.RegisterRequest;
 import io.cloudforge.userservice.dto.UserDTO;
 import io.cloudforge.userservice.entity.User;
 import io.cloudforge.userservice.repository.UserRepository;
 import io.cloudforge.userservice.security.JwtTokenProvider;
+import io.cloudforge.userservice.security.LdapUserDirectory;
+import io.cloudforge.userservice.security.PasswordHashingService;
+import io.cloudforge.userservice.security.TokenRevocationService;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.ldap.core.LdapTemplate;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AuthService {
 
-    private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider tokenProvider;
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
-    private final LdapTemplate ldapTemplate;
+    private final PasswordHashingService passwordHashingService;
+    private final LdapUserDirectory ldapUserDirectory;
+    private final TokenRevocationService tokenRevocationService;
 
-    @Value("${spring.ldap.base:dc=cloudforge,dc=io}")
-    private String ldapBase;
+    @Value("${security.password.rehash-on-login:false}")
+    private boolean rehashOnLogin;
 
     public LoginResponse login(LoginRequest request) {
         log.debug("Login attempt for user: {}", request.getUsername());
@@ -42,17 +45,30 @@ public class AuthService {
 
         if (user != null) {
             log.debug("User found in database: {}", request.getUsername());
-            // Authenticate with database password
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            request.getUsername(),
-                            request.getPassword()));
+            if (!user.isEnabled()) {
+                throw new DisabledException("User account is disabled");
+            }
+
+            // Directory users keep no local password; the stored DN spares the LDAP search
+            if (user.getLdapDn() != null) {
+                return authenticateKnownLdapUser(user, request);
+            }
+
+            // A local hash is only trusted once the user is known not to be a directory user
+            if (!user.isDirectoryChecked() && linkDirectoryEntry(user)) {
+                return authenticateKnownLdapUser(user, request);
+            }
+
+            // Verify the password on the hashing pool rather than the request thread
+            if (user.getPasswordHash() == null
+                    || !passwordHashingService.matches(request.getPassword(), user.getPasswordHash())) {
+                throw new BadCredentialsException("Invalid username or password");
+            }
 
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-            String token = tokenProvider.generateToken(authentication);
+            rehashIfNeeded(user, request.getPassword());
 
             log.info("User logged in via database auth: {}", request.getUsername());
-            return LoginResponse.of(token, UserDTO.fromEntity(user));
+            return issueTokens(user);
         }
 
         // If user not in database, attempt LDAP authentication
@@ -60,7 +76,6 @@ public class AuthService {
         return authenticateWithLdap(request);
     }
 
-    @Transactional
     public LoginResponse register(RegisterRequest request) {
         // Check if username already exists
         if (userRepository.existsByUsername(request.getUsername())) {
@@ -72,94 +87,200 @@ public class AuthService {
             throw new RuntimeException("Email already exists: " + request.getEmail());
         }
 
+        // Hash outside of any transaction so no connection is held while waiting on BCrypt
+        String passwordHash = passwordHashingService.encode(request.getPassword());
+
         // Create new user
         User user = User.builder()
                 .username(request.getUsername())
                 .email(request.getEmail())
-                .passwordHash(passwordEncoder.encode(request.getPassword()))
+                .passwordHash(passwordHash)
                 .firstName(request.getFirstName())
                 .lastName(request.getLastName())
                 .role(User.Role.USER)
                 .enabled(true)
+                .directoryChecked(true)
                 .build();
 
         User savedUser = userRepository.save(user);
         log.info("Registered new user: {}", savedUser.getUsername());
 
-        // Auto-login after registration
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        request.getUsername(),
-                        request.getPassword()));
+        // Auto-login after registration; the password was just hashed, no need to verify it again
+        return issueTokens(savedUser);
+    }
+
+    /**
+     * Exchanges a refresh token for a new token pair. Refresh tokens are single use:
+     * the presented one is revoked, and presenting an already rotated one is treated
+     * as theft and ends every session of that user.
+     */
+    public LoginResponse refresh(RefreshTokenRequest request) {
+        Claims claims = tokenProvider.parseRefreshToken(request.getRefreshToken());
+        if (claims == null) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+
+        String username = claims.getSubject();
+        if (tokenRevocationService.isRevoked(claims)) {
+            log.warn("Revoked refresh token presented for user {}, ending all sessions", username);
+            tokenRevocationService.revokeAllForUser(username);
+            throw new BadCredentialsException("Invalid refresh token");
+        }
 
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        String token = tokenProvider.generateToken(authentication);
+        User user = userRepository.findByUsername(username)
+                .filter(User::isEnabled)
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
 
-        return LoginResponse.of(token, UserDTO.fromEntity(savedUser));
+        // Claiming the token id is the atomic step: of two concurrent refreshes only one wins
+        if (!tokenRevocationService.claim(claims.getId(), claims.getExpiration().toInstant())) {
+            log.warn("Refresh token reused for user {}, ending all sessions", username);
+            tokenRevocationService.revokeAllForUser(username);
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        return issueTokens(user);
     }
 
-    private LoginResponse authenticateWithLdap(LoginRequest request) {
+    /**
+     * Revokes the given access token and, if supplied, the refresh token of the same session.
+     * Tokens that are already invalid are ignored.
+     */
+    public void logout(String accessToken, String refreshToken) {
+        Claims access = accessToken != null ? tokenProvider.parseAccessToken(accessToken) : null;
+        if (access != null) {
+            tokenRevocationService.revoke(access.getId(), access.getExpiration().toInstant());
+        }
+
+        Claims refresh = refreshToken != null ? tokenProvider.parseRefreshToken(refreshToken) : null;
+        if (refresh != null && (access == null || refresh.getSubject().equals(access.getSubject()))) {
+            tokenRevocationService.revoke(refresh.getId(), refresh.getExpiration().toInstant());
+        }
+    }
+
+    /**
+     * Ends every session of the user, on all devices.
+     */
+    public void logoutEverywhere(String username) {
+        tokenRevocationService.revokeAllForUser(username);
+    }
+
+    private LoginResponse issueTokens(User user) {
+        return LoginResponse.of(
+                tokenProvider.generateToken(user.getUsername(), user.getId()),
+                tokenProvider.generateRefreshToken(user.getUsername()),
+                tokenProvider.getAccessTokenValiditySeconds(),
+                UserDTO.fromEntity(user));
+    }
+
+    /**
+     * Transparently upgrades hashes made with an older BCrypt cost factor.
+     * Never fails the login: if the pool is busy the upgrade is retried on a later login.
+     */
+    private void rehashIfNeeded(User user, String rawPassword) {
+        if (!rehashOnLogin || !passwordHashingService.needsRehash(user.getPasswordHash())) {
+            return;
+        }
         try {
-            // Build LDAP DN for the user
-            String userDn = String.format("uid=%s,ou=users,%s", request.getUsername(), ldapBase);
-            log.debug("Attempting LDAP authentication with DN: {}", userDn);
-            
-            // Attempt to bind with the user's credentials
-            boolean authenticated = ldapTemplate.authenticate(
-                    "ou=users",
-                    "(uid=" + request.getUsername() + ")",
-                    request.getPassword()
-            );
-            
-            if (!authenticated) {
-                log.warn("LDAP authentication failed for user: {}", request.getUsername());
-                throw new RuntimeException("Invalid username or password");
-            }
-            
-            log.info("LDAP authentication successful for user: {}", request.getUsername());
-            
-            // Fetch user details from LDAP using search
-            org.springframework.ldap.core.DirContextOperations ldapUser = ldapTemplate.searchForContext(
-                    org.springframework.ldap.query.LdapQueryBuilder.query()
-                            .base("ou=users")
-                            .where("uid").is(request.getUsername())
-            );
-            
-            String email = ldapUser.getStringAttribute("mail");
-            String fullName = ldapUser.getStringAttribute("cn");
-            String givenName = ldapUser.getStringAttribute("givenName");
-            String surname = ldapUser.getStringAttribute("sn");
-            
-            // Create or update user in database for JWT token generation
-            User user = userRepository.findByUsername(request.getUsername())
-                    .orElseGet(() -> {
-                        User newUser = User.builder()
-                                .username(request.getUsername())
-                                .email(email != null ? email : request.getUsername() + "@cloudforge.io")
-                                .firstName(givenName != null ? givenName : request.getUsername())
-                                .lastName(surname != null ? surname : "")
-                                .passwordHash(passwordEncoder.encode(request.getPassword())) // Store for future DB auth
-                                .role(User.Role.USER)
-                                .enabled(true)
-                                .build();
-                        log.info("Creating new user from LDAP: {}", request.getUsername());
-                        return userRepository.save(newUser);
+            user.setPasswordHash(passwordHashingService.encode(rawPassword));
+            userRepository.save(user);
+            log.info("Upgraded password hash for user: {}", user.getUsername());
+        } catch (RuntimeException e) {
+            log.warn("Skipping password rehash for user {}: {}", user.getUsername(), e.getMessage());
+        }
+    }
+
+    /**
+     * Searches the directory, once, for a user stored without a DN. Users provisioned
+     * from the directory before DNs were kept still carry the local hash they were
+     * created with; a matching entry (same uid and email) gets its DN stored and that
+     * hash dropped, so the password is only ever checked by a bind.
+     *
+     * @return whether the user turned out to be a directory user
+     */
+    private boolean linkDirectoryEntry(User user) {
+        Optional<LdapUserDirectory.LdapUserEntry> entry = ldapUserDirectory.findByUsername(user.getUsername())
+                .filter(found -> user.getEmail().equalsIgnoreCase(emailOf(found, user.getUsername())));
+        entry.ifPresent(found -> {
+            log.info("Linking user {} to directory entry {}", user.getUsername(), found.dn());
+            user.setLdapDn(found.dn());
+            user.setPasswordHash(null);
+        });
+        user.setDirectoryChecked(true);
+        userRepository.save(user);
+        return entry.isPresent();
+    }
+
+    private LoginResponse authenticateKnownLdapUser(User user, LoginRequest request) {
+        String dn = user.getLdapDn();
+        if (!ldapUserDirectory.authenticate(dn, request.getPassword())) {
+            // The entry may have moved in the directory: resolve the DN again and retry once
+            dn = ldapUserDirectory.findByUsername(request.getUsername())
+                    .map(LdapUserDirectory.LdapUserEntry::dn)
+                    .filter(current -> !current.equals(user.getLdapDn()))
+                    .filter(current -> ldapUserDirectory.authenticate(current, request.getPassword()))
+                    .orElseThrow(() -> {
+                        log.warn("LDAP authentication failed for user: {}", request.getUsername());
+                        return new BadCredentialsException("Invalid username or password");
                     });
-            
-            // Generate JWT token using authentication manager
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            request.getUsername(),
-                            request.getPassword()));
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-            String token = tokenProvider.generateToken(authentication);
-            
-            log.info("User logged in via LDAP auth: {}", request.getUsername());
-            return LoginResponse.of(token, UserDTO.fromEntity(user));
-            
-        } catch (Exception e) {
-            log.error("LDAP authentication error for user {}: {}", request.getUsername(), e.getMessage(), e);
-            throw new RuntimeException("Invalid username or password");
         }
+
+        if (!dn.equals(user.getLdapDn()) || user.getPasswordHash() != null) {
+            user.setLdapDn(dn);
+            user.setPasswordHash(null);
+            userRepository.save(user);
+        }
+
+        log.info("User logged in via LDAP auth: {}", request.getUsername());
+        return issueTokens(user);
+    }
+
+    /**
+     * Directory errors propagate: an unreachable directory is a 503 from
+     * {@link LdapUserDirectory}, not a failed login.
+     */
+    private LoginResponse authenticateWithLdap(LoginRequest request) {
+        // One search on a pooled connection yields DN and profile
+        LdapUserDirectory.LdapUserEntry ldapUser = ldapUserDirectory.findByUsername(request.getUsername())
+                .orElseThrow(() -> new BadCredentialsException("Invalid username or password"));
+        log.debug("Attempting LDAP bind with DN: {}", ldapUser.dn());
+
+        // Then a single bind as that DN
+        if (!ldapUserDirectory.authenticate(ldapUser.dn(), request.getPassword())) {
+            log.warn("LDAP authentication failed for user: {}", request.getUsername());
+            throw new BadCredentialsException("Invalid username or password");
+        }
+
+        log.info("LDAP authentication successful for user: {}", request.getUsername());
+
+        // login() already checked the database, so the user only needs to be created
+        User user = createUserFromLdap(request, ldapUser);
+
+        log.info("User logged in via LDAP auth: {}", request.getUsername());
+        // The bind proved the credentials; no second authentication round is needed
+        return issueTokens(user);
+    }
+
+    private User createUserFromLdap(LoginRequest request, LdapUserDirectory.LdapUserEntry ldapUser) {
+        // No local password hash: the directory stays the only place the password is checked
+        User newUser = User.builder()
+                .username(request.getUsername())
+                .email(emailOf(ldapUser, request.getUsername()))
+                .firstName(ldapUser.givenName() != null ? ldapUser.givenName() : request.getUsername())
+                .lastName(ldapUser.surname() != null ? ldapUser.surname() : "")
+                .ldapDn(ldapUser.dn())
+                .role(User.Role.USER)
+                .enabled(true)
+                .directoryChecked(true)
+                .build();
+        try {
+            log.info("Creating new user from LDAP: {}", request.getUsername());
+            return userRepository.save(newUser);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent login for the same user created it first
+            return userRepository.findByUsername(request.getUsername()).orElseThrow(() -> e);
+        }
+    }
+
+    private static String emailOf(LdapUserDirectory.LdapUserEntry ldapUser, String username) {
+        return ldapUser.email() != null ? ldapUser.email() : username + "@cloudforge.io";
     }
 }
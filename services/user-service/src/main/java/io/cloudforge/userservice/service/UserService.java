@@ -1,16 +1,35 @@
 package io.cloudforge.userservice.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.cloudforge.userservice.dto.RegisterRequest;
 import io.cloudforge.userservice.dto.UserDTO;
+import io.cloudforge.userservice.dto.UserPageResponse;
 import io.cloudforge.userservice.entity.User;
 import io.cloudforge.userservice.repository.UserRepository;
+import io.cloudforge.userservice.security.PasswordHashingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -20,12 +39,111 @@ import java.util.stream.Collectors;
 public class UserService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${users.listing.max-page-size:500}")
+    private int maxPageSize;
+
+    @Value("${users.export.fetch-size:1000}")
+    private int exportFetchSize;
+
+    /**
+     * Keyset-paginated listing ordered by id. Each page is a bounded index range scan,
+     * so deep pages cost the same as the first one.
+     */
+    @Transactional(readOnly = true)
+    public UserPageResponse getUsers(UUID after, int size, User.Role role, Boolean enabled) {
+        int limit = Math.max(1, Math.min(size, maxPageSize));
+
+        Specification<User> spec = Specification.where(null);
+        if (role != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("role"), role));
+        }
+        if (enabled != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("enabled"), enabled));
+        }
+
+        ScrollPosition position = after == null
+                ? ScrollPosition.keyset()
+                : ScrollPosition.forward(Map.of("id", after));
 
-    public List<UserDTO> getAllUsers() {
-        return userRepository.findAll().stream()
+        Window<User> window = userRepository.findBy(spec, query -> query
+                .sortBy(Sort.by("id"))
+                .limit(limit)
+                .scroll(position));
+
+        List<UserDTO> users = window.stream()
                 .map(UserDTO::fromEntity)
                 .collect(Collectors.toList());
+
+        return UserPageResponse.builder()
+                .users(users)
+                .hasMore(window.hasNext())
+                .nextCursor(window.hasNext() && !users.isEmpty() ? users.get(users.size() - 1).getId() : null)
+                .build();
+    }
+
+    /**
+     * Streams users as NDJSON straight from a server-side cursor. Only one fetch batch
+     * is ever held in memory regardless of table size.
+     */
+    @Transactional(readOnly = true)
+    public long exportUsers(User.Role role, Boolean enabled, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, username, email, first_name, last_name, role, enabled, created_at FROM users WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (role != null) {
+            sql.append(" AND role = ?");
+            params.add(role.name());
+        }
+        if (enabled != null) {
+            sql.append(" AND enabled = ?");
+            params.add(enabled);
+        }
+
+        long[] count = {0};
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql.toString(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                // Inside a transaction the PostgreSQL driver turns this into a cursor
+                statement.setFetchSize(exportFetchSize);
+                for (int i = 0; i < params.size(); i++) {
+                    statement.setObject(i + 1, params.get(i));
+                }
+                return statement;
+            }, (ResultSet rs) -> {
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                UserDTO user = UserDTO.builder()
+                        .id(rs.getObject("id", UUID.class))
+                        .username(rs.getString("username"))
+                        .email(rs.getString("email"))
+                        .firstName(rs.getString("first_name"))
+                        .lastName(rs.getString("last_name"))
+                        .role(rs.getString("role"))
+                        .enabled(rs.getBoolean("enabled"))
+                        .createdAt(createdAt != null ? createdAt.toLocalDateTime() : null)
+                        .build();
+                try {
+                    out.write(objectMapper.writeValueAsBytes(user));
+                    out.write('\n');
+                    if (++count[0] % exportFetchSize == 0) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Client went away; abandon the cursor
+            throw e.getCause();
+        }
+
+        out.flush();
+        log.info("Exported {} users", count[0]);
+        return count[0];
     }
 
     public UserDTO getUserById(UUID id) {
@@ -34,13 +152,29 @@ public class UserService {
         return UserDTO.fromEntity(user);
     }
 
+    /**
+     * Resolves many users with a single {@code WHERE id IN (...)} query. Unknown ids are
+     * left out of the result rather than failing the whole batch.
+     */
+    @Transactional(readOnly = true)
+    public List<UserDTO> getUsersByIds(Collection<UUID> ids) {
+        Set<UUID> distinctIds = new LinkedHashSet<>(ids);
+        distinctIds.remove(null);
+        if (distinctIds.isEmpty()) {
+            return List.of();
+        }
+
+        return userRepository.findAllById(distinctIds).stream()
+                .map(UserDTO::fromEntity)
+                .collect(Collectors.toList());
+    }
+
     public UserDTO getUserByUsername(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found: " + username));
         return UserDTO.fromEntity(user);
     }
 
-    @Transactional
     public UserDTO createUser(RegisterRequest request) {
         // Check if username already exists
         if (userRepository.existsByUsername(request.getUsername())) {
@@ -52,14 +186,18 @@ public class UserService {
             throw new RuntimeException("Email already exists: " + request.getEmail());
         }
 
+        // Hash outside of any transaction so no connection is held while waiting on BCrypt
+        String passwordHash = passwordHashingService.encode(request.getPassword());
+
         User user = User.builder()
                 .username(request.getUsername())
                 .email(request.getEmail())
-                .passwordHash(passwordEncoder.encode(request.getPassword()))
+                .passwordHash(passwordHash)
                 .firstName(request.getFirstName())
                 .lastName(request.getLastName())
                 .role(User.Role.USER)
                 .enabled(true)
+                .directoryChecked(true)
                 .build();
 
         User savedUser = userRepository.save(user);
@@ -0,0 +1,4 @@
+-- V2__drop_ldap_password_hashes.sql
+-- Directory users authenticate by LDAP bind only, so they keep no local password hash.
+
+UPDATE users SET password_hash = NULL WHERE ldap_dn IS NOT NULL;
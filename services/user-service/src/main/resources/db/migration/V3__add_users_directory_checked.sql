@@ -0,0 +1,9 @@
+-- V3__add_users_directory_checked.sql
+-- Users provisioned from LDAP before ldap_dn was stored have no DN and still carry
+-- a local password hash, so V2 left them alone. Until a user is checked, login
+-- searches the directory for them and links a matching entry instead of trusting
+-- that hash.
+
+ALTER TABLE users ADD COLUMN directory_checked BOOLEAN NOT NULL DEFAULT false;
+
+UPDATE users SET directory_checked = true WHERE ldap_dn IS NOT NULL;
@@ -0,0 +1,86 @@
+package io.cloudforge.userservice.controller;
+
+import io.cloudforge.userservice.config.SecurityConfig;
+import io.cloudforge.userservice.dto.UserDTO;
+import io.cloudforge.userservice.security.JwtTokenProvider;
+import io.cloudforge.userservice.security.ServiceTokenAuthenticationFilter;
+import io.cloudforge.userservice.security.TokenRevocationService;
+import io.cloudforge.userservice.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = UserController.class, properties = {
+        "security.service-token=test-service-token",
+        "spring.ldap.urls=ldap://localhost:389",
+        "spring.ldap.base=dc=cloudforge,dc=io"
+})
+@Import(SecurityConfig.class)
+class UserControllerSecurityTest {
+
+    private static final String BATCH_BODY = "{\"ids\":[\"" + UUID.randomUUID() + "\"]}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private JwtTokenProvider tokenProvider;
+
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
+    @MockBean
+    private UserDetailsService userDetailsService;
+
+    @Test
+    void batchLookupAcceptsServiceToken() throws Exception {
+        when(userService.getUsersByIds(any()))
+                .thenReturn(List.of(UserDTO.builder().username("jane").build()));
+
+        mockMvc.perform(post("/api/users/batch")
+                        .header(ServiceTokenAuthenticationFilter.SERVICE_TOKEN_HEADER, "test-service-token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BATCH_BODY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].username").value("jane"));
+    }
+
+    @Test
+    void batchLookupRejectsMissingOrWrongServiceToken() throws Exception {
+        mockMvc.perform(post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BATCH_BODY))
+                .andExpect(status().is4xxClientError());
+
+        mockMvc.perform(post("/api/users/batch")
+                        .header(ServiceTokenAuthenticationFilter.SERVICE_TOKEN_HEADER, "guessed-token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BATCH_BODY))
+                .andExpect(status().is4xxClientError());
+    }
+
+    @Test
+    void serviceTokenDoesNotOpenAdminEndpoints() throws Exception {
+        mockMvc.perform(get("/api/users/" + UUID.randomUUID())
+                        .header(ServiceTokenAuthenticationFilter.SERVICE_TOKEN_HEADER, "test-service-token"))
+                .andExpect(status().isForbidden());
+    }
+}
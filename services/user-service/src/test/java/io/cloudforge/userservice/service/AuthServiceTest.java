@@ -0,0 +1,341 @@
+package io.cloudforge.userservice.service;
+
+import io.cloudforge.userservice.dto.LoginRequest;
+import io.cloudforge.userservice.dto.LoginResponse;
+import io.cloudforge.userservice.dto.RefreshTokenRequest;
+import io.cloudforge.userservice.entity.User;
+import io.cloudforge.userservice.exception.DirectoryUnavailableException;
+import io.cloudforge.userservice.repository.UserRepository;
+import io.cloudforge.userservice.security.JwtTokenProvider;
+import io.cloudforge.userservice.security.LdapUserDirectory;
+import io.cloudforge.userservice.security.PasswordHashingService;
+import io.cloudforge.userservice.security.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AuthServiceTest {
+
+    private static final String DN = "uid=jane,ou=users,dc=cloudforge,dc=io";
+
+    @Mock
+    private JwtTokenProvider tokenProvider;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordHashingService passwordHashingService;
+
+    @Mock
+    private LdapUserDirectory ldapUserDirectory;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    private AuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        authService = new AuthService(tokenProvider, userRepository, passwordHashingService, ldapUserDirectory,
+                tokenRevocationService);
+    }
+
+    @Test
+    void firstLdapLoginCreatesUserWithoutPasswordHash() {
+        when(userRepository.findByUsername("jane")).thenReturn(Optional.empty());
+        when(ldapUserDirectory.findByUsername("jane")).thenReturn(Optional.of(
+                new LdapUserDirectory.LdapUserEntry(DN, "jane@cloudforge.io", "Jane Doe", "Jane", "Doe")));
+        when(ldapUserDirectory.authenticate(DN, "secret")).thenReturn(true);
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        authService.login(login("secret"));
+
+        ArgumentCaptor<User> saved = ArgumentCaptor.forClass(User.class);
+        verify(userRepository).save(saved.capture());
+        assertNull(saved.getValue().getPasswordHash());
+        assertEquals(DN, saved.getValue().getLdapDn());
+        verify(passwordHashingService, never()).encode(anyString());
+    }
+
+    @Test
+    void knownLdapUserBindsWithStoredDnWithoutSearchOrHashing() {
+        User user = ldapUser(null);
+        when(userRepository.findByUsername("jane")).thenReturn(Optional.of(user));
+        when(ldapUserDirectory.authenticate(DN, "secret")).thenReturn(true);
+
+        LoginResponse response = authService.login(login("secret"));
+
+        assertEquals("jane", response.getUser().getUsername());
+        verify(ldapUserDirectory, never()).findByUsername(anyString());
+        verify(passwordHashingService, never()).matches(anyString(), anyString());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void knownLdapUserLosesLegacyLocalHash() {
+        User user = ldapUser("$2a$10$legacy");
+        when(userRepository.findByUsername("jane")).thenReturn(Optional.of(user));
+        when(ldapUserDirectory.authenticate(DN, "secret")).thenReturn(true);
+
+        authService.login(login("secret"));
+
+        assertNull(user.getPasswordHash());
+        verify(userRepository).save(user);
+    }
+
+    @Test
+    void knownLdapUserWithWrongPasswordIsRejectedEvenWithLocalHash() {
+        User user = ldapUser("$2a$10$legacy");
+        when(userRepository.findByUsername("jane")).thenReturn(Optional.of(user));
+        when(ldapUserDirectory.authenticate(DN, "wrong")).thenReturn(false);
+        when(ldapUserDirectory.findByUsername("jane")).thenReturn(Optional.of(
+                new LdapUserDirectory.LdapUserEntry(DN, null, null, null, null)));
+
+        assertThrows(BadCredentialsException.class, () -> authService.login(login("wrong")));
+        verify(passwordHashingService, never()).matches(anyString(), anyString());
+    }
+
+    @Test
+    void movedLdapEntryIsResolvedAgain() {
+        String movedDn = "uid=jane,ou=staff,dc=cloudforge,dc=io";
+        User user = ldapUser(null);
+        when(userRepository.findByUsername("jane")).thenReturn(Optional.of(user));
+        when(ldapUserDirectory.authenticate(DN, "secret")).thenReturn(false);
+        when(ldapUserDirectory.findByUsername("jane")).thenReturn(Optional.of(
+                new LdapUserDirectory.LdapUserEntry(movedDn, null, null, null, null)));
+        when(ldapUserDirectory.authenticate(movedDn, "secret")).thenReturn(true);
+
+        authService.login(login("secret"));
+
+        assertEquals(movedDn, user.getLdapDn());
+        verify(userRepository).save(user);
+    }
+
+    @Test
+    void legacyDirectoryUserIsLinkedAndBindsInsteadOfUsingLocalHash() {
+        User user = legacyUser();
+        when(userRepository.findByUsername("jane")).thenReturn(Optional.of(user));
+        when(ldapUserDirectory.findByUsername("jane")).thenReturn(Optional.of(
+                new LdapUserDirectory.LdapUserEntry(DN, null, null, null, null)));
+        when(ldapUserDirectory.authenticate(DN, "secret")).thenReturn(true);
+
+        authService.login(login("secret"));
+
+        assertEquals(DN, user.getLdapDn());
+        assertNull(user.getPasswordHash());
+        assertTrue(user.isDirectoryChecked());
+        verify(passwordHashingService, never()).matches(anyString(), anyString());
+    }
+
+    @Test
+    void legacyDirectoryUserWithWrongPasswordDoesNotFallBackToLocalHash() {
+        User user = legacyUser();
+        when(userRepository.findByUsername("jane")).thenReturn(Optional.of(user));
+        when(ldapUserDirectory.findByUsername("jane")).thenReturn(Optional.of(
+                new LdapUserDirectory.LdapUserEntry(DN, "Jane@CloudForge.io", null, null, null)));
+        when(ldapUserDirectory.authenticate(DN, "old-local-password")).thenReturn(false);
+
+        assertThrows(BadCredentialsException.class, () -> authService.login(login("old-local-password")));
+        verify(passwordHashingService, never()).matches(anyString(), anyString());
+        assertNull(user.getPasswordHash());
+    }
+
+    @Test
+    void localUserIsSearchedInDirectoryOnlyOnce() {
+        User user = legacyUser();
+        when(userRepository.findByUsername("jane")).thenReturn(Optional.of(user));
+        // Same uid, but a different person
+        when(ldapUserDirectory.findByUsername("jane")).thenReturn(Optional.of(
+                new LdapUserDirectory.LdapUserEntry(DN, "jane.roe@example.com", null, null, null)));
+        when(passwordHashingService.matches("secret", "$2a$10$legacy")).thenReturn(true);
+
+        authService.login(login("secret"));
+        authService.login(login("secret"));
+
+        assertNull(user.getLdapDn());
+        assertTrue(user.isDirectoryChecked());
+        verify(ldapUserDirectory, times(1)).findByUsername("jane");
+        verify(ldapUserDirectory, never()).authenticate(anyString(), anyString());
+    }
+
+    @Test
+    void unreachableDirectoryIsNotReportedAsBadCredentials() {
+        when(userRepository.findByUsername("jane")).thenReturn(Optional.empty());
+        when(ldapUserDirectory.findByUsername("jane")).thenThrow(
+                new DirectoryUnavailableException("Directory is unavailable, please retry shortly", null));
+
+        assertThrows(DirectoryUnavailableException.class, () -> authService.login(login("secret")));
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void unknownDirectoryUserIsRejectedAsBadCredentials() {
+        when(userRepository.findByUsername("jane")).thenReturn(Optional.empty());
+        when(ldapUserDirectory.findByUsername("jane")).thenReturn(Optional.empty());
+
+        assertThrows(BadCredentialsException.class, () -> authService.login(login("secret")));
+    }
+
+    @Test
+    void concurrentRefreshesWithSameTokenIssueOnlyOnePair() throws Exception {
+        TokenRevocationService revocations = redisBackedRevocations();
+        AuthService service = new AuthService(tokenProvider, userRepository, passwordHashingService,
+                ldapUserDirectory, revocations);
+        Claims claims = Jwts.claims()
+                .id(UUID.randomUUID().toString())
+                .subject("jane")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .build();
+        when(tokenProvider.parseRefreshToken("refresh-token")).thenReturn(claims);
+        when(userRepository.findByUsername("jane")).thenReturn(Optional.of(localUser()));
+
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger issued = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        service.refresh(new RefreshTokenRequest("refresh-token"));
+                        issued.incrementAndGet();
+                    } catch (BadCredentialsException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, issued.get());
+        assertEquals(callers - 1, rejected.get());
+    }
+
+    @Test
+    void reusedRefreshTokenEndsAllSessions() {
+        Claims claims = Jwts.claims()
+                .id(UUID.randomUUID().toString())
+                .subject("jane")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .build();
+        when(tokenProvider.parseRefreshToken("refresh-token")).thenReturn(claims);
+        when(userRepository.findByUsername("jane")).thenReturn(Optional.of(localUser()));
+        when(tokenRevocationService.claim(eq(claims.getId()), any())).thenReturn(false);
+
+        assertThrows(BadCredentialsException.class,
+                () -> authService.refresh(new RefreshTokenRequest("refresh-token")));
+        verify(tokenRevocationService).revokeAllForUser("jane");
+    }
+
+    /**
+     * A revocation service over an in-memory stand-in for Redis with an atomic SET NX.
+     */
+    @SuppressWarnings("unchecked")
+    private static TokenRevocationService redisBackedRevocations() {
+        Map<String, String> store = new ConcurrentHashMap<>();
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        lenient().when(redisTemplate.opsForValue()).thenReturn(values);
+        lenient().when(values.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenAnswer(invocation -> store.putIfAbsent(invocation.getArgument(0),
+                        invocation.getArgument(1)) == null);
+        lenient().when(values.get(anyString())).thenAnswer(invocation -> store.get(invocation.getArgument(0)));
+        lenient().when(redisTemplate.hasKey(anyString()))
+                .thenAnswer(invocation -> store.containsKey(invocation.getArgument(0)));
+        lenient().doAnswer(invocation -> {
+            store.put(invocation.getArgument(0), invocation.getArgument(1));
+            return null;
+        }).when(values).set(anyString(), anyString(), any(Duration.class));
+        return new TokenRevocationService(redisTemplate, 1024);
+    }
+
+    private static User localUser() {
+        return User.builder()
+                .id(UUID.randomUUID())
+                .username("jane")
+                .email("jane@cloudforge.io")
+                .role(User.Role.USER)
+                .enabled(true)
+                .build();
+    }
+
+    // Provisioned from the directory before DNs were stored
+    private static User legacyUser() {
+        return User.builder()
+                .id(UUID.randomUUID())
+                .username("jane")
+                .email("jane@cloudforge.io")
+                .passwordHash("$2a$10$legacy")
+                .role(User.Role.USER)
+                .enabled(true)
+                .build();
+    }
+
+    private static User ldapUser(String passwordHash) {
+        return User.builder()
+                .id(UUID.randomUUID())
+                .username("jane")
+                .email("jane@cloudforge.io")
+                .passwordHash(passwordHash)
+                .ldapDn(DN)
+                .role(User.Role.USER)
+                .enabled(true)
+                .build();
+    }
+
+    private static LoginRequest login(String password) {
+        LoginRequest request = new LoginRequest();
+        request.setUsername("jane");
+        request.setPassword(password);
+        return request;
+    }
+}
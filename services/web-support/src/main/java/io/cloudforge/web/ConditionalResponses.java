@@ -0,0 +1,81 @@
+package io.cloudforge.web;
+
+import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Conditional GET support. Validators are built from each resource's update time,
+ * never from the serialized body, and Spring answers {@code 304 Not Modified} by
+ * itself when the request's {@code If-None-Match} or {@code If-Modified-Since} still
+ * matches. Responses are private and must be revalidated, so a polling client
+ * re-downloads a resource only after it changed.
+ */
+public final class ConditionalResponses {
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ConditionalResponses() {
+    }
+
+    /**
+     * Checks a conditional GET against the update time alone, so a poll that finds
+     * nothing new can be answered before the resource is loaded. Either way the
+     * validators are set on the response; follow a miss with {@link #revalidate}.
+     */
+    public static boolean notModified(WebRequest request, Instant updatedAt) {
+        return updatedAt != null && request.checkNotModified(etag(version(updatedAt)), updatedAt.toEpochMilli());
+    }
+
+    /**
+     * Like {@link #notModified(WebRequest, Instant)}, with {@code state} folded into the
+     * ETag, for resources that can change without their update time moving.
+     */
+    public static boolean notModified(WebRequest request, Instant updatedAt, long state) {
+        return updatedAt != null
+                && request.checkNotModified(etag(mix(version(updatedAt), state)), updatedAt.toEpochMilli());
+    }
+
+    public static <T> ResponseEntity<T> revalidate(T body) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(body);
+    }
+
+    /**
+     * ETag over the page position, the total and every element's id and update time.
+     * There is no Last-Modified: a page also changes when an element leaves it, which
+     * no remaining element's update time reflects.
+     */
+    public static <T> ResponseEntity<Page<T>> page(Page<T> page, Function<T, Object> id,
+            Function<T, Instant> updatedAt) {
+        long version = mix(mix(page.getTotalElements(), page.getNumber()), page.getSize());
+        for (T element : page) {
+            Instant at = updatedAt.apply(element);
+            version = mix(version, Objects.hashCode(id.apply(element)));
+            version = at != null ? mix(mix(version, at.getEpochSecond()), at.getNano()) : mix(version, 0);
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag(version))
+                .body(page);
+    }
+
+    private static long version(Instant updatedAt) {
+        return mix(updatedAt.getEpochSecond(), updatedAt.getNano());
+    }
+
+    private static long mix(long hash, long value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    // Weak: equal versions mean the same data, not byte-identical JSON
+    private static String etag(long version) {
+        return "W/\"" + Long.toHexString(version) + "\"";
+    }
+}